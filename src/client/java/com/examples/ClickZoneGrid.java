@@ -0,0 +1,168 @@
+package com.examples;
+
+import java.awt.Rectangle;
+import java.util.*;
+import java.util.List;
+
+// Uniform-grid spatial index over one window's click zones.
+// Each cell keeps its zones sorted from the highest zIndex down, so the topmost hit is the first match.
+class ClickZoneGrid {
+    static final int CELL_SIZE = 64;
+
+    private final Map<Long, List<InputSystem.ClickZone>> cells = new HashMap<>();
+    // The bounds each zone was indexed with, so moves only touch the cells that changed
+    private final Map<InputSystem.ClickZone, Rectangle> indexedBounds = new HashMap<>();
+    // Registration order breaks zIndex ties, later zones win like they are drawn last
+    private final Map<InputSystem.ClickZone, Long> insertionOrder = new HashMap<>();
+    private long nextInsertion;
+    // Whether a higher zone overlaps a zone's bounds; cleared whenever the index changes
+    private final Map<InputSystem.ClickZone, Boolean> occlusionCache = new HashMap<>();
+
+    private final Comparator<InputSystem.ClickZone> topmostFirst = (a, b) -> {
+        if (a.zIndex != b.zIndex) return Integer.compare(b.zIndex, a.zIndex);
+        return Long.compare(insertionOrder.get(b), insertionOrder.get(a));
+    };
+
+    synchronized void add(InputSystem.ClickZone zone) {
+        if (indexedBounds.containsKey(zone)) return;
+
+        occlusionCache.clear();
+        Rectangle bounds = new Rectangle(zone.bounds);
+        insertionOrder.put(zone, nextInsertion++);
+        indexedBounds.put(zone, bounds);
+        forEachCell(bounds, key -> insert(key, zone));
+    }
+
+    synchronized void remove(InputSystem.ClickZone zone) {
+        Rectangle bounds = indexedBounds.remove(zone);
+        if (bounds == null) return;
+
+        occlusionCache.clear();
+        forEachCell(bounds, key -> removeFromCell(key, zone));
+        insertionOrder.remove(zone);
+    }
+
+    // Re-indexes a zone after its bounds changed, touching only cells it entered or left
+    synchronized void move(InputSystem.ClickZone zone, Rectangle newBounds) {
+        Rectangle oldBounds = indexedBounds.get(zone);
+        zone.bounds = new Rectangle(newBounds);
+        if (oldBounds == null) {
+            add(zone);
+            return;
+        }
+
+        int oldMinX = cellIndex(oldBounds.x), oldMaxX = cellIndex(oldBounds.x + oldBounds.width);
+        int oldMinY = cellIndex(oldBounds.y), oldMaxY = cellIndex(oldBounds.y + oldBounds.height);
+        int newMinX = cellIndex(newBounds.x), newMaxX = cellIndex(newBounds.x + newBounds.width);
+        int newMinY = cellIndex(newBounds.y), newMaxY = cellIndex(newBounds.y + newBounds.height);
+
+        occlusionCache.clear();
+        indexedBounds.put(zone, new Rectangle(newBounds));
+        if (oldMinX == newMinX && oldMaxX == newMaxX && oldMinY == newMinY && oldMaxY == newMaxY) return;
+
+        for (int cx = oldMinX; cx <= oldMaxX; cx++) {
+            for (int cy = oldMinY; cy <= oldMaxY; cy++) {
+                if (cx < newMinX || cx > newMaxX || cy < newMinY || cy > newMaxY) {
+                    removeFromCell(cellKey(cx, cy), zone);
+                }
+            }
+        }
+        for (int cx = newMinX; cx <= newMaxX; cx++) {
+            for (int cy = newMinY; cy <= newMaxY; cy++) {
+                if (cx < oldMinX || cx > oldMaxX || cy < oldMinY || cy > oldMaxY) {
+                    insert(cellKey(cx, cy), zone);
+                }
+            }
+        }
+    }
+
+    // Topmost enabled zone containing the point, or null
+    synchronized InputSystem.ClickZone findTopmost(double x, double y) {
+        List<InputSystem.ClickZone> cell = cells.get(cellKey(cellIndex(x), cellIndex(y)));
+        if (cell == null) return null;
+
+        for (InputSystem.ClickZone zone : cell) {
+            if (zone.contains(x, y) && zone.element.isEnabled()) {
+                return zone;
+            }
+        }
+        return null;
+    }
+
+    // True if any zone above this one intersects its bounds, so a point inside it may hit something else.
+    // A zone that is no longer registered counts as occluded, so callers fall back to a full hit test.
+    synchronized boolean isOccluded(InputSystem.ClickZone zone) {
+        Rectangle bounds = indexedBounds.get(zone);
+        if (bounds == null) return true;
+
+        Boolean cached = occlusionCache.get(zone);
+        if (cached != null) return cached;
+
+        boolean occluded = false;
+        int minX = cellIndex(bounds.x), maxX = cellIndex(bounds.x + bounds.width);
+        int minY = cellIndex(bounds.y), maxY = cellIndex(bounds.y + bounds.height);
+        for (int cx = minX; cx <= maxX && !occluded; cx++) {
+            for (int cy = minY; cy <= maxY && !occluded; cy++) {
+                List<InputSystem.ClickZone> cell = cells.get(cellKey(cx, cy));
+                if (cell == null) continue;
+                // Zones ahead of this one in the cell are the ones above it
+                for (InputSystem.ClickZone other : cell) {
+                    if (other == zone) break;
+                    if (other.isEnabled && other.bounds.intersects(bounds)) {
+                        occluded = true;
+                        break;
+                    }
+                }
+            }
+        }
+        occlusionCache.put(zone, occluded);
+        return occluded;
+    }
+
+    synchronized int size() {
+        return indexedBounds.size();
+    }
+
+    private void insert(long key, InputSystem.ClickZone zone) {
+        List<InputSystem.ClickZone> cell = cells.computeIfAbsent(key, k -> new ArrayList<>());
+        int index = Collections.binarySearch(cell, zone, topmostFirst);
+        cell.add(index < 0 ? -index - 1 : index, zone);
+    }
+
+    private void removeFromCell(long key, InputSystem.ClickZone zone) {
+        List<InputSystem.ClickZone> cell = cells.get(key);
+        if (cell == null) return;
+
+        int index = Collections.binarySearch(cell, zone, topmostFirst);
+        if (index >= 0) {
+            cell.remove(index);
+        } else {
+            cell.remove(zone);
+        }
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private static void forEachCell(Rectangle bounds, CellVisitor visitor) {
+        int minX = cellIndex(bounds.x), maxX = cellIndex(bounds.x + bounds.width);
+        int minY = cellIndex(bounds.y), maxY = cellIndex(bounds.y + bounds.height);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                visitor.visit(cellKey(cx, cy));
+            }
+        }
+    }
+
+    private static int cellIndex(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private interface CellVisitor {
+        void visit(long key);
+    }
+}
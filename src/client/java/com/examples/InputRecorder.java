@@ -0,0 +1,224 @@
+package com.examples;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.lwjgl.glfw.GLFW.glfwGetWindowSize;
+
+// Records the GLFW input a window receives into a compact binary file for later replay.
+//
+// File layout: magic, version, initial window width and height, then one record per event:
+// a type byte, the nanoseconds since the previous event as a varint, and the event payload.
+public class InputRecorder {
+    static final Path RECORDINGS_DIR = WindowsClient.getWindowsClientConfigDir().toPath().resolve("recordings");
+    static final String FILE_EXTENSION = ".wrec";
+    static final int MAGIC = 0x57524543;  // "WREC"
+    static final int VERSION = 1;
+
+    static final byte EVENT_CHAR = 1;
+    static final byte EVENT_KEY = 2;
+    static final byte EVENT_MOUSE_BUTTON = 3;
+    static final byte EVENT_CURSOR_POS = 4;
+    static final byte EVENT_SCROLL = 5;
+    static final byte EVENT_WINDOW_SIZE = 6;
+
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    private static class Recording {
+        final String windowName;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        long lastEventNanos;
+        int eventCount;
+
+        Recording(String windowName, int width, int height) throws IOException {
+            this.windowName = windowName;
+            this.lastEventNanos = System.nanoTime();
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeVarInt(out, width);
+            writeVarInt(out, height);
+        }
+
+        // Called from the window's render thread while a command may be stopping the recording
+        synchronized DataOutputStream begin(byte type) throws IOException {
+            long now = System.nanoTime();
+            out.writeByte(type);
+            writeVarLong(out, now - lastEventNanos);
+            lastEventNanos = now;
+            eventCount++;
+            return out;
+        }
+    }
+
+    static boolean start(String windowName, long window) {
+        if (recordings.containsKey(window)) return false;
+
+        int[] width = new int[1];
+        int[] height = new int[1];
+        glfwGetWindowSize(window, width, height);
+        try {
+            return recordings.putIfAbsent(window, new Recording(windowName, width[0], height[0])) == null;
+        } catch (IOException e) {
+            ErrorHandler.handleError("Failed to start input recording", e, "InputRecorder.start");
+            return false;
+        }
+    }
+
+    // Stops every recording and writes them out; returns the files that were written
+    static List<Path> stopAll() {
+        List<Path> written = new ArrayList<>();
+        for (Long window : new ArrayList<>(recordings.keySet())) {
+            Path path = stop(window);
+            if (path != null) written.add(path);
+        }
+        return written;
+    }
+
+    static Path stop(long window) {
+        Recording recording = recordings.remove(window);
+        if (recording == null) return null;
+
+        String fileName = SessionManager.sanitizeFileName(recording.windowName) + "_"
+                + LocalDateTime.now().format(FILE_TIME_FORMAT) + FILE_EXTENSION;
+        Path path = RECORDINGS_DIR.resolve(fileName);
+        try {
+            Files.createDirectories(RECORDINGS_DIR);
+            synchronized (recording) {
+                recording.out.flush();
+                Files.write(path, recording.bytes.toByteArray());
+            }
+            ErrorHandler.debug("Recorded " + recording.eventCount + " input events to " + path);
+            return path;
+        } catch (IOException e) {
+            ErrorHandler.handleError("Failed to write input recording", e, "InputRecorder.stop");
+            return null;
+        }
+    }
+
+    static void recordChar(long window, int codepoint) {
+        Recording recording = recordings.get(window);
+        if (recording == null) return;
+        try {
+            synchronized (recording) {
+                writeVarInt(recording.begin(EVENT_CHAR), codepoint);
+            }
+        } catch (IOException e) {
+            ErrorHandler.debug("Dropped recorded char event: " + e.getMessage());
+        }
+    }
+
+    static void recordKey(long window, int key, int scancode, int action, int mods) {
+        Recording recording = recordings.get(window);
+        if (recording == null) return;
+        try {
+            synchronized (recording) {
+                DataOutputStream out = recording.begin(EVENT_KEY);
+                // GLFW_KEY_UNKNOWN is -1, so keys are shifted to stay non-negative
+                writeVarInt(out, key + 1);
+                writeVarInt(out, scancode);
+                out.writeByte(action);
+                out.writeByte(mods);
+            }
+        } catch (IOException e) {
+            ErrorHandler.debug("Dropped recorded key event: " + e.getMessage());
+        }
+    }
+
+    // Button events carry the cursor position so replay does not depend on the real cursor
+    static void recordMouseButton(long window, int button, int action, int mods, double x, double y) {
+        Recording recording = recordings.get(window);
+        if (recording == null) return;
+        try {
+            synchronized (recording) {
+                DataOutputStream out = recording.begin(EVENT_MOUSE_BUTTON);
+                out.writeByte(button);
+                out.writeByte(action);
+                out.writeByte(mods);
+                out.writeFloat((float) x);
+                out.writeFloat((float) y);
+            }
+        } catch (IOException e) {
+            ErrorHandler.debug("Dropped recorded mouse event: " + e.getMessage());
+        }
+    }
+
+    static void recordCursorPos(long window, double x, double y) {
+        Recording recording = recordings.get(window);
+        if (recording == null) return;
+        try {
+            synchronized (recording) {
+                DataOutputStream out = recording.begin(EVENT_CURSOR_POS);
+                out.writeFloat((float) x);
+                out.writeFloat((float) y);
+            }
+        } catch (IOException e) {
+            ErrorHandler.debug("Dropped recorded cursor event: " + e.getMessage());
+        }
+    }
+
+    static void recordScroll(long window, double xOffset, double yOffset) {
+        Recording recording = recordings.get(window);
+        if (recording == null) return;
+        try {
+            synchronized (recording) {
+                DataOutputStream out = recording.begin(EVENT_SCROLL);
+                out.writeFloat((float) xOffset);
+                out.writeFloat((float) yOffset);
+            }
+        } catch (IOException e) {
+            ErrorHandler.debug("Dropped recorded scroll event: " + e.getMessage());
+        }
+    }
+
+    static void recordWindowSize(long window, int width, int height) {
+        Recording recording = recordings.get(window);
+        if (recording == null) return;
+        try {
+            synchronized (recording) {
+                DataOutputStream out = recording.begin(EVENT_WINDOW_SIZE);
+                writeVarInt(out, width);
+                writeVarInt(out, height);
+            }
+        } catch (IOException e) {
+            ErrorHandler.debug("Dropped recorded resize event: " + e.getMessage());
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 64) throw new IOException("Malformed varint");
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
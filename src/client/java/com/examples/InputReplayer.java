@@ -0,0 +1,276 @@
+package com.examples;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.text.Text;
+import org.lwjgl.opengl.GL;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+// Feeds a recording made by InputRecorder back into the UI, either into an open window
+// or into a hidden window that renders as fast as it can, and reports the frame times.
+public class InputReplayer {
+    // At maximum speed, each frame consumes this much recorded time
+    private static final long FRAME_SLICE_NANOS = 16_666_667L;
+
+    private static final Map<Long, Replay> replays = new ConcurrentHashMap<>();
+
+    private static class RecordedEvent {
+        final byte type;
+        final long timeNanos;  // Since the start of the recording
+        final int a, b, c, d;
+        final double x, y;
+
+        RecordedEvent(byte type, long timeNanos, int a, int b, int c, int d, double x, double y) {
+            this.type = type;
+            this.timeNanos = timeNanos;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static class Recording {
+        final int width;
+        final int height;
+        final List<RecordedEvent> events;
+
+        Recording(int width, int height, List<RecordedEvent> events) {
+            this.width = width;
+            this.height = height;
+            this.events = events;
+        }
+    }
+
+    // Only touched on the replaying window's render thread, apart from the cursor override
+    private static class Replay {
+        final String label;
+        final Recording recording;
+        final boolean maxSpeed;
+        int nextEvent;
+        long startNanos = -1;
+        long replayClock;
+        long[] frameTimes = new long[1024];
+        int frameCount;
+        volatile double cursorX;
+        volatile double cursorY;
+        volatile boolean finished;
+
+        Replay(String label, Recording recording, boolean maxSpeed) {
+            this.label = label;
+            this.recording = recording;
+            this.maxSpeed = maxSpeed;
+        }
+    }
+
+    static Path resolveRecording(String fileName) {
+        if (!fileName.endsWith(InputRecorder.FILE_EXTENSION)) {
+            fileName += InputRecorder.FILE_EXTENSION;
+        }
+        return InputRecorder.RECORDINGS_DIR.resolve(fileName);
+    }
+
+    // Replays into an open window, at the recorded pace or as fast as frames are drawn
+    static boolean startLive(String windowName, long window, Path file, boolean maxSpeed) throws IOException {
+        Recording recording = load(file);
+        return replays.putIfAbsent(window, new Replay(windowName, recording, maxSpeed)) == null;
+    }
+
+    // Replays into a hidden window at maximum speed; must be called on the main thread
+    static void startHeadless(Path file) throws IOException {
+        Recording recording = load(file);
+
+        glfwDefaultWindowHints();
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        long window = glfwCreateWindow(Math.max(1, recording.width), Math.max(1, recording.height),
+                "Replay", 0, 0);
+        if (window == 0) {
+            throw new IOException("Failed to create replay window");
+        }
+
+        UI.initializeWindow(window);
+        Replay replay = new Replay("headless " + file.getFileName(), recording, true);
+        replays.put(window, replay);
+
+        Thread replayThread = new Thread(() -> {
+            try {
+                glfwMakeContextCurrent(window);
+                GL.createCapabilities();
+
+                // No frame pacing; the frame times are the benchmark
+                while (!replay.finished) {
+                    UI.render(window);
+                }
+
+                UI.cleanup(window);
+                glfwMakeContextCurrent(0);
+                GL.setCapabilities(null);
+                glfwDestroyWindow(window);
+            } catch (Exception e) {
+                replays.remove(window);
+                ErrorHandler.handleError("Headless replay failed", e, "InputReplayer.startHeadless");
+            }
+        }, "Window-Replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    static boolean isReplaying(long window) {
+        return replays.containsKey(window);
+    }
+
+    // Reads the replayed cursor while a replay runs, the real one otherwise
+    static void getCursorPos(long window, double[] x, double[] y) {
+        Replay replay = replays.get(window);
+        if (replay != null) {
+            x[0] = replay.cursorX;
+            y[0] = replay.cursorY;
+        } else {
+            glfwGetCursorPos(window, x, y);
+        }
+    }
+
+    // Called by UI.render before drawing; delivers every event that is due for this frame
+    static void beforeFrame(long window) {
+        Replay replay = replays.get(window);
+        if (replay == null) return;
+
+        long now = System.nanoTime();
+        if (replay.startNanos < 0) {
+            replay.startNanos = now;
+        }
+        replay.replayClock = replay.maxSpeed
+                ? replay.replayClock + FRAME_SLICE_NANOS
+                : now - replay.startNanos;
+
+        List<RecordedEvent> events = replay.recording.events;
+        while (replay.nextEvent < events.size() && events.get(replay.nextEvent).timeNanos <= replay.replayClock) {
+            dispatch(window, replay, events.get(replay.nextEvent++));
+        }
+    }
+
+    // Called by UI.render once the frame has been submitted
+    static void afterFrame(long window, long frameNanos) {
+        Replay replay = replays.get(window);
+        if (replay == null || replay.startNanos < 0) return;
+
+        if (replay.frameCount == replay.frameTimes.length) {
+            replay.frameTimes = Arrays.copyOf(replay.frameTimes, replay.frameCount * 2);
+        }
+        replay.frameTimes[replay.frameCount++] = frameNanos;
+
+        if (replay.nextEvent >= replay.recording.events.size()) {
+            replays.remove(window);
+            replay.finished = true;
+            report(replay);
+        }
+    }
+
+    static void cleanup(long window) {
+        Replay replay = replays.remove(window);
+        if (replay != null) {
+            replay.finished = true;
+        }
+    }
+
+    private static void dispatch(long window, Replay replay, RecordedEvent event) {
+        switch (event.type) {
+            case InputRecorder.EVENT_CHAR -> UI.handleCharCallback(window, event.a);
+            case InputRecorder.EVENT_KEY -> UI.handleKeyCallback(window, event.a, event.b, event.c, event.d);
+            case InputRecorder.EVENT_MOUSE_BUTTON -> {
+                replay.cursorX = event.x;
+                replay.cursorY = event.y;
+                UI.handleMouseButtonCallback(window, event.a, event.b, event.c);
+            }
+            case InputRecorder.EVENT_CURSOR_POS -> {
+                replay.cursorX = event.x;
+                replay.cursorY = event.y;
+                UI.handleCursorPosCallback(window, event.x, event.y);
+            }
+            case InputRecorder.EVENT_SCROLL -> UI.handleScrollCallback(window, event.x, event.y);
+            // The window itself is not resized, only the UI is told about it
+            case InputRecorder.EVENT_WINDOW_SIZE -> UI.handleWindowSizeCallback(window, event.a, event.b);
+            default -> ErrorHandler.debug("Skipping unknown recorded event type " + event.type);
+        }
+    }
+
+    private static Recording load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != InputRecorder.MAGIC) {
+                throw new IOException("Not an input recording: " + file.getFileName());
+            }
+            int version = in.readUnsignedByte();
+            if (version != InputRecorder.VERSION) {
+                throw new IOException("Unsupported recording version " + version);
+            }
+
+            int width = InputRecorder.readVarInt(in);
+            int height = InputRecorder.readVarInt(in);
+            List<RecordedEvent> events = new ArrayList<>();
+            long time = 0;
+
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                time += InputRecorder.readVarLong(in);
+
+                switch ((byte) type) {
+                    case InputRecorder.EVENT_CHAR -> events.add(new RecordedEvent((byte) type, time,
+                            InputRecorder.readVarInt(in), 0, 0, 0, 0, 0));
+                    case InputRecorder.EVENT_KEY -> events.add(new RecordedEvent((byte) type, time,
+                            InputRecorder.readVarInt(in) - 1, InputRecorder.readVarInt(in),
+                            in.readUnsignedByte(), in.readUnsignedByte(), 0, 0));
+                    case InputRecorder.EVENT_MOUSE_BUTTON -> events.add(new RecordedEvent((byte) type, time,
+                            in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte(), 0,
+                            in.readFloat(), in.readFloat()));
+                    case InputRecorder.EVENT_CURSOR_POS, InputRecorder.EVENT_SCROLL ->
+                            events.add(new RecordedEvent((byte) type, time, 0, 0, 0, 0, in.readFloat(), in.readFloat()));
+                    case InputRecorder.EVENT_WINDOW_SIZE -> events.add(new RecordedEvent((byte) type, time,
+                            InputRecorder.readVarInt(in), InputRecorder.readVarInt(in), 0, 0, 0, 0));
+                    default -> throw new IOException("Corrupt recording, unknown event type " + type);
+                }
+            }
+            return new Recording(width, height, events);
+        }
+    }
+
+    private static void report(Replay replay) {
+        long[] sorted = Arrays.copyOf(replay.frameTimes, replay.frameCount);
+        Arrays.sort(sorted);
+
+        long total = 0;
+        for (long frame : sorted) {
+            total += frame;
+        }
+
+        String message = String.format(
+                "Replay of %s: %d events, %d frames, avg %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms",
+                replay.label, replay.recording.events.size(), sorted.length,
+                sorted.length > 0 ? total / (double) sorted.length / 1_000_000.0 : 0.0,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted.length > 0 ? sorted[sorted.length - 1] / 1_000_000.0 : 0.0);
+        ErrorHandler.debug(message);
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        client.execute(() -> {
+            if (client.player != null) {
+                client.player.sendMessage(Text.of(message), false);
+            }
+        });
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
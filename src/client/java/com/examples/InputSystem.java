@@ -10,10 +10,13 @@ import static org.lwjgl.glfw.GLFW.*;
 
 public class InputSystem {
     private static final Map<Long, InputState> windowInputStates = new ConcurrentHashMap<>();
-    private static final Map<Long, Set<ClickZone>> clickZones = new ConcurrentHashMap<>();
+    private static final Map<Long, ClickZoneGrid> clickZones = new ConcurrentHashMap<>();
     private static final Map<Long, Element> focusedElements = new ConcurrentHashMap<>();
-    private static final Map<Long, List<InputEventListener>> eventListeners = new ConcurrentHashMap<>();
+    private static final Map<Long, ListenerSet> eventListeners = new ConcurrentHashMap<>();
     private static final Map<Long, InputMode> inputModes = new ConcurrentHashMap<>();
+    private static final Map<Long, InputStats> inputStats = new ConcurrentHashMap<>();
+
+    private static final int EVENT_POOL_SIZE = 8;
 
     // Enhanced input state tracking
     static class InputState {
@@ -28,10 +31,27 @@ public class InputSystem {
         Set<Integer> pressedKeys = new HashSet<>();
         InputMode currentMode = InputMode.NORMAL;
         Element hoveredElement;
+        ClickZone hoveredZone;
         Element lastClickedElement;
         boolean isShiftPressed;
         boolean isCtrlPressed;
         boolean isAltPressed;
+
+        // Latest cursor position not yet dispatched; cursor events are coalesced to one per frame
+        boolean hasPendingMove;
+        double pendingMouseX;
+        double pendingMouseY;
+
+        // Reused events; nested dispatches (a listener changing focus) take another one from the pool
+        final Deque<InputEvent> eventPool = new ArrayDeque<>();
+    }
+
+    // Written on the window's render thread, read by /windows input stats
+    static class InputStats {
+        long moveEventsReceived;
+        long moveEventsCoalesced;
+        long hitTests;
+        long hitTestsSkipped;
     }
 
     enum InputMode {
@@ -95,16 +115,21 @@ public class InputSystem {
         }
     }
 
+    // Events are pooled and reused; listeners must not keep a reference after onInputEvent returns
     static class InputEvent {
-        final EventType type;
-        final double x;
-        final double y;
-        final int button;
-        final Element source;
-        final Element target;
+        EventType type;
+        double x;
+        double y;
+        int button;
+        Element source;
+        Element target;
         boolean consumed;
 
         InputEvent(EventType type, double x, double y, int button, Element source, Element target) {
+            reset(type, x, y, button, source, target);
+        }
+
+        InputEvent reset(EventType type, double x, double y, int button, Element source, Element target) {
             this.type = type;
             this.x = x;
             this.y = y;
@@ -112,6 +137,7 @@ public class InputSystem {
             this.source = source;
             this.target = target;
             this.consumed = false;
+            return this;
         }
 
         void consume() {
@@ -130,7 +156,66 @@ public class InputSystem {
         FOCUS_GAINED,
         FOCUS_LOST,
         KEY_PRESS,
-        KEY_RELEASE
+        KEY_RELEASE;
+
+        static final int ALL = (1 << values().length) - 1;
+
+        final int mask = 1 << ordinal();
+
+        static int maskOf(EventType... types) {
+            int mask = 0;
+            for (EventType type : types) {
+                mask |= type.mask;
+            }
+            return mask;
+        }
+    }
+
+    private static final class RegisteredListener {
+        final InputEventListener listener;
+        final int mask;
+
+        RegisteredListener(InputEventListener listener, int mask) {
+            this.listener = listener;
+            this.mask = mask;
+        }
+    }
+
+    // Copy-on-write: dispatch reads the current array without locking, changes publish a new one
+    private static final class ListenerSet {
+        private static final RegisteredListener[] EMPTY = new RegisteredListener[0];
+
+        volatile RegisteredListener[] listeners = EMPTY;
+        volatile int combinedMask;
+
+        synchronized void add(InputEventListener listener, int mask) {
+            RegisteredListener[] current = listeners;
+            RegisteredListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = new RegisteredListener(listener, mask);
+            publish(updated);
+        }
+
+        synchronized void remove(InputEventListener listener) {
+            RegisteredListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].listener == listener) {
+                    RegisteredListener[] updated = new RegisteredListener[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    publish(updated);
+                    return;
+                }
+            }
+        }
+
+        private void publish(RegisteredListener[] updated) {
+            int mask = 0;
+            for (RegisteredListener registered : updated) {
+                mask |= registered.mask;
+            }
+            combinedMask = mask;
+            listeners = updated;
+        }
     }
 
     interface InputEventListener {
@@ -155,9 +240,10 @@ public class InputSystem {
     // Enhanced window state management
     static void initializeWindow(long window) {
         windowInputStates.put(window, new InputState());
-        clickZones.put(window, new HashSet<>());
-        eventListeners.put(window, new ArrayList<>());
+        clickZones.put(window, new ClickZoneGrid());
+        eventListeners.put(window, new ListenerSet());
         inputModes.put(window, InputMode.NORMAL);
+        inputStats.put(window, new InputStats());
     }
 
     static void cleanupWindow(long window) {
@@ -166,46 +252,63 @@ public class InputSystem {
         focusedElements.remove(window);
         eventListeners.remove(window);
         inputModes.remove(window);
+        inputStats.remove(window);
+    }
+
+    static InputStats getStats(long window) {
+        return inputStats.get(window);
     }
 
     // Enhanced click zone management
+    // Zones are indexed by their bounds; use moveClickZone instead of changing bounds directly,
+    // and re-register a zone to change its zIndex
     static void registerClickZone(long window, ClickZone zone) {
-        Set<ClickZone> zones = clickZones.computeIfAbsent(window, k -> new HashSet<>());
+        ClickZoneGrid zones = clickZones.computeIfAbsent(window, k -> new ClickZoneGrid());
         zones.add(zone);
     }
 
     static void unregisterClickZone(long window, ClickZone zone) {
-        Set<ClickZone> zones = clickZones.get(window);
+        ClickZoneGrid zones = clickZones.get(window);
         if (zones != null) {
             zones.remove(zone);
         }
+        InputState state = windowInputStates.get(window);
+        if (state != null && state.hoveredZone == zone) {
+            state.hoveredZone = null;
+        }
+    }
+
+    static void moveClickZone(long window, ClickZone zone, Rectangle newBounds) {
+        ClickZoneGrid zones = clickZones.get(window);
+        if (zones != null) {
+            zones.move(zone, newBounds);
+        } else {
+            zone.bounds = new Rectangle(newBounds);
+        }
     }
 
     // Enhanced focus management
     static void setFocus(long window, Element element) {
         Element currentFocus = focusedElements.get(window);
         if (currentFocus != element) {
-            InputEvent focusLostEvent = null;
-            InputEvent focusGainedEvent = null;
-
             if (currentFocus != null) {
-                focusLostEvent = new InputEvent(EventType.FOCUS_LOST, 0, 0, 0, currentFocus, null);
                 currentFocus.onFocusLost();
             }
 
+            // ConcurrentHashMap rejects null values, so clearing focus removes the entry
             if (element != null) {
-                focusGainedEvent = new InputEvent(EventType.FOCUS_GAINED, 0, 0, 0, null, element);
                 element.onFocusGained();
+                focusedElements.put(window, element);
+            } else {
+                focusedElements.remove(window);
             }
 
-            focusedElements.put(window, element);
-
             // Propagate focus events
-            if (focusLostEvent != null) {
-                propagateEvent(window, focusLostEvent);
+            if (currentFocus != null) {
+                dispatchEvent(window, EventType.FOCUS_LOST, 0, 0, 0, currentFocus, null);
             }
-            if (focusGainedEvent != null) {
-                propagateEvent(window, focusGainedEvent);
+            if (element != null) {
+                dispatchEvent(window, EventType.FOCUS_GAINED, 0, 0, 0, null, element);
             }
         }
     }
@@ -215,9 +318,12 @@ public class InputSystem {
         InputState state = windowInputStates.get(window);
         if (state == null) return;
 
+        // Hover and drag state must reflect where the cursor is before the button changes
+        flushPendingMoves(window);
+
         double[] xpos = new double[1];
         double[] ypos = new double[1];
-        glfwGetCursorPos(window, xpos, ypos);
+        InputReplayer.getCursorPos(window, xpos, ypos);
 
         // Update modifier key states
         state.isShiftPressed = (mods & GLFW_MOD_SHIFT) != 0;
@@ -251,8 +357,7 @@ public class InputSystem {
             clickedElement.onClick(x, y, button);
             setFocus(window, clickedElement);
 
-            InputEvent event = new InputEvent(EventType.MOUSE_DOWN, x, y, button, clickedElement, clickedElement);
-            propagateEvent(window, event);
+            dispatchEvent(window, EventType.MOUSE_DOWN, x, y, button, clickedElement, clickedElement);
         } else {
             setFocus(window, null);
         }
@@ -261,15 +366,12 @@ public class InputSystem {
     private static void handleMouseRelease(long window, InputState state, double x, double y, int button) {
         if (state.isDragging && state.draggedElement != null) {
             state.draggedElement.onDragEnd(x, y);
-            InputEvent dragEndEvent = new InputEvent(EventType.DRAG_END, x, y, button,
-                    state.draggedElement, state.draggedElement);
-            propagateEvent(window, dragEndEvent);
+            dispatchEvent(window, EventType.DRAG_END, x, y, button, state.draggedElement, state.draggedElement);
         }
 
         if (state.lastClickedElement != null) {
-            InputEvent clickEvent = new InputEvent(EventType.MOUSE_CLICK, x, y, button,
+            dispatchEvent(window, EventType.MOUSE_CLICK, x, y, button,
                     state.lastClickedElement, state.lastClickedElement);
-            propagateEvent(window, clickEvent);
         }
 
         state.isMouseDown = false;
@@ -279,12 +381,34 @@ public class InputSystem {
         state.lastClickedElement = null;
     }
 
+    // Only records the position; the move is dispatched by flushPendingMoves once per frame
     static void handleMouseMove(long window, double xpos, double ypos) {
         InputState state = windowInputStates.get(window);
         if (state == null) return;
 
+        InputStats stats = inputStats.get(window);
+        if (stats != null) {
+            stats.moveEventsReceived++;
+            if (state.hasPendingMove) stats.moveEventsCoalesced++;
+        }
+
+        state.pendingMouseX = xpos;
+        state.pendingMouseY = ypos;
+        state.hasPendingMove = true;
+    }
+
+    // Called once per frame from the render loop, and before button events
+    static void flushPendingMoves(long window) {
+        InputState state = windowInputStates.get(window);
+        if (state == null || !state.hasPendingMove) return;
+
+        state.hasPendingMove = false;
+        dispatchMouseMove(window, state, state.pendingMouseX, state.pendingMouseY);
+    }
+
+    private static void dispatchMouseMove(long window, InputState state, double xpos, double ypos) {
         // Handle hover state changes
-        Element elementUnderMouse = findTopElementAt(window, xpos, ypos);
+        Element elementUnderMouse = findHoveredElement(window, state, xpos, ypos);
         if (elementUnderMouse != state.hoveredElement) {
             if (state.hoveredElement != null) {
                 state.hoveredElement.onHoverEnd();
@@ -300,9 +424,7 @@ public class InputSystem {
         }
 
         // Propagate mouse move event
-        InputEvent moveEvent = new InputEvent(EventType.MOUSE_MOVE, xpos, ypos, 0,
-                state.hoveredElement, state.hoveredElement);
-        propagateEvent(window, moveEvent);
+        dispatchEvent(window, EventType.MOUSE_MOVE, xpos, ypos, 0, state.hoveredElement, state.hoveredElement);
     }
 
     private static void handleDragging(long window, InputState state, double xpos, double ypos) {
@@ -319,53 +441,95 @@ public class InputSystem {
                 );
                 elementUnderMouse.onDragStart(xpos, ypos);
 
-                InputEvent dragStartEvent = new InputEvent(EventType.DRAG_START, xpos, ypos, 0,
-                        elementUnderMouse, elementUnderMouse);
-                propagateEvent(window, dragStartEvent);
+                dispatchEvent(window, EventType.DRAG_START, xpos, ypos, 0, elementUnderMouse, elementUnderMouse);
             }
         }
 
         if (state.isDragging && state.draggedElement != null) {
             state.draggedElement.onDrag(xpos, ypos);
-            InputEvent dragEvent = new InputEvent(EventType.DRAG, xpos, ypos, 0,
-                    state.draggedElement, state.draggedElement);
-            propagateEvent(window, dragEvent);
+            dispatchEvent(window, EventType.DRAG, xpos, ypos, 0, state.draggedElement, state.draggedElement);
         }
     }
 
     // Event listener management
     static void addEventListener(long window, InputEventListener listener) {
-        List<InputEventListener> listeners = eventListeners.computeIfAbsent(window, k -> new ArrayList<>());
-        listeners.add(listener);
+        addEventListener(window, listener, EventType.ALL);
+    }
+
+    static void addEventListener(long window, InputEventListener listener, EventType... types) {
+        addEventListener(window, listener, EventType.maskOf(types));
+    }
+
+    // The listener is only called for event types whose bit is set in the mask
+    static void addEventListener(long window, InputEventListener listener, int eventMask) {
+        eventListeners.computeIfAbsent(window, k -> new ListenerSet()).add(listener, eventMask);
     }
 
     static void removeEventListener(long window, InputEventListener listener) {
-        List<InputEventListener> listeners = eventListeners.get(window);
+        ListenerSet listeners = eventListeners.get(window);
         if (listeners != null) {
             listeners.remove(listener);
         }
     }
 
-    private static void propagateEvent(long window, InputEvent event) {
-        List<InputEventListener> listeners = eventListeners.get(window);
-        if (listeners != null) {
-            for (InputEventListener listener : listeners) {
-                if (!event.consumed) {
-                    listener.onInputEvent(event);
-                }
+    // Nothing is allocated or taken from the pool unless some listener wants this event type
+    private static void dispatchEvent(long window, EventType type, double x, double y, int button,
+                                      Element source, Element target) {
+        ListenerSet listeners = eventListeners.get(window);
+        if (listeners == null || (listeners.combinedMask & type.mask) == 0) return;
+
+        InputState state = windowInputStates.get(window);
+        InputEvent event = state != null ? state.eventPool.poll() : null;
+        if (event == null) {
+            event = new InputEvent(type, x, y, button, source, target);
+        } else {
+            event.reset(type, x, y, button, source, target);
+        }
+
+        try {
+            propagateEvent(listeners.listeners, event);
+        } finally {
+            event.reset(null, 0, 0, 0, null, null);
+            if (state != null && state.eventPool.size() < EVENT_POOL_SIZE) {
+                state.eventPool.push(event);
+            }
+        }
+    }
+
+    private static void propagateEvent(RegisteredListener[] listeners, InputEvent event) {
+        int mask = event.type.mask;
+        for (RegisteredListener registered : listeners) {
+            if (event.consumed) break;
+            if ((registered.mask & mask) != 0) {
+                registered.listener.onInputEvent(event);
             }
         }
     }
 
+    // Skips the hit test while the cursor stays inside the hovered zone and nothing above it overlaps
+    private static Element findHoveredElement(long window, InputState state, double x, double y) {
+        ClickZoneGrid zones = clickZones.get(window);
+        if (zones == null) return null;
+
+        InputStats stats = inputStats.get(window);
+        ClickZone hovered = state.hoveredZone;
+        if (hovered != null && hovered.contains(x, y) && hovered.element.isEnabled() && !zones.isOccluded(hovered)) {
+            if (stats != null) stats.hitTestsSkipped++;
+            return hovered.element;
+        }
+
+        if (stats != null) stats.hitTests++;
+        ClickZone zone = zones.findTopmost(x, y);
+        state.hoveredZone = zone;
+        return zone != null ? zone.element : null;
+    }
+
     private static Element findTopElementAt(long window, double x, double y) {
-        Set<ClickZone> zones = clickZones.get(window);
-        if (zones == null || zones.isEmpty()) return null;
-
-        return zones.stream()
-                .filter(zone -> zone.contains(x, y) && zone.element.isEnabled())
-                .max(Comparator.comparingInt(zone -> zone.zIndex))
-                .map(zone -> zone.element)
-                .orElse(null);
+        ClickZoneGrid zones = clickZones.get(window);
+        if (zones == null) return null;
+
+        ClickZone zone = zones.findTopmost(x, y);
+        return zone != null ? zone.element : null;
     }
 
     // Input mode management
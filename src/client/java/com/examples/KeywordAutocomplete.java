@@ -0,0 +1,101 @@
+package com.examples;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keyword suggestions for the word being typed in the input box.
+// Nothing is cached between frames: each query walks the keyword trie for the current word,
+// which is cheap enough to redo on every frame and key press.
+class KeywordAutocomplete {
+    static final int MAX_SUGGESTIONS = 5;
+
+    // The partly typed keyword ending at the cursor, and what it could become
+    record Completion(int start, String prefix, List<KeywordTrie.Suggestion> suggestions) {
+    }
+
+    // Which suggestion is highlighted, and for which word; resets when the word changes
+    private record Selection(int start, String prefix, int index) {
+    }
+
+    private static final Map<Long, Selection> selections = new ConcurrentHashMap<>();
+    // Escape hides the popup until the word changes
+    private static final Map<Long, Selection> dismissed = new ConcurrentHashMap<>();
+
+    // Null when there is nothing to suggest
+    static Completion find(long window, CharSequence input, int cursorPos) {
+        int start = wordStart(input, cursorPos);
+        if (start < 0) return null;
+
+        String prefix = input.subSequence(start, cursorPos).toString();
+        Selection hidden = dismissed.get(window);
+        if (hidden != null) {
+            if (hidden.start == start && hidden.prefix.equals(prefix)) return null;
+            dismissed.remove(window);
+        }
+
+        List<KeywordTrie.Suggestion> suggestions = KeywordProcessor.complete(prefix);
+        return suggestions.isEmpty() ? null : new Completion(start, prefix, suggestions);
+    }
+
+    static int selectedIndex(long window, Completion completion) {
+        Selection selection = selections.get(window);
+        if (selection == null || selection.start != completion.start || !selection.prefix.equals(completion.prefix)) {
+            return 0;
+        }
+        return Math.min(selection.index, completion.suggestions.size() - 1);
+    }
+
+    // Replaces the partly typed word with the highlighted keyword and returns the new cursor
+    // position, or -1 if the popup is not showing
+    static int accept(long window, StringBuilder input, int cursorPos) {
+        Completion completion = find(window, input, cursorPos);
+        if (completion == null) return -1;
+
+        String name = completion.suggestions.get(selectedIndex(window, completion)).name();
+        input.replace(completion.start, cursorPos, name);
+        selections.remove(window);
+        KeywordProcessor.recordCompletionUse(name);
+        return completion.start + name.length();
+    }
+
+    // Moves the highlight, wrapping around; false if the popup is not showing
+    static boolean moveSelection(long window, CharSequence input, int cursorPos, int delta) {
+        Completion completion = find(window, input, cursorPos);
+        if (completion == null) return false;
+
+        int count = completion.suggestions.size();
+        int index = Math.floorMod(selectedIndex(window, completion) + delta, count);
+        selections.put(window, new Selection(completion.start, completion.prefix, index));
+        return true;
+    }
+
+    static boolean dismiss(long window, CharSequence input, int cursorPos) {
+        Completion completion = find(window, input, cursorPos);
+        if (completion == null) return false;
+
+        dismissed.put(window, new Selection(completion.start, completion.prefix, 0));
+        selections.remove(window);
+        return true;
+    }
+
+    static void cleanup(long window) {
+        selections.remove(window);
+        dismissed.remove(window);
+    }
+
+    // Start of the word ending at the cursor: from an unclosed '{' if there is one, otherwise
+    // from the last space. Plain words need two characters before they get suggestions.
+    private static int wordStart(CharSequence input, int cursorPos) {
+        if (cursorPos <= 0 || cursorPos > input.length()) return -1;
+
+        int i = cursorPos;
+        while (i > 0) {
+            char c = input.charAt(i - 1);
+            if (c == '{') return i - 1;
+            if (c == '}' || Character.isWhitespace(c)) break;
+            i--;
+        }
+        return cursorPos - i >= 2 ? i : -1;
+    }
+}
@@ -0,0 +1,101 @@
+package com.examples;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// Case-insensitive multi-pattern matcher over a fixed keyword set.
+// Immutable once built, so a compiled engine can be shared between threads; changing the
+// keyword set means compiling a new one.
+final class KeywordEngine<T> {
+    @FunctionalInterface
+    interface MatchHandler<T> {
+        void onMatch(T value, StringBuilder out);
+    }
+
+    private static final class Node<T> {
+        char[] keys = new char[0];
+        Node<T>[] children = newArray(0);
+        T value;  // Set when a pattern ends here
+
+        Node<T> child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node<T> addChild(char c) {
+            Node<T> existing = child(c);
+            if (existing != null) return existing;
+
+            Node<T> node = new Node<>();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = node;
+            return node;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newArray(int length) {
+            return (Node<T>[]) new Node[length];
+        }
+    }
+
+    private final Node<T> root = new Node<>();
+
+    // Earlier entries win when two patterns differ only in case
+    KeywordEngine(Map<String, T> patterns) {
+        for (Map.Entry<String, T> entry : patterns.entrySet()) {
+            String pattern = entry.getKey();
+            if (pattern == null || pattern.isEmpty()) continue;
+
+            Node<T> node = root;
+            for (int i = 0; i < pattern.length(); i++) {
+                node = node.addChild(Character.toLowerCase(pattern.charAt(i)));
+            }
+            if (node.value == null) {
+                node.value = entry.getValue();
+            }
+        }
+    }
+
+    // Copies text into out in one left-to-right pass, handing each match to the handler instead.
+    // Matches are leftmost-longest and never overlap; replacement output is not scanned again.
+    // Returns the number of matches.
+    int replaceAll(String text, StringBuilder out, MatchHandler<T> handler) {
+        int matches = 0;
+        int literalStart = 0;
+        int i = 0;
+        int length = text.length();
+
+        while (i < length) {
+            Node<T> node = root;
+            T matched = null;
+            int matchedEnd = -1;
+
+            for (int j = i; j < length; j++) {
+                node = node.child(Character.toLowerCase(text.charAt(j)));
+                if (node == null) break;
+                if (node.value != null) {
+                    matched = node.value;
+                    matchedEnd = j + 1;
+                }
+            }
+
+            if (matched == null) {
+                i++;
+                continue;
+            }
+
+            out.append(text, literalStart, i);
+            handler.onMatch(matched, out);
+            matches++;
+            i = matchedEnd;
+            literalStart = i;
+        }
+
+        out.append(text, literalStart, length);
+        return matches;
+    }
+}
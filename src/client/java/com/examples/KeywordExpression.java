@@ -0,0 +1,382 @@
+package com.examples;
+
+import net.minecraft.client.MinecraftClient;
+
+import java.util.*;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+
+// Compiles the small expression language of user-defined keywords into a tree of lambdas,
+// so evaluating a computed keyword costs no parsing or lookups.
+//
+//   expression := term (('+' | '-') term)*
+//   term       := unary (('*' | '/' | '%') unary)*
+//   unary      := '-' unary | primary
+//   primary    := number | "string" | name | name '(' arguments ')' | '(' expression ')'
+//
+// Names are the built-in values (x, y, z, gametime, biome, ...). '+' concatenates when either
+// side is text; every other operator and most functions take numbers.
+final class KeywordExpression {
+    @FunctionalInterface
+    interface NumberValue {
+        double eval(MinecraftClient client);
+    }
+
+    @FunctionalInterface
+    interface TextValue {
+        String eval(MinecraftClient client);
+    }
+
+    // A compiled node; exactly one of the two is set, decided when compiling.
+    // Constant nodes do not read the client and are folded while compiling.
+    private record Compiled(NumberValue number, TextValue text, boolean constant) {
+        static Compiled of(NumberValue number) {
+            return new Compiled(number, null, false);
+        }
+
+        static Compiled of(TextValue text) {
+            return new Compiled(null, text, false);
+        }
+
+        static Compiled constant(double value) {
+            return new Compiled(client -> value, null, true);
+        }
+
+        static Compiled constant(String value) {
+            return new Compiled(null, client -> value, true);
+        }
+
+        boolean isNumber() {
+            return number != null;
+        }
+
+        TextValue asText() {
+            if (text != null) return text;
+            NumberValue value = number;
+            return client -> formatNumber(value.eval(client));
+        }
+    }
+
+    private static final Map<String, Compiled> VARIABLES = new HashMap<>();
+
+    static {
+        VARIABLES.put("x", Compiled.of((NumberValue) client -> client.player.getPos().x));
+        VARIABLES.put("y", Compiled.of((NumberValue) client -> client.player.getPos().y));
+        VARIABLES.put("z", Compiled.of((NumberValue) client -> client.player.getPos().z));
+        VARIABLES.put("gametime", Compiled.of((NumberValue) client -> client.world.getTime()));
+        VARIABLES.put("gameday", Compiled.of((NumberValue) client -> client.world.getTime() / 24000L));
+        VARIABLES.put("moonlevel", Compiled.of((NumberValue) client -> client.world.getMoonPhase() % 8));
+        VARIABLES.put("players", Compiled.of((NumberValue) client -> PlayerRoster.count()));
+        VARIABLES.put("temp", Compiled.of((NumberValue) client ->
+                client.world.getBiome(client.player.getBlockPos()).value().getTemperature()));
+        VARIABLES.put("biome", Compiled.of((TextValue) KeywordProcessor::biomeName));
+        VARIABLES.put("dimension", Compiled.of((TextValue) client -> client.world.getRegistryKey().getValue().toString()));
+        VARIABLES.put("weather", Compiled.of((TextValue) KeywordProcessor::weatherName));
+        VARIABLES.put("item", Compiled.of((TextValue) KeywordProcessor::heldItemName));
+    }
+
+    // Parsing recurses once per nesting level and evaluation once per operator; the limits keep
+    // an expression from keywords.json from overflowing the stack
+    private static final int MAX_DEPTH = 32;
+    private static final int MAX_LENGTH = 1024;
+
+    private final String source;
+    private int pos;
+    private int depth;
+
+    private KeywordExpression(String source) {
+        this.source = source;
+    }
+
+    // Throws IllegalArgumentException describing the first error and where it is
+    static KeywordProcessor.KeywordProvider compile(String source) {
+        if (source.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Expression is longer than " + MAX_LENGTH + " characters");
+        }
+        KeywordExpression parser = new KeywordExpression(source);
+        Compiled compiled = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.pos < source.length()) {
+            throw parser.error("Unexpected '" + source.charAt(parser.pos) + "'");
+        }
+        TextValue text = compiled.asText();
+        return text::eval;
+    }
+
+    private Compiled parseExpression() {
+        Compiled left = parseTerm();
+        while (true) {
+            if (match('+')) {
+                Compiled right = parseTerm();
+                if (left.isNumber() && right.isNumber()) {
+                    left = arithmetic(left, right, "+", Double::sum);
+                } else {
+                    TextValue a = left.asText(), b = right.asText();
+                    left = left.constant && right.constant
+                            ? Compiled.constant(a.eval(null) + b.eval(null))
+                            : Compiled.of((TextValue) client -> a.eval(client) + b.eval(client));
+                }
+            } else if (match('-')) {
+                left = arithmetic(left, parseTerm(), "-", (a, b) -> a - b);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Compiled parseTerm() {
+        Compiled left = parseUnary();
+        while (true) {
+            if (match('*')) {
+                left = arithmetic(left, parseUnary(), "*", (a, b) -> a * b);
+            } else if (match('/')) {
+                left = arithmetic(left, parseUnary(), "/", (a, b) -> a / b);
+            } else if (match('%')) {
+                left = arithmetic(left, parseUnary(), "%", (a, b) -> a % b);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Compiled parseUnary() {
+        if (match('-')) {
+            enter();
+            try {
+                Compiled operand = parseUnary();
+                NumberValue value = number(operand, "-");
+                return operand.constant
+                        ? Compiled.constant(-value.eval(null))
+                        : Compiled.of((NumberValue) client -> -value.eval(client));
+            } finally {
+                depth--;
+            }
+        }
+        return parsePrimary();
+    }
+
+    // Counts a level of nesting: a sign, parentheses or a function call
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("Expression is nested more than " + MAX_DEPTH + " levels deep");
+        }
+    }
+
+    private Compiled parsePrimary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("Expression ends too early");
+        }
+
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            enter();
+            try {
+                Compiled inner = parseExpression();
+                expect(')');
+                return inner;
+            } finally {
+                depth--;
+            }
+        }
+        if (c == '"') {
+            return Compiled.constant(parseString());
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return Compiled.constant(parseNumber());
+        }
+        if (Character.isLetter(c)) {
+            int nameStart = pos;
+            String name = parseName();
+            if (match('(')) {
+                enter();
+                try {
+                    return parseCall(name, nameStart);
+                } finally {
+                    depth--;
+                }
+            }
+            Compiled variable = VARIABLES.get(name);
+            if (variable == null) {
+                pos = nameStart;
+                throw error("Unknown value '" + name + "'");
+            }
+            return variable;
+        }
+        throw error("Unexpected '" + c + "'");
+    }
+
+    private Compiled parseCall(String name, int nameStart) {
+        List<Compiled> args = new ArrayList<>();
+        if (!match(')')) {
+            do {
+                args.add(parseExpression());
+            } while (match(','));
+            expect(')');
+        }
+
+        switch (name) {
+            case "floor", "ceil", "round", "abs", "sqrt" -> {
+                NumberValue value = number(single(name, args), name);
+                return Compiled.of(switch (name) {
+                    case "floor" -> (NumberValue) client -> Math.floor(value.eval(client));
+                    case "ceil" -> (NumberValue) client -> Math.ceil(value.eval(client));
+                    case "round" -> (NumberValue) client -> Math.round(value.eval(client));
+                    case "abs" -> (NumberValue) client -> Math.abs(value.eval(client));
+                    default -> (NumberValue) client -> Math.sqrt(value.eval(client));
+                });
+            }
+            case "min", "max", "pow" -> {
+                checkArgs(name, args, 2);
+                NumberValue a = number(args.get(0), name), b = number(args.get(1), name);
+                return Compiled.of(switch (name) {
+                    case "min" -> (NumberValue) client -> Math.min(a.eval(client), b.eval(client));
+                    case "max" -> (NumberValue) client -> Math.max(a.eval(client), b.eval(client));
+                    default -> (NumberValue) client -> Math.pow(a.eval(client), b.eval(client));
+                });
+            }
+            case "distance" -> {
+                // distance(x, y, z) from the player, or distance(x1, y1, z1, x2, y2, z2)
+                if (args.size() == 3) {
+                    NumberValue tx = number(args.get(0), name), ty = number(args.get(1), name), tz = number(args.get(2), name);
+                    NumberValue px = VARIABLES.get("x").number, py = VARIABLES.get("y").number, pz = VARIABLES.get("z").number;
+                    return Compiled.of((NumberValue) client -> distance(px.eval(client), py.eval(client), pz.eval(client),
+                            tx.eval(client), ty.eval(client), tz.eval(client)));
+                }
+                checkArgs(name, args, 6);
+                NumberValue[] v = new NumberValue[6];
+                for (int i = 0; i < 6; i++) {
+                    v[i] = number(args.get(i), name);
+                }
+                return Compiled.of((NumberValue) client -> distance(v[0].eval(client), v[1].eval(client), v[2].eval(client),
+                        v[3].eval(client), v[4].eval(client), v[5].eval(client)));
+            }
+            case "fixed" -> {
+                // fixed(value, decimals), decimals must be a plain number
+                checkArgs(name, args, 2);
+                NumberValue value = number(args.get(0), name);
+                if (!args.get(1).constant) {
+                    throw error("fixed needs a plain number of decimals");
+                }
+                int decimals = (int) number(args.get(1), name).eval(null);
+                return Compiled.of((TextValue) client -> KeywordFormat.fixed(value.eval(client), decimals));
+            }
+            case "duration" -> {
+                NumberValue seconds = number(single(name, args), name);
+                return Compiled.of((TextValue) client -> formatDuration((long) seconds.eval(client)));
+            }
+            case "upper", "lower" -> {
+                TextValue text = single(name, args).asText();
+                return Compiled.of(name.equals("upper")
+                        ? (TextValue) client -> text.eval(client).toUpperCase()
+                        : (TextValue) client -> text.eval(client).toLowerCase());
+            }
+            default -> {
+                pos = nameStart;
+                throw error("Unknown function '" + name + "'");
+            }
+        }
+    }
+
+    private Compiled arithmetic(Compiled left, Compiled right, String operator, DoubleBinaryOperator op) {
+        NumberValue a = number(left, operator), b = number(right, operator);
+        if (left.constant && right.constant) {
+            return Compiled.constant(op.applyAsDouble(a.eval(null), b.eval(null)));
+        }
+        return Compiled.of((NumberValue) client -> op.applyAsDouble(a.eval(client), b.eval(client)));
+    }
+
+    private Compiled single(String name, List<Compiled> args) {
+        checkArgs(name, args, 1);
+        return args.getFirst();
+    }
+
+    private void checkArgs(String name, List<Compiled> args, int expected) {
+        if (args.size() != expected) {
+            throw error(name + " takes " + expected + " argument" + (expected == 1 ? "" : "s") + ", got " + args.size());
+        }
+    }
+
+    private NumberValue number(Compiled value, String operator) {
+        if (!value.isNumber()) {
+            throw error("'" + operator + "' needs a number, not text");
+        }
+        return value.number;
+    }
+
+    private String parseName() {
+        int start = pos;
+        while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+            pos++;
+        }
+        return source.substring(start, pos).toLowerCase();
+    }
+
+    private double parseNumber() {
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        try {
+            return Double.parseDouble(source.substring(start, pos));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("Bad number");
+        }
+    }
+
+    private String parseString() {
+        int start = pos++;
+        StringBuilder literal = new StringBuilder();
+        while (pos < source.length()) {
+            char c = source.charAt(pos++);
+            if (c == '"') return literal.toString();
+            if (c == '\\' && pos < source.length()) {
+                c = source.charAt(pos++);
+            }
+            literal.append(c);
+        }
+        pos = start;
+        throw error("Unterminated string");
+    }
+
+    private boolean match(char c) {
+        skipWhitespace();
+        if (pos < source.length() && source.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!match(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (pos + 1) + " in: " + source);
+    }
+
+    private static double distance(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // Whole numbers print without decimals, everything else with two
+    static String formatNumber(double value) {
+        return KeywordFormat.appendNumber(KeywordFormat.scratch(), value).toString();
+    }
+
+    static String formatDuration(long totalSeconds) {
+        return KeywordFormat.appendDuration(KeywordFormat.scratch(), totalSeconds).toString();
+    }
+}
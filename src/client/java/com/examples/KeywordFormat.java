@@ -0,0 +1,106 @@
+package com.examples;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Number formatting for keyword values without going through java.util.Formatter.
+// Values are rendered fixed-point straight into a builder; the scratch builder is per thread,
+// so providers on the client thread and expressions anywhere can share these helpers.
+final class KeywordFormat {
+    static final int MAX_DECIMALS = 10;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DECIMALS + 1];
+    // Past this the scaled value no longer fits a long
+    private static final double FIXED_LIMIT = 1e15;
+
+    private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private KeywordFormat() {
+    }
+
+    // Empty builder for assembling one value; do not hold on to it across calls
+    static StringBuilder scratch() {
+        StringBuilder sb = SCRATCH.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    static String fixed(double value, int decimals) {
+        return appendFixed(scratch(), value, decimals).toString();
+    }
+
+    // Appends value rounded half-up to the given number of decimals, always with '.' as separator
+    static StringBuilder appendFixed(StringBuilder out, double value, int decimals) {
+        decimals = Math.max(0, Math.min(decimals, MAX_DECIMALS));
+        if (Double.isNaN(value)) return out.append("NaN");
+        if (Double.isInfinite(value)) return out.append(value > 0 ? "Infinity" : "-Infinity");
+
+        double magnitude = Math.abs(value);
+        if (magnitude * POWERS_OF_TEN[decimals] >= FIXED_LIMIT) {
+            return out.append(new BigDecimal(value)
+                    .setScale(decimals, RoundingMode.HALF_UP)
+                    .toPlainString());
+        }
+
+        long scaled = Math.round(magnitude * POWERS_OF_TEN[decimals]);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        long divisor = POWERS_OF_TEN[decimals];
+        out.append(scaled / divisor);
+        if (decimals > 0) {
+            out.append('.');
+            appendPadded(out, scaled % divisor, decimals);
+        }
+        return out;
+    }
+
+    // Appends a non-negative value left-padded with zeros to at least width digits
+    static StringBuilder appendPadded(StringBuilder out, long value, int width) {
+        for (int digits = digitCount(value); digits < width; digits++) {
+            out.append('0');
+        }
+        return out.append(value);
+    }
+
+    // Whole numbers print without decimals, everything else with two
+    static StringBuilder appendNumber(StringBuilder out, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < FIXED_LIMIT) {
+            return out.append((long) value);
+        }
+        return appendFixed(out, value, 2);
+    }
+
+    // 1h 02m 03s, 2m 03s or 3s
+    static StringBuilder appendDuration(StringBuilder out, long totalSeconds) {
+        long hours = totalSeconds / 3600;
+        long minutes = (totalSeconds % 3600) / 60;
+        long seconds = totalSeconds % 60;
+        if (hours > 0) {
+            out.append(hours).append("h ");
+            appendPadded(out, minutes, 2).append("m ");
+            return appendPadded(out, seconds, 2).append('s');
+        }
+        if (minutes > 0) {
+            out.append(minutes).append("m ");
+            return appendPadded(out, seconds, 2).append('s');
+        }
+        return out.append(seconds).append('s');
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -1,172 +1,689 @@
 package com.examples;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 import net.minecraft.registry.RegistryKey;
+import net.minecraft.text.Text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+// Keyword values are read from game state once per client tick, on the client thread, into an
+// immutable snapshot. Window threads resolve keywords from the latest snapshot without locking.
 public class KeywordProcessor {
-    static Map<String, String> dynamicKeywords = new ConcurrentHashMap<>();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    // One bit of demand per provider
+    static final int MAX_PROVIDERS = Long.SIZE;
+    // Keywords nobody has used for this long stop being computed every tick
+    private static final int DEMAND_TIMEOUT_TICKS = 200;
+    // How long a window thread waits for a value the snapshot does not have yet
+    private static final long FALLBACK_TIMEOUT_MS = 250;
+    // User-defined computed keywords, keyword name to expression; checked for edits once a second
+    private static final Path COMPUTED_KEYWORDS_FILE =
+            WindowsClient.getWindowsClientConfigDir().toPath().resolve("keywords.json");
+    private static final int CONFIG_CHECK_INTERVAL_TICKS = 20;
+    // Batch expansion splits its distinct templates into chunks of this size across the pool
+    private static final int BATCH_CHUNK_SIZE = 256;
+    private static final int BATCH_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
 
-    public static String processKeywords(String text) {
-        if (text == null || text.isEmpty()) return text;
+    private static final ExecutorService batchExecutor = Executors.newFixedThreadPool(BATCH_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "Keyword-Batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Computes a keyword's value from game state; only called on the client thread
+    @FunctionalInterface
+    interface KeywordProvider {
+        String compute(MinecraftClient client);
+    }
 
-        MinecraftClient client = MinecraftClient.getInstance(); // Refresh client instance
-        if (client == null || client.player == null || client.world == null) return text;
+    // What a matched keyword resolves to: a snapshot slot for game values, or fixed text
+    private static final class Keyword {
+        final String name;
+        final int slot;
+        final KeywordProvider provider;
+        final String fixedText;
 
-        Vec3d pos = client.player.getPos();
-        String processedText = text;
-        // Create lowercase version for checking
-        String lowerText = text.toLowerCase();
+        Keyword(String name, int slot, KeywordProvider provider, String fixedText) {
+            this.name = name;
+            this.slot = slot;
+            this.provider = provider;
+            this.fixedText = fixedText;
+        }
+    }
 
-        // Position keywords
-        String format = String.format("%.2f, %.2f, %.2f", pos.x, pos.y, pos.z);
-        processedText = replaceIgnoreCase(processedText, "{pos}", format);
-        processedText = replaceIgnoreCase(processedText, "{POS}", format);
-        processedText = replaceIgnoreCase(processedText, "{x}", String.format("%.2f", pos.x));
-        processedText = replaceIgnoreCase(processedText, "{y}", String.format("%.2f", pos.y));
-        processedText = replaceIgnoreCase(processedText, "{z}", String.format("%.2f", pos.z));
-        processedText = replaceIgnoreCase(processedText, "{X}", String.format("%.2f", pos.x));
-        processedText = replaceIgnoreCase(processedText, "{Y}", String.format("%.2f", pos.y));
-        processedText = replaceIgnoreCase(processedText, "{Z}", String.format("%.2f", pos.z));
+    // A message split into fixed text and keyword references, plus the provider slots it reads
+    static final class CompiledTemplate {
+        private final Object[] parts;  // String or Keyword
+        final long dependencies;
 
-        // Item keyword
-        if (lowerText.contains("{item}")) {
-            ItemStack heldItem = client.player.getMainHandStack();
-            processedText = replaceIgnoreCase(processedText, "{Item}",
-                    heldItem.isEmpty() ? "air" : heldItem.getName().getString());
+        private CompiledTemplate(Object[] parts, long dependencies) {
+            this.parts = parts;
+            this.dependencies = dependencies;
         }
 
-        // Player list keyword
-        if (lowerText.contains("{list}")) {
-            List<String> playerNames = client.world.getPlayers().stream()
-                    .map(PlayerEntity::getName)
-                    .map(Object::toString)
-                    .collect(Collectors.toList());
-            processedText = replaceIgnoreCase(processedText, "{list}", String.join(", ", playerNames));
+        boolean hasKeywords() {
+            for (Object part : parts) {
+                if (part instanceof Keyword) return true;
+            }
+            return false;
         }
+    }
+
+    // Values computed during one client tick; never modified once published
+    static final class KeywordSnapshot {
+        static final KeywordSnapshot EMPTY = new KeywordSnapshot(0, false, new String[0]);
 
-        // Biome
-        if (lowerText.contains("{biome}")) {
-            processedText = replaceIgnoreCase(processedText, "{biome}",
-                    client.world.getBiome(client.player.getBlockPos()).getKey()
-                            .map(key -> key.getValue().toString())
-                            .orElse("unknown"));
+        final long tick;
+        final boolean inWorld;
+        private final String[] values;
+
+        KeywordSnapshot(long tick, boolean inWorld, String[] values) {
+            this.tick = tick;
+            this.inWorld = inWorld;
+            this.values = values;
         }
 
-        if (lowerText.contains("cheese") || lowerText.contains(":cheese:")) {
-            processedText = replaceIgnoreCase(processedText, "CHEESE!", "i like cheese");
-            processedText = replaceIgnoreCase(processedText, "cheese!", "i like cheese");
+        // Null when the keyword was not in demand during that tick
+        String get(int slot) {
+            return slot < values.length ? values[slot] : null;
         }
+    }
+
+    private static final Map<String, Keyword> keywords = new LinkedHashMap<>();
+    private static final Map<String, String> dynamicKeywords = new ConcurrentHashMap<>();
+    private static volatile KeywordProvider[] providers = new KeywordProvider[0];
+    // Rebuilt whenever a keyword is added or removed; readers never lock
+    private static volatile KeywordEngine<Keyword> engine;
+    private static volatile KeywordSnapshot snapshot = KeywordSnapshot.EMPTY;
+    // Every keyword name, for autocomplete; kept in step with each registration
+    private static final KeywordTrie completions = new KeywordTrie(KeywordAutocomplete.MAX_SUGGESTIONS);
+
+    // Provider slots computed each tick, and slots read by window threads since the last tick
+    private static final AtomicLong demand = new AtomicLong();
+    private static final AtomicLong recentlyUsed = new AtomicLong();
+    // Slots that stay in demand regardless of use, for live bubbles
+    private static volatile long pinnedDemand;
+    private static final int[] idleTicks = new int[MAX_PROVIDERS];  // Client thread only
+    private static long tickCount;
+
+    // The computed keywords currently registered, and the file time they were loaded from
+    private static volatile Map<String, String> computedKeywords = Map.of();
+    private static long computedKeywordsModified = -1;  // Client thread only
+    private static int configCheckCountdown;
+
+    static {
+        registerKeyword("{pos}", client -> {
+            Vec3d pos = client.player.getPos();
+            StringBuilder out = KeywordFormat.scratch();
+            KeywordFormat.appendFixed(out, pos.x, 2).append(", ");
+            KeywordFormat.appendFixed(out, pos.y, 2).append(", ");
+            return KeywordFormat.appendFixed(out, pos.z, 2).toString();
+        });
+        registerKeyword("{x}", client -> KeywordFormat.fixed(client.player.getPos().x, 2));
+        registerKeyword("{y}", client -> KeywordFormat.fixed(client.player.getPos().y, 2));
+        registerKeyword("{z}", client -> KeywordFormat.fixed(client.player.getPos().z, 2));
+
+        registerKeyword("{item}", KeywordProcessor::heldItemName);
+
+        registerKeyword("{list}", client -> PlayerRoster.joinedNames());
+        registerKeyword("{listcount}", client -> String.valueOf(PlayerRoster.count()));
+
+        registerKeyword("{biome}", KeywordProcessor::biomeName);
 
-        // Dimension
-        if (lowerText.contains("{dimension}") || lowerText.contains("{dim}")) {
+        registerKeyword("{dimension}", client -> {
             RegistryKey<World> dimension = client.world.getRegistryKey();
-            processedText = replaceIgnoreCase(processedText, "{dimension}",
-                    dimension.getValue().toString());
+            return dimension.getValue().toString();
+        });
+        registerAlias("{dim}", "{dimension}");
+
+        registerKeyword("{gametime}", client -> String.valueOf(client.world.getTime()));
+        registerKeyword("{time}", client -> LocalDateTime.now().format(TIME_FORMAT));
+
+        registerKeyword("{weather}", KeywordProcessor::weatherName);
+
+        registerKeyword("{temp}", client -> {
+            float temp = client.world.getBiome(client.player.getBlockPos()).value().getTemperature();
+            return KeywordFormat.fixed(temp, 1);
+        });
+
+        // Moon phase and level
+        registerKeyword("{moonphase}", client -> moonPhaseName(moonPhase(client)));
+        registerKeyword("{moonlevel}", client -> String.valueOf(moonPhase(client)));
+        registerKeyword("{moon}", client -> {
+            int phase = moonPhase(client);
+            return moonPhaseName(phase) + " " + phase;
+        });
+
+        registerKeyword("{gameday}", client -> String.valueOf(client.world.getTime() / 24000L));
+
+        keywords.put("cheese!", new Keyword("cheese!", -1, null, "i like cheese"));
+        refreshCompletion("cheese!");
+        rebuildEngine();
+    }
+
+    // Keywords are matched case-insensitively
+    static synchronized void registerKeyword(String keyword, KeywordProvider provider) {
+        addKeyword(keyword, provider);
+        refreshCompletion(keyword);
+        rebuildEngine();
+    }
+
+    private static void addKeyword(String keyword, KeywordProvider provider) {
+        // Reuse a slot freed by an unregistered keyword before growing the table
+        int slot = 0;
+        while (slot < providers.length && providers[slot] != null) {
+            slot++;
+        }
+        if (slot >= MAX_PROVIDERS) {
+            throw new IllegalStateException("Too many keyword providers, cannot register " + keyword);
         }
+        KeywordProvider[] updated = Arrays.copyOf(providers, Math.max(providers.length, slot + 1));
+        updated[slot] = provider;
+        providers = updated;
+
+        String name = keyword.toLowerCase();
+        keywords.put(name, new Keyword(name, slot, provider, null));
+    }
 
-        // Game time
-        if (lowerText.contains("{gametime}")) {
-            processedText = replaceIgnoreCase(processedText, "{gametime}",
-                    String.valueOf(client.world.getTime()));
+    private static void removeKeyword(String keyword) {
+        Keyword removed = keywords.remove(keyword.toLowerCase());
+        if (removed == null || removed.provider == null) return;
+
+        // Aliases keep the slot alive
+        for (Keyword other : keywords.values()) {
+            if (other.slot == removed.slot) return;
         }
+        KeywordProvider[] updated = providers.clone();
+        updated[removed.slot] = null;
+        providers = updated;
+        long bit = 1L << removed.slot;
+        demand.getAndUpdate(bits -> bits & ~bit);
+    }
 
-        // Real time
-        if (lowerText.contains("{time}")) {
-            LocalDateTime now = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-            processedText = replaceIgnoreCase(processedText, "{time}", now.format(formatter));
+    // Another name for a registered keyword, sharing its snapshot value
+    static synchronized void registerAlias(String alias, String keyword) {
+        Keyword target = keywords.get(keyword.toLowerCase());
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown keyword " + keyword);
         }
+        keywords.put(alias.toLowerCase(), target);
+        refreshCompletion(alias);
+        rebuildEngine();
+    }
 
-        // Weather
-        if (lowerText.contains("{weather}")) {
-            String weather = client.world.isRaining()
-                    ? (client.world.isThundering() ? "thundering" : "raining")
-                    : "clear";
-            processedText = replaceIgnoreCase(processedText, "{weather}", weather);
+    static synchronized void putDynamicKeyword(String keyword, String value) {
+        dynamicKeywords.put(keyword, value);
+        refreshCompletion(keyword);
+        rebuildEngine();
+    }
+
+    static synchronized void removeDynamicKeyword(String keyword) {
+        if (dynamicKeywords.remove(keyword) != null) {
+            refreshCompletion(keyword);
+            rebuildEngine();
         }
+    }
 
-        // Temperature
-        if (lowerText.contains("{temp}")) {
-            float temp = client.world.getBiome(client.player.getBlockPos()).value().getTemperature();
-            processedText = replaceIgnoreCase(processedText, "{temp}", String.format("%.1f", temp));
+    // Suggestions for a partly typed keyword, best first
+    static List<KeywordTrie.Suggestion> complete(String prefix) {
+        return completions.complete(prefix);
+    }
+
+    static void recordCompletionUse(String keyword) {
+        completions.recordUse(keyword);
+    }
+
+    // Points the autocomplete entry for a name at whatever the name resolves to now, or drops it
+    private static void refreshCompletion(String name) {
+        String key = name.toLowerCase();
+        Keyword keyword = keywords.get(key);
+        if (keyword != null) {
+            String detail = computedKeywords.get(key);
+            if (detail == null && !keyword.name.equals(key)) {
+                detail = keyword.name;  // Alias
+            }
+            completions.put(key, detail != null ? detail : keyword.fixedText);
+            return;
         }
+        for (Map.Entry<String, String> entry : dynamicKeywords.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                completions.put(entry.getKey(), entry.getValue());
+                return;
+            }
+        }
+        completions.remove(key);
+    }
 
-        // Moon phase and level
-        if (lowerText.contains("{moonphase}") || lowerText.contains("{moonlevel}") || lowerText.contains("{moon}")) {
-            int phase = client.world.getMoonPhase() % 8;
-            String phaseName = switch (phase) {
-                case 0 -> "Full Moon";
-                case 1 -> "Waning Gibbous";
-                case 2 -> "Last Quarter";
-                case 3 -> "Waning Crescent";
-                case 4 -> "New Moon";
-                case 5 -> "Waxing Crescent";
-                case 6 -> "First Quarter";
-                case 7 -> "Waxing Gibbous";
-                default -> "Unknown";
-            };
-            processedText = replaceIgnoreCase(processedText, "{moonphase}", phaseName);
-            processedText = replaceIgnoreCase(processedText, "{moonlevel}", String.valueOf(phase));
-            processedText = replaceIgnoreCase(processedText, "{moon}", phaseName + " " + phase);
-        }
-
-        // Game day
-        if (lowerText.contains("{gameday}")) {
-            long day = client.world.getTime() / 24000L;
-            processedText = replaceIgnoreCase(processedText, "{gameday}", String.valueOf(day));
-        }
-
-        // Dynamic keywords
+    private static void rebuildEngine() {
+        // Built-in keywords take precedence over dynamic ones with the same name
+        Map<String, Keyword> patterns = new LinkedHashMap<>(keywords);
         for (Map.Entry<String, String> entry : dynamicKeywords.entrySet()) {
-            processedText = replaceIgnoreCase(processedText, entry.getKey(), entry.getValue());
+            String name = entry.getKey().toLowerCase();
+            patterns.putIfAbsent(name, new Keyword(name, -1, null, entry.getValue()));
+        }
+        engine = new KeywordEngine<>(patterns);
+    }
+
+    // END_CLIENT_TICK: computes the keywords in demand and publishes them in one volatile write
+    static void onEndTick(MinecraftClient client) {
+        if (--configCheckCountdown <= 0) {
+            configCheckCountdown = CONFIG_CHECK_INTERVAL_TICKS;
+            checkComputedKeywords(client);
+        }
+
+        if (client.player == null || client.world == null) {
+            if (snapshot.inWorld) {
+                snapshot = KeywordSnapshot.EMPTY;
+            }
+            return;
+        }
+
+        long wanted = updateDemand();
+        KeywordProvider[] table = providers;
+        KeywordSnapshot previous = snapshot;
+        String[] values = new String[table.length];
+        long changed = 0;
+        for (long bits = wanted; bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            if (slot < table.length && table[slot] != null) {
+                values[slot] = computeValue(table[slot], client);
+                if (!values[slot].equals(previous.get(slot))) {
+                    changed |= 1L << slot;
+                }
+            }
+        }
+        KeywordSnapshot published = new KeywordSnapshot(++tickCount, true, values);
+        snapshot = published;
+
+        if (changed != 0) {
+            LiveBubbles.onKeywordsChanged(changed, published);
+        }
+    }
+
+    static void setPinnedDemand(long slots) {
+        pinnedDemand = slots;
+        demand.getAndAccumulate(slots, (a, b) -> a | b);
+    }
+
+    // Drops keywords that have not been read for a while; returns what to compute this tick
+    private static long updateDemand() {
+        long used = recentlyUsed.getAndSet(0);
+        long idle = 0;
+        for (long bits = demand.get(); bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            if ((used & (1L << slot)) != 0 || (pinnedDemand & (1L << slot)) != 0) {
+                idleTicks[slot] = 0;
+            } else if (++idleTicks[slot] > DEMAND_TIMEOUT_TICKS) {
+                idleTicks[slot] = 0;
+                idle |= 1L << slot;
+            }
+        }
+        long dropped = idle;
+        return demand.updateAndGet(bits -> bits & ~dropped);
+    }
+
+    // Reloads keywords.json when its modification time changes
+    private static void checkComputedKeywords(MinecraftClient client) {
+        long modified;
+        try {
+            modified = Files.exists(COMPUTED_KEYWORDS_FILE)
+                    ? Files.getLastModifiedTime(COMPUTED_KEYWORDS_FILE).toMillis()
+                    : 0;
+        } catch (IOException e) {
+            return;
+        }
+        if (modified == computedKeywordsModified) return;
+        computedKeywordsModified = modified;
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        if (modified != 0) {
+            try (Reader reader = Files.newBufferedReader(COMPUTED_KEYWORDS_FILE)) {
+                JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+                for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+                    String name = entry.getKey().trim();
+                    if (!name.startsWith("{")) {
+                        name = "{" + name + "}";
+                    }
+                    sources.put(name.toLowerCase(), entry.getValue().getAsString());
+                }
+            } catch (IOException | RuntimeException e) {
+                reportKeywordError(client, "Could not read keywords.json: " + e.getMessage());
+                return;
+            }
+        }
+
+        Map<String, KeywordProvider> compiled = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            try {
+                compiled.put(entry.getKey(), KeywordExpression.compile(entry.getValue()));
+            } catch (IllegalArgumentException e) {
+                reportKeywordError(client, "Keyword " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+        try {
+            replaceComputedKeywords(client, compiled, sources);
+        } catch (RuntimeException e) {
+            ErrorHandler.handleError("Failed to apply keywords.json", e, "KeywordProcessor.checkComputedKeywords");
+            return;
         }
+        ErrorHandler.debug("Loaded " + computedKeywords.size() + " computed keywords");
+    }
+
+    private static void replaceComputedKeywords(MinecraftClient client, Map<String, KeywordProvider> compiled,
+                                                Map<String, String> sources) {
+        Map<String, String> registered = new LinkedHashMap<>();
+        synchronized (KeywordProcessor.class) {
+            Map<String, String> previous = computedKeywords;
 
-        return processedText;
+            // Decided before anything is removed, so registering can no longer run out of slots
+            Map<String, KeywordProvider> accepted = new LinkedHashMap<>();
+            int free = freeSlotsWithout(previous.keySet());
+            for (Map.Entry<String, KeywordProvider> entry : compiled.entrySet()) {
+                // Built-in keywords cannot be redefined
+                if (keywords.containsKey(entry.getKey()) && !previous.containsKey(entry.getKey())) {
+                    reportKeywordError(client, "Keyword " + entry.getKey() + " is built in and cannot be redefined");
+                } else if (accepted.size() >= free) {
+                    reportKeywordError(client, "Keyword " + entry.getKey() + " skipped, only " + free
+                            + " computed keywords fit next to the built-in ones");
+                } else {
+                    accepted.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            for (String name : previous.keySet()) {
+                removeKeyword(name);
+            }
+            for (Map.Entry<String, KeywordProvider> entry : accepted.entrySet()) {
+                addKeyword(entry.getKey(), entry.getValue());
+                registered.put(entry.getKey(), sources.get(entry.getKey()));
+            }
+            computedKeywords = Collections.unmodifiableMap(registered);
+            for (String name : previous.keySet()) {
+                refreshCompletion(name);
+            }
+            for (String name : registered.keySet()) {
+                refreshCompletion(name);
+            }
+            rebuildEngine();
+        }
+        // Live templates may point at slots that changed owner
+        LiveBubbles.rebindAll();
     }
 
-    // Helper method to replace text while ignoring case
-    private static String replaceIgnoreCase(String source, String target, String replacement) {
-        if (source == null || target == null || replacement == null) {
-            return source;
+    // Provider slots left once the given keywords are removed
+    private static int freeSlotsWithout(Set<String> leaving) {
+        Set<Integer> kept = new HashSet<>();
+        for (Map.Entry<String, Keyword> entry : keywords.entrySet()) {
+            if (entry.getValue().provider != null && !leaving.contains(entry.getKey())) {
+                kept.add(entry.getValue().slot);
+            }
         }
+        return MAX_PROVIDERS - kept.size();
+    }
 
-        // If the target is empty, return the original string
-        if (target.isEmpty()) {
-            return source;
+    private static void reportKeywordError(MinecraftClient client, String message) {
+        ErrorHandler.debug(message);
+        if (client.player != null) {
+            client.player.sendMessage(Text.of(message), false);
         }
+    }
+
+    private static String computeValue(KeywordProvider provider, MinecraftClient client) {
+        try {
+            String value = provider.compute(client);
+            return value != null ? value : "";
+        } catch (RuntimeException e) {
+            ErrorHandler.debug("Keyword provider failed: " + e.getMessage());
+            return "";
+        }
+    }
+
+    public static String processKeywords(String text) {
+        if (text == null || text.isEmpty()) return text;
+
+        KeywordSnapshot current = snapshot;
+        if (!current.inWorld) return text;
+
+        // The text is expanded once for good, so values the snapshot lacks are fetched now, together
+        CompiledTemplate template = compile(text);
+        if (!template.hasKeywords()) return text;
+        return render(template, withMissingValues(template.dependencies, current));
+    }
 
-        StringBuilder result = new StringBuilder();
-        int lastIndex = 0;
-        String lowerSource = source.toLowerCase();
-        String lowerTarget = target.toLowerCase();
+    // Expands many texts against a single snapshot, returning results in input order.
+    // Each distinct text is compiled and expanded once, texts without keywords come back as they
+    // are, and every value the snapshot lacks is fetched in one client thread request for the batch.
+    // Templates using the same keywords are grouped, and each group is expanded in its own chunks.
+    static List<String> processKeywordsBatch(List<String> texts) {
+        KeywordSnapshot current = snapshot;
+        if (!current.inWorld || texts.isEmpty()) return new ArrayList<>(texts);
 
-        while (true) {
-            int index = lowerSource.indexOf(lowerTarget, lastIndex);
-            if (index == -1) {
-                // No more occurrences found
-                result.append(source.substring(lastIndex));
-                break;
+        Map<String, Integer> distinct = new HashMap<>();
+        List<String> sources = new ArrayList<>();
+        List<CompiledTemplate> templates = new ArrayList<>();
+        long needed = 0;
+        for (String text : texts) {
+            if (text == null || text.isEmpty() || distinct.containsKey(text)) continue;
+
+            CompiledTemplate template = compile(text);
+            if (!template.hasKeywords()) {
+                distinct.put(text, -1);
+                continue;
             }
+            distinct.put(text, templates.size());
+            sources.add(text);
+            templates.add(template);
+            needed |= template.dependencies;
+        }
+        if (templates.isEmpty()) return new ArrayList<>(texts);
+        current = withMissingValues(needed, current);
 
-            // Add the text before the match
-            result.append(source, lastIndex, index);
-            // Add the replacement
-            result.append(replacement);
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < templates.size(); i++) {
+            groups.computeIfAbsent(templates.get(i).dependencies, k -> new ArrayList<>()).add(i);
+        }
 
-            lastIndex = index + target.length();
+        String[] expanded = new String[templates.size()];
+        KeywordSnapshot values = current;
+        if (templates.size() <= BATCH_CHUNK_SIZE) {
+            for (List<Integer> group : groups.values()) {
+                renderChunk(templates, group, values, expanded);
+            }
+        } else {
+            List<CompletableFuture<?>> work = new ArrayList<>();
+            for (List<Integer> group : groups.values()) {
+                for (int from = 0; from < group.size(); from += BATCH_CHUNK_SIZE) {
+                    List<Integer> chunk = group.subList(from, Math.min(from + BATCH_CHUNK_SIZE, group.size()));
+                    work.add(CompletableFuture.runAsync(() -> renderChunk(templates, chunk, values, expanded), batchExecutor));
+                }
+            }
+            CompletableFuture.allOf(work.toArray(new CompletableFuture<?>[0])).join();
         }
 
-        return result.toString();
+        List<String> results = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            Integer index = text == null || text.isEmpty() ? null : distinct.get(text);
+            results.add(index == null || index < 0 ? text : expanded[index]);
+        }
+        return results;
+    }
+
+    // Templates in one chunk share their keywords, so the values they read stay in cache
+    private static void renderChunk(List<CompiledTemplate> templates, List<Integer> indices,
+                                    KeywordSnapshot values, String[] expanded) {
+        StringBuilder out = new StringBuilder();
+        for (int i : indices) {
+            out.setLength(0);
+            for (Object part : templates.get(i).parts) {
+                if (part instanceof Keyword keyword) {
+                    String value = keyword.provider == null ? keyword.fixedText : values.get(keyword.slot);
+                    out.append(value != null ? value : keyword.name);
+                } else {
+                    out.append((String) part);
+                }
+            }
+            expanded[i] = out.toString();
+        }
+    }
+
+    // The snapshot, or a copy with the needed slots it lacks computed in one client thread request.
+    // Those slots are also in demand from the next tick on.
+    private static KeywordSnapshot withMissingValues(long needed, KeywordSnapshot current) {
+        long missing = 0;
+        for (long bits = needed; bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            if (current.get(slot) == null) {
+                missing |= 1L << slot;
+            }
+        }
+        recentlyUsed.getAndAccumulate(needed, (a, b) -> a | b);
+        if (missing == 0) return current;
+
+        demand.getAndAccumulate(missing, (a, b) -> a | b);
+        return new KeywordSnapshot(current.tick, true, fetchValues(missing, current));
+    }
+
+    // The snapshot's values plus the given slots computed now; slots that could not be
+    // computed in time stay null
+    private static String[] fetchValues(long slots, KeywordSnapshot current) {
+        KeywordProvider[] table = providers;
+        String[] base = Arrays.copyOf(current.values, Math.max(current.values.length, table.length));
+        MinecraftClient client = MinecraftClient.getInstance();
+        Supplier<String[]> compute = () -> {
+            String[] values = base.clone();
+            if (client.player == null || client.world == null) return values;
+            for (long bits = slots; bits != 0; bits &= bits - 1) {
+                int slot = Long.numberOfTrailingZeros(bits);
+                if (slot < table.length && table[slot] != null) {
+                    values[slot] = computeValue(table[slot], client);
+                }
+            }
+            return values;
+        };
+
+        if (client.isOnThread()) return compute.get();
+        try {
+            return client.submit(compute).get(FALLBACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return base;
+        } catch (ExecutionException | TimeoutException e) {
+            ErrorHandler.debug("Keyword values unavailable for batch: " + e);
+            return base;
+        }
+    }
+
+    static CompiledTemplate compile(String text) {
+        List<Object> parts = new ArrayList<>();
+        long[] dependencies = new long[1];
+        StringBuilder literal = new StringBuilder();
+        engine.replaceAll(text, literal, (keyword, builder) -> {
+            if (!builder.isEmpty()) {
+                parts.add(builder.toString());
+                builder.setLength(0);
+            }
+            parts.add(keyword);
+            if (keyword.provider != null) {
+                dependencies[0] |= 1L << keyword.slot;
+            }
+        });
+        if (!literal.isEmpty()) {
+            parts.add(literal.toString());
+        }
+        return new CompiledTemplate(parts.toArray(), dependencies[0]);
+    }
+
+    // Renders against the latest snapshot; null while not in a world
+    static String render(CompiledTemplate template) {
+        return render(template, snapshot);
+    }
+
+    static String render(CompiledTemplate template, KeywordSnapshot current) {
+        if (!current.inWorld) return null;
+
+        StringBuilder out = new StringBuilder();
+        for (Object part : template.parts) {
+            if (part instanceof Keyword keyword) {
+                out.append(resolve(keyword, current));
+            } else {
+                out.append((String) part);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String resolve(Keyword keyword, KeywordSnapshot current) {
+        if (keyword.provider == null) return keyword.fixedText;
+
+        long bit = 1L << keyword.slot;
+        if ((recentlyUsed.get() & bit) == 0) {
+            recentlyUsed.getAndAccumulate(bit, (a, b) -> a | b);
+        }
+
+        String value = current.get(keyword.slot);
+        if (value != null) return value;
+
+        // Not computed lately: ask for it from the next tick on, which republishes anything
+        // following it, and show the keyword itself until then instead of waiting here
+        demand.getAndAccumulate(bit, (a, b) -> a | b);
+        return keyword.name;
+    }
+
+    static String heldItemName(MinecraftClient client) {
+        ItemStack heldItem = client.player.getMainHandStack();
+        return heldItem.isEmpty() ? "air" : heldItem.getName().getString();
+    }
+
+    static String biomeName(MinecraftClient client) {
+        return client.world.getBiome(client.player.getBlockPos()).getKey()
+                .map(key -> key.getValue().toString())
+                .orElse("unknown");
+    }
+
+    static String weatherName(MinecraftClient client) {
+        return client.world.isRaining()
+                ? (client.world.isThundering() ? "thundering" : "raining")
+                : "clear";
+    }
+
+    private static int moonPhase(MinecraftClient client) {
+        return client.world.getMoonPhase() % 8;
+    }
+
+    private static String moonPhaseName(int phase) {
+        return switch (phase) {
+            case 0 -> "Full Moon";
+            case 1 -> "Waning Gibbous";
+            case 2 -> "Last Quarter";
+            case 3 -> "Waning Crescent";
+            case 4 -> "New Moon";
+            case 5 -> "Waxing Crescent";
+            case 6 -> "First Quarter";
+            case 7 -> "Waxing Gibbous";
+            default -> "Unknown";
+        };
     }
 
     public static String[] getAvailableKeywords() {
@@ -177,8 +694,10 @@ public class KeywordProcessor {
                 "{z} - Shows Z coordinate",
                 "{Item} - Shows held item info",
                 "{list} - Shows online players",
+                "{listcount} - Shows the number of online players",
                 "{biome} - Shows current biome",
                 "{dimension} - Shows current dimension",
+                "{dim} - Same as {dimension}",
                 "{gametime} - Shows in-game time",
                 "{time} - Shows IRL time",
                 "{weather} - Shows current weather",
@@ -191,8 +710,12 @@ public class KeywordProcessor {
         String[] dynamicKeywordsList = dynamicKeywords.entrySet().stream()
                 .map(entry -> entry.getKey() + " - " + entry.getValue())
                 .toArray(String[]::new);
+        String[] computedKeywordsList = computedKeywords.entrySet().stream()
+                .map(entry -> entry.getKey() + " = " + entry.getValue())
+                .toArray(String[]::new);
 
-        return Stream.concat(Arrays.stream(staticKeywords), Arrays.stream(dynamicKeywordsList))
+        return Stream.of(staticKeywords, dynamicKeywordsList, computedKeywordsList)
+                .flatMap(Arrays::stream)
                 .toArray(String[]::new);
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.examples;
+
+import java.util.*;
+
+// Case-insensitive prefix trie of keyword names for autocomplete.
+// Every node caches the best few names below it, so a lookup costs the prefix length plus
+// copying that list, however many keywords there are. Updates only touch the changed name's path.
+final class KeywordTrie {
+    record Suggestion(String name, String detail) {
+    }
+
+    private static final class Entry {
+        String name;
+        String detail;
+        int uses;
+
+        Entry(String name, String detail) {
+            this.name = name;
+            this.detail = detail;
+        }
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new TreeMap<>();
+        Entry entry;  // Set when a name ends here
+        Entry[] top = new Entry[0];
+    }
+
+    // Most accepted first, then shorter, then alphabetical
+    private static final Comparator<Entry> RANK = Comparator
+            .comparingInt((Entry e) -> -e.uses)
+            .thenComparingInt(e -> e.name.length())
+            .thenComparing(e -> e.name.toLowerCase());
+
+    private final int limit;
+    private final Node root = new Node();
+
+    KeywordTrie(int limit) {
+        this.limit = limit;
+    }
+
+    // Adds a name, or updates the detail and spelling of one already present
+    synchronized void put(String name, String detail) {
+        if (name == null || name.isEmpty()) return;
+
+        List<Node> path = path(name, true);
+        Node end = path.get(path.size() - 1);
+        if (end.entry != null) {
+            end.entry.name = name;
+            end.entry.detail = detail;
+            return;
+        }
+
+        end.entry = new Entry(name, detail);
+        for (Node node : path) {
+            offer(node, end.entry);
+        }
+    }
+
+    synchronized void remove(String name) {
+        List<Node> path = path(name, false);
+        if (path == null) return;
+        Node end = path.get(path.size() - 1);
+        Entry removed = end.entry;
+        if (removed == null) return;
+        end.entry = null;
+
+        // Deepest first, so each node rebuilds from children that are already up to date
+        String key = name.toLowerCase();
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            if (depth > 0 && node.entry == null && node.children.isEmpty()) {
+                path.get(depth - 1).children.remove(key.charAt(depth - 1));
+                continue;
+            }
+            if (contains(node.top, removed)) {
+                rebuildTop(node);
+            }
+        }
+    }
+
+    // Ranks a name higher after it was accepted
+    synchronized void recordUse(String name) {
+        List<Node> path = path(name, false);
+        if (path == null) return;
+        Entry entry = path.get(path.size() - 1).entry;
+        if (entry == null) return;
+
+        entry.uses++;
+        for (Node node : path) {
+            offer(node, entry);
+        }
+    }
+
+    // Best names starting with prefix, excluding an exact match
+    synchronized List<Suggestion> complete(String prefix) {
+        List<Node> path = path(prefix, false);
+        if (path == null) return List.of();
+
+        Node node = path.get(path.size() - 1);
+        List<Suggestion> suggestions = new ArrayList<>(node.top.length);
+        for (Entry entry : node.top) {
+            if (entry != node.entry) {
+                suggestions.add(new Suggestion(entry.name, entry.detail));
+            }
+        }
+        return suggestions;
+    }
+
+    // Root to the node for name; null if absent and not creating
+    private List<Node> path(String name, boolean create) {
+        String key = name.toLowerCase();
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                if (!create) return null;
+                child = new Node();
+                node.children.put(key.charAt(i), child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Keeps the node's cached list correct after entry was added or ranked higher
+    private void offer(Node node, Entry entry) {
+        Entry[] top = node.top;
+        if (!contains(top, entry)) {
+            if (top.length < limit) {
+                top = Arrays.copyOf(top, top.length + 1);
+            } else if (RANK.compare(entry, top[top.length - 1]) < 0) {
+                top = top.clone();
+            } else {
+                return;
+            }
+            top[top.length - 1] = entry;
+        }
+        Arrays.sort(top, RANK);
+        node.top = top;
+    }
+
+    private void rebuildTop(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.entry != null) {
+            candidates.add(node.entry);
+        }
+        for (Node child : node.children.values()) {
+            Collections.addAll(candidates, child.top);
+        }
+        candidates.sort(RANK);
+        node.top = candidates.subList(0, Math.min(limit, candidates.size())).toArray(new Entry[0]);
+    }
+
+    private static boolean contains(Entry[] entries, Entry entry) {
+        for (Entry e : entries) {
+            if (e == entry) return true;
+        }
+        return false;
+    }
+}
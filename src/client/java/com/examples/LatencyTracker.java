@@ -0,0 +1,153 @@
+package com.examples;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Measures how long key, char and mouse input takes to show up on screen.
+// Input is timestamped in the GLFW callbacks; the sample is taken when the first frame
+// rendered after it returns from glfwSwapBuffers. Both happen on the window's render thread.
+public class LatencyTracker {
+    // Inputs that arrive faster than frames are drawn queue up; beyond this the oldest are dropped
+    private static final int MAX_PENDING = 64;
+    private static final long DEBUG_LOG_INTERVAL_NANOS = 10_000_000_000L;
+
+    private static final Map<Long, WindowLatency> windows = new ConcurrentHashMap<>();
+
+    private static class WindowLatency {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long[] pending = new long[MAX_PENDING];
+        int pendingStart;
+        int pendingCount;
+        long lastDebugLog = System.nanoTime();
+    }
+
+    // Log-linear histogram in microseconds: each power of two is split into eight linear buckets,
+    // so any recorded value is reported within 12.5%
+    static class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+        private long total;
+        private long sum;
+        private long max;
+
+        synchronized void record(long micros) {
+            micros = Math.max(0, micros);
+            counts[bucketIndex(micros)]++;
+            total++;
+            sum += micros;
+            max = Math.max(max, micros);
+        }
+
+        synchronized long count() {
+            return total;
+        }
+
+        synchronized long max() {
+            return max;
+        }
+
+        synchronized double mean() {
+            return total == 0 ? 0 : sum / (double) total;
+        }
+
+        // Upper bound of the bucket holding the given fraction of samples
+        synchronized long percentile(double fraction) {
+            if (total == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        synchronized void reset() {
+            Arrays.fill(counts, 0);
+            total = 0;
+            sum = 0;
+            max = 0;
+        }
+
+        private static int bucketIndex(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int highestBit = 63 - Long.numberOfLeadingZeros(value);
+            int shift = highestBit - SUB_BUCKET_BITS;
+            int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+            return (shift + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long bucketUpperBound(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int shift = index / SUB_BUCKETS - 1;
+            long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+            return lower + (1L << shift) - 1;
+        }
+    }
+
+    static void initializeWindow(long window) {
+        windows.put(window, new WindowLatency());
+    }
+
+    static void cleanupWindow(long window) {
+        windows.remove(window);
+    }
+
+    static LatencyHistogram getHistogram(long window) {
+        WindowLatency latency = windows.get(window);
+        return latency != null ? latency.histogram : null;
+    }
+
+    // Called from the input callbacks
+    static void onInput(long window) {
+        WindowLatency latency = windows.get(window);
+        if (latency == null) return;
+
+        long now = System.nanoTime();
+        if (latency.pendingCount == MAX_PENDING) {
+            latency.pendingStart = (latency.pendingStart + 1) % MAX_PENDING;
+            latency.pendingCount--;
+        }
+        latency.pending[(latency.pendingStart + latency.pendingCount) % MAX_PENDING] = now;
+        latency.pendingCount++;
+    }
+
+    // Called right after glfwSwapBuffers; frameStart excludes input that arrived while drawing
+    static void onFrameSwapped(long window, long frameStart) {
+        WindowLatency latency = windows.get(window);
+        if (latency == null) return;
+
+        long now = System.nanoTime();
+        while (latency.pendingCount > 0) {
+            long inputTime = latency.pending[latency.pendingStart];
+            if (inputTime > frameStart) break;
+
+            latency.histogram.record((now - inputTime) / 1_000);
+            latency.pendingStart = (latency.pendingStart + 1) % MAX_PENDING;
+            latency.pendingCount--;
+        }
+
+        if (ErrorHandler.isDebugMode() && now - latency.lastDebugLog >= DEBUG_LOG_INTERVAL_NANOS) {
+            latency.lastDebugLog = now;
+            if (latency.histogram.count() > 0) {
+                ErrorHandler.debug("Input latency " + WindowsClient.getWindowName(window) + ": "
+                        + summarize(latency.histogram));
+            }
+        }
+    }
+
+    static String summarize(LatencyHistogram histogram) {
+        return String.format("%d samples, avg %.1f ms, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms",
+                histogram.count(),
+                histogram.mean() / 1000.0,
+                histogram.percentile(0.50) / 1000.0,
+                histogram.percentile(0.90) / 1000.0,
+                histogram.percentile(0.99) / 1000.0,
+                histogram.max() / 1000.0);
+    }
+}
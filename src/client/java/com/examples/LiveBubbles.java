@@ -0,0 +1,115 @@
+package com.examples;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bubbles whose text is re-rendered from their keyword template when a value it uses changes.
+// Bindings are indexed by keyword provider slot, so a tick only touches the bubbles that
+// depend on something that actually changed.
+class LiveBubbles {
+    private record Binding(long window, UI.TextBubble bubble, KeywordProcessor.CompiledTemplate template) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final Set<Binding>[] dependents = new Set[KeywordProcessor.MAX_PROVIDERS];
+    // Keyed by bubble identity
+    private static final Map<UI.TextBubble, Binding> bindings = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < dependents.length; i++) {
+            dependents[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    // Makes the bubble follow its template; false if it has none
+    static boolean bind(long window, UI.TextBubble bubble) {
+        if (bubble.template == null) return false;
+
+        unbind(bubble);
+        KeywordProcessor.CompiledTemplate template = KeywordProcessor.compile(bubble.template);
+        Binding binding = new Binding(window, bubble, template);
+        bindings.put(bubble, binding);
+        for (long bits = template.dependencies; bits != 0; bits &= bits - 1) {
+            dependents[Long.numberOfTrailingZeros(bits)].add(binding);
+        }
+        bubble.live = true;
+        updatePinnedDemand();
+
+        String text = KeywordProcessor.render(template);
+        if (text != null) {
+            bubble.text = text;
+            UI.markLayoutChanged(window);
+        }
+        return true;
+    }
+
+    // Freezes the bubble at its current text
+    static void unbind(UI.TextBubble bubble) {
+        Binding binding = bindings.remove(bubble);
+        bubble.live = false;
+        if (binding == null) return;
+
+        for (long bits = binding.template.dependencies; bits != 0; bits &= bits - 1) {
+            dependents[Long.numberOfTrailingZeros(bits)].remove(binding);
+        }
+        updatePinnedDemand();
+    }
+
+    // Drops the bindings of a window that closed or had its tabs replaced; the bubbles keep their live flag
+    static void unbindWindow(long window) {
+        boolean removed = false;
+        for (Iterator<Binding> it = bindings.values().iterator(); it.hasNext(); ) {
+            Binding binding = it.next();
+            if (binding.window != window) continue;
+
+            it.remove();
+            for (long bits = binding.template.dependencies; bits != 0; bits &= bits - 1) {
+                dependents[Long.numberOfTrailingZeros(bits)].remove(binding);
+            }
+            removed = true;
+        }
+        if (removed) {
+            updatePinnedDemand();
+        }
+    }
+
+    // Recompiles every live template, after the keyword set changed
+    static void rebindAll() {
+        for (Binding binding : new ArrayList<>(bindings.values())) {
+            bind(binding.window, binding.bubble);
+        }
+    }
+
+    // Client thread, right after a snapshot is published with these slots changed
+    static void onKeywordsChanged(long changedSlots, KeywordProcessor.KeywordSnapshot snapshot) {
+        // A bubble depending on several changed values is rendered once
+        Set<Binding> affected = null;
+        for (long bits = changedSlots; bits != 0; bits &= bits - 1) {
+            Set<Binding> slotDependents = dependents[Long.numberOfTrailingZeros(bits)];
+            if (slotDependents.isEmpty()) continue;
+            if (affected == null) {
+                affected = new HashSet<>();
+            }
+            affected.addAll(slotDependents);
+        }
+        if (affected == null) return;
+
+        for (Binding binding : affected) {
+            String text = KeywordProcessor.render(binding.template, snapshot);
+            if (text != null && !text.equals(binding.bubble.text)) {
+                binding.bubble.text = text;
+                UI.markLayoutChanged(binding.window);
+            }
+        }
+    }
+
+    private static void updatePinnedDemand() {
+        long pinned = 0;
+        for (int slot = 0; slot < dependents.length; slot++) {
+            if (!dependents[slot].isEmpty()) {
+                pinned |= 1L << slot;
+            }
+        }
+        KeywordProcessor.setPinnedDemand(pinned);
+    }
+}
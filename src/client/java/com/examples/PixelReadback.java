@@ -0,0 +1,195 @@
+package com.examples;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+
+// Asynchronous framebuffer readback through a ring of pixel buffer objects. A smaller size can
+// be asked for, in which case the frame is scaled down on the GPU before it is read back.
+// Must be created, used and disposed on the thread that owns the GL context.
+class PixelReadback {
+    // Without fences, a readback is assumed complete after this many frames
+    private static final int FRAMES_BEFORE_MAP = 2;
+
+    interface PixelConsumer {
+        // Pixels are tightly packed RGBA rows, bottom row first; only valid during the call
+        void accept(ByteBuffer pixels, int width, int height, long tag);
+    }
+
+    private final int[] buffers;
+    private final long[] fences;
+    private final int[] widths;
+    private final int[] heights;
+    private final int[] capacities;
+    private final int[] framesPending;
+    private final long[] tags;
+    private final boolean[] inFlight;
+    private final boolean useFences;
+    private final boolean canBlit;
+    private int nextSlot;
+
+    // Target of the downscaling blit, created on first use
+    private int framebuffer;
+    private int renderbuffer;
+    private int framebufferWidth;
+    private int framebufferHeight;
+
+    PixelReadback(int slots) {
+        buffers = new int[slots];
+        fences = new long[slots];
+        widths = new int[slots];
+        heights = new int[slots];
+        capacities = new int[slots];
+        framesPending = new int[slots];
+        tags = new long[slots];
+        inFlight = new boolean[slots];
+
+        GLCapabilities caps = GL.getCapabilities();
+        useFences = caps != null && (caps.OpenGL32 || caps.GL_ARB_sync);
+        canBlit = caps != null && (caps.OpenGL30 || caps.GL_ARB_framebuffer_object);
+
+        for (int i = 0; i < slots; i++) {
+            buffers[i] = glGenBuffers();
+        }
+    }
+
+    // Queues a read of the current back buffer; the tag is handed back with the pixels.
+    // Returns false when the next slot is still in flight.
+    boolean request(int width, int height, long tag) {
+        return request(width, height, width, height, tag);
+    }
+
+    // Same, scaled from the back buffer's size to at most the target size first. Without
+    // framebuffer objects the frame is read at full size and the consumer sees that size.
+    boolean request(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight, long tag) {
+        if (sourceWidth <= 0 || sourceHeight <= 0) return false;
+
+        int slot = nextSlot;
+        if (inFlight[slot]) return false;
+
+        boolean scaled = canBlit && targetWidth > 0 && targetHeight > 0
+                && (targetWidth < sourceWidth || targetHeight < sourceHeight);
+        int width = scaled ? Math.min(targetWidth, sourceWidth) : sourceWidth;
+        int height = scaled ? Math.min(targetHeight, sourceHeight) : sourceHeight;
+
+        int size = width * height * 4;
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, buffers[slot]);
+        if (capacities[slot] < size) {
+            glBufferData(GL_PIXEL_PACK_BUFFER, size, GL_STREAM_READ);
+            capacities[slot] = size;
+        }
+
+        glPixelStorei(GL_PACK_ALIGNMENT, 1);
+        if (scaled) {
+            ensureFramebuffer(width, height);
+            glBindFramebuffer(GL_READ_FRAMEBUFFER, 0);
+            glReadBuffer(GL_BACK);
+            glBindFramebuffer(GL_DRAW_FRAMEBUFFER, framebuffer);
+            glBlitFramebuffer(0, 0, sourceWidth, sourceHeight, 0, 0, width, height, GL_COLOR_BUFFER_BIT, GL_LINEAR);
+            glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+            glReadBuffer(GL_COLOR_ATTACHMENT0);
+            glReadPixels(0, 0, width, height, GL_RGBA, GL_UNSIGNED_BYTE, 0L);
+            glBindFramebuffer(GL_FRAMEBUFFER, 0);
+            glReadBuffer(GL_BACK);
+        } else {
+            glReadBuffer(GL_BACK);
+            glReadPixels(0, 0, width, height, GL_RGBA, GL_UNSIGNED_BYTE, 0L);
+        }
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+        if (useFences) {
+            fences[slot] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+        widths[slot] = width;
+        heights[slot] = height;
+        tags[slot] = tag;
+        framesPending[slot] = 0;
+        inFlight[slot] = true;
+        nextSlot = (slot + 1) % buffers.length;
+        return true;
+    }
+
+    private void ensureFramebuffer(int width, int height) {
+        if (framebuffer == 0) {
+            framebuffer = glGenFramebuffers();
+            renderbuffer = glGenRenderbuffers();
+        }
+        if (width == framebufferWidth && height == framebufferHeight) return;
+
+        glBindRenderbuffer(GL_RENDERBUFFER, renderbuffer);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, renderbuffer);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        framebufferWidth = width;
+        framebufferHeight = height;
+    }
+
+    boolean hasPending() {
+        for (boolean pending : inFlight) {
+            if (pending) return true;
+        }
+        return false;
+    }
+
+    // Hands every finished readback to the consumer without waiting on the GPU; call once per frame
+    void poll(PixelConsumer consumer) {
+        for (int slot = 0; slot < buffers.length; slot++) {
+            if (!inFlight[slot] || !isReady(slot)) continue;
+
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, buffers[slot]);
+            ByteBuffer pixels = glMapBuffer(GL_PIXEL_PACK_BUFFER, GL_READ_ONLY);
+            try {
+                if (pixels != null) {
+                    pixels.limit(widths[slot] * heights[slot] * 4);
+                    consumer.accept(pixels, widths[slot], heights[slot], tags[slot]);
+                }
+            } finally {
+                if (pixels != null) {
+                    glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+                }
+                glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+                inFlight[slot] = false;
+            }
+        }
+    }
+
+    private boolean isReady(int slot) {
+        if (!useFences) {
+            return ++framesPending[slot] >= FRAMES_BEFORE_MAP;
+        }
+
+        // A failed wait falls through to mapping, which at worst blocks until the copy is done
+        int status = glClientWaitSync(fences[slot], 0, 0L);
+        if (status == GL_TIMEOUT_EXPIRED) return false;
+
+        glDeleteSync(fences[slot]);
+        fences[slot] = 0;
+        return true;
+    }
+
+    void dispose() {
+        for (int slot = 0; slot < buffers.length; slot++) {
+            if (fences[slot] != 0) {
+                glDeleteSync(fences[slot]);
+                fences[slot] = 0;
+            }
+            glDeleteBuffers(buffers[slot]);
+            inFlight[slot] = false;
+        }
+        if (framebuffer != 0) {
+            glDeleteFramebuffers(framebuffer);
+            glDeleteRenderbuffers(renderbuffer);
+            framebuffer = 0;
+            renderbuffer = 0;
+        }
+    }
+}
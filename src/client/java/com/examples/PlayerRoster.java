@@ -0,0 +1,94 @@
+package com.examples;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+
+import java.util.*;
+
+// The players the client world has loaded, kept current from entity load and unload events
+// instead of walking world.getPlayers() for every {list}. All methods run on the client thread.
+class PlayerRoster {
+    // Insertion order, so names stay in the order players appeared
+    private static final Map<UUID, String> players = new LinkedHashMap<>();
+    private static ClientWorld trackedWorld;
+
+    // How many names {list} shows before summarising the rest; 0 shows everyone
+    private static int listLimit = 50;
+
+    private static boolean dirty = true;
+    private static String joinedNames = "";
+
+    static void onEntityLoad(Entity entity, ClientWorld world) {
+        if (!(entity instanceof PlayerEntity player)) return;
+        syncWorld(world);
+        players.put(player.getUuid(), player.getName().getString());
+        dirty = true;
+    }
+
+    static void onEntityUnload(Entity entity, ClientWorld world) {
+        if (!(entity instanceof PlayerEntity player)) return;
+        if (world != trackedWorld) return;
+        if (players.remove(player.getUuid()) != null) {
+            dirty = true;
+        }
+    }
+
+    static void clear() {
+        players.clear();
+        trackedWorld = null;
+        dirty = true;
+    }
+
+    static int count() {
+        syncWorld(MinecraftClient.getInstance().world);
+        return players.size();
+    }
+
+    static int getListLimit() {
+        return listLimit;
+    }
+
+    static void setListLimit(int limit) {
+        listLimit = Math.max(0, limit);
+        dirty = true;
+    }
+
+    // Comma-separated names, rebuilt only after the roster or the limit changed
+    static String joinedNames() {
+        syncWorld(MinecraftClient.getInstance().world);
+        if (!dirty) return joinedNames;
+
+        StringBuilder names = new StringBuilder();
+        int shown = 0;
+        for (String name : players.values()) {
+            if (listLimit > 0 && shown == listLimit) break;
+            if (shown > 0) names.append(", ");
+            names.append(name);
+            shown++;
+        }
+        if (shown < players.size()) {
+            names.append(" and ").append(players.size() - shown).append(" more");
+        }
+
+        joinedNames = names.toString();
+        dirty = false;
+        return joinedNames;
+    }
+
+    // A new world (joining, respawning into another dimension) starts from its current player list;
+    // load events for players already present may have fired before we saw the world
+    private static void syncWorld(ClientWorld world) {
+        if (world == trackedWorld) return;
+
+        players.clear();
+        trackedWorld = world;
+        if (world != null) {
+            for (PlayerEntity player : world.getPlayers()) {
+                players.put(player.getUuid(), player.getName().getString());
+            }
+        }
+        dirty = true;
+    }
+}
@@ -0,0 +1,225 @@
+package com.examples;
+
+import java.awt.Rectangle;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.lwjgl.glfw.GLFW.GLFW_MOUSE_BUTTON_RIGHT;
+
+// Retained layout of each window's UI elements. UI computes it once per change;
+// drawing reads the node geometry and InputSystem hit-tests the same nodes as click zones.
+public class SceneGraph {
+    private static final Map<Long, Layout> layouts = new ConcurrentHashMap<>();
+
+    enum NodeKind {
+        TAB,
+        TAB_CLOSE,
+        NEW_TAB,
+        DARK_MODE,
+        BUBBLE,
+        INPUT_BOX,
+        SEND_BUTTON,
+        SESSION_BUTTON
+    }
+
+    // Everything the layout depends on; an equal key means the cached layout is still valid
+    record LayoutKey(long layoutVersion, int width, int height, float scale, float scrollOffset,
+                     int activeTab, int renamingTab) {
+    }
+
+    // Identifies a node across layouts so its click zone can be moved instead of replaced
+    private record NodeKey(NodeKind kind, int index, UI.TextBubble bubble) {
+    }
+
+    static final class Node implements InputSystem.Element {
+        final long window;
+        final NodeKind kind;
+        final int index;
+        final UI.TextBubble bubble;
+        final InputSystem.ClickZone zone;
+        float x, y, width, height;
+        private boolean enabled = true;
+
+        private Node(long window, NodeKind kind, int index, UI.TextBubble bubble, int zIndex) {
+            this.window = window;
+            this.kind = kind;
+            this.index = index;
+            this.bubble = bubble;
+            this.zone = new InputSystem.ClickZone(new Rectangle(), this, zIndex);
+            // Tabs and bubbles open a context menu on right click
+            if (kind == NodeKind.TAB || kind == NodeKind.BUBBLE) {
+                zone.addAllowedButton(GLFW_MOUSE_BUTTON_RIGHT);
+            }
+        }
+
+        @Override
+        public void onClick(double x, double y, int button) {
+            if (zone.allowedButtons.contains(button)) {
+                UI.handleNodeClick(window, this, x, y, button);
+            }
+        }
+
+        @Override
+        public void onDragStart(double x, double y) {
+        }
+
+        @Override
+        public void onDrag(double x, double y) {
+        }
+
+        @Override
+        public void onDragEnd(double x, double y) {
+        }
+
+        @Override
+        public void onFocusGained() {
+        }
+
+        @Override
+        public void onFocusLost() {
+        }
+
+        @Override
+        public void onHoverStart() {
+        }
+
+        @Override
+        public void onHoverEnd() {
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return zone.bounds;
+        }
+
+        @Override
+        public int getZIndex() {
+            return zone.zIndex;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        // Pixel rectangle covering the float geometry, edges included
+        private Rectangle pixelBounds() {
+            int left = (int) Math.floor(x);
+            int top = (int) Math.floor(y);
+            return new Rectangle(left, top,
+                    (int) Math.ceil(x + width) - left + 1,
+                    (int) Math.ceil(y + height) - top + 1);
+        }
+    }
+
+    static final class Layout {
+        final LayoutKey key;
+        final List<Node> tabs = new ArrayList<>();
+        final List<Node> tabCloseButtons = new ArrayList<>();
+        final List<Node> bubbles = new ArrayList<>();
+        Node newTabButton;
+        Node darkModeButton;
+        Node inputBox;
+        Node sendButton;
+        Node sessionButton;
+
+        private final Map<NodeKey, Node> nodes = new LinkedHashMap<>();
+
+        private Layout(LayoutKey key) {
+            this.key = key;
+        }
+    }
+
+    static final class Builder {
+        private final long window;
+        private final Layout previous;
+        private final Layout layout;
+
+        private Builder(long window, Layout previous, LayoutKey key) {
+            this.window = window;
+            this.previous = previous;
+            this.layout = new Layout(key);
+        }
+
+        Node add(NodeKind kind, int index, UI.TextBubble bubble,
+                 float x, float y, float width, float height, int zIndex) {
+            NodeKey nodeKey = new NodeKey(kind, index, bubble);
+            Node node = previous != null ? previous.nodes.get(nodeKey) : null;
+            if (node == null || node.zone.zIndex != zIndex) {
+                node = new Node(window, kind, index, bubble, zIndex);
+            }
+            node.x = x;
+            node.y = y;
+            node.width = width;
+            node.height = height;
+            layout.nodes.put(nodeKey, node);
+
+            switch (kind) {
+                case TAB -> layout.tabs.add(node);
+                case TAB_CLOSE -> layout.tabCloseButtons.add(node);
+                case BUBBLE -> layout.bubbles.add(node);
+                case NEW_TAB -> layout.newTabButton = node;
+                case DARK_MODE -> layout.darkModeButton = node;
+                case INPUT_BOX -> layout.inputBox = node;
+                case SEND_BUTTON -> layout.sendButton = node;
+                case SESSION_BUTTON -> layout.sessionButton = node;
+            }
+            return node;
+        }
+    }
+
+    static Layout getLayout(long window) {
+        return layouts.get(window);
+    }
+
+    static Builder begin(long window, LayoutKey key) {
+        return new Builder(window, layouts.get(window), key);
+    }
+
+    // Publishes the layout and brings the window's click zones in line with it,
+    // moving zones that kept their node and registering or dropping only the rest
+    static Layout commit(Builder builder) {
+        long window = builder.window;
+        Layout layout = builder.layout;
+        Layout previous = builder.previous;
+
+        for (Map.Entry<NodeKey, Node> entry : layout.nodes.entrySet()) {
+            Node node = entry.getValue();
+            Rectangle bounds = node.pixelBounds();
+            Node old = previous != null ? previous.nodes.get(entry.getKey()) : null;
+
+            if (old == node) {
+                if (!bounds.equals(node.zone.bounds)) {
+                    InputSystem.moveClickZone(window, node.zone, bounds);
+                }
+            } else {
+                if (old != null) {
+                    InputSystem.unregisterClickZone(window, old.zone);
+                }
+                node.zone.bounds = bounds;
+                InputSystem.registerClickZone(window, node.zone);
+            }
+        }
+
+        if (previous != null) {
+            for (Map.Entry<NodeKey, Node> entry : previous.nodes.entrySet()) {
+                if (!layout.nodes.containsKey(entry.getKey())) {
+                    InputSystem.unregisterClickZone(window, entry.getValue().zone);
+                }
+            }
+        }
+
+        layouts.put(window, layout);
+        return layout;
+    }
+
+    static void cleanup(long window) {
+        layouts.remove(window);
+    }
+}
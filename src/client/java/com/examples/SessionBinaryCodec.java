@@ -0,0 +1,403 @@
+package com.examples;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Compact binary session files.
+//
+// Layout, version 1 (integers big-endian, lengths and counts as unsigned varints):
+//   "WSES" | version u8 | flags u8 (bit 0: tab blocks are DEFLATE compressed)
+//   sessionId, displayName, createdAt, lastModified | windowScale f32 | isDarkMode u8 | metadata as JSON
+//   tab count, then per tab: name | has colour u8 [ARGB i32] | scrollOffset f32 | bubble count
+//                            | stored block length | raw block length
+//   the tab blocks, back to back in tab order
+//
+// Strings are a varint of the UTF-8 length plus one (zero for null) followed by the bytes.
+// Each tab block holds its own string table (texts, timestamps and templates, each stored once)
+// followed by one column per bubble field: x, y, scale as f32; text, timestamp, template as varint
+// table references (zero for null); colour as packed RGBA i32; style u8 (zero for null); flag bits u8.
+// Blocks are self-contained, so a reader can find and decode any tab from the header alone.
+final class SessionBinaryCodec {
+    static final int MAGIC = 0x57534553;  // "WSES"
+    static final int VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+
+    private static final int BUBBLE_EDITING = 1;
+    private static final int BUBBLE_LIVE = 1 << 1;
+    private static final int BUBBLE_BOLD = 1 << 2;
+    private static final int BUBBLE_ITALIC = 1 << 3;
+    // Three floats, three one-byte references, the colour, style and flags
+    private static final int BUBBLE_MIN_BYTES = 12 + 3 + 4 + 2;
+
+    private static final Gson METADATA_GSON = new Gson();
+    private static final Type METADATA_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+    private static final UI.TextBubble.BubbleStyle[] STYLES = UI.TextBubble.BubbleStyle.values();
+
+    private SessionBinaryCodec() {
+    }
+
+    // Where a tab's bubbles are, and what is known about the tab without decoding them
+    record TabHeader(String name, Color color, float scrollOffset, int bubbleCount,
+                     int offset, int storedLength, int rawLength) {
+    }
+
+    record Header(SessionManager.WindowSession session, boolean deflated, List<TabHeader> tabs) {
+    }
+
+    static boolean hasMagic(byte[] start) {
+        return start.length >= 4 && ByteBuffer.wrap(start).getInt() == MAGIC;
+    }
+
+    static void write(SessionManager.WindowSession session, OutputStream out, boolean deflate) throws IOException {
+        List<UI.TabInfo> tabs = session.tabs != null ? session.tabs : List.of();
+        List<byte[]> blocks = new ArrayList<>(tabs.size());
+        int[] rawLengths = new int[tabs.size()];
+        Deflater deflater = deflate ? new Deflater(Deflater.DEFAULT_COMPRESSION) : null;
+        try {
+            for (int i = 0; i < tabs.size(); i++) {
+                byte[] raw = encodeTab(tabs.get(i));
+                rawLengths[i] = raw.length;
+                blocks.add(deflater != null ? deflate(deflater, raw) : raw);
+            }
+        } finally {
+            if (deflater != null) deflater.end();
+        }
+
+        Buffer header = new Buffer(256);
+        header.writeInt(MAGIC);
+        header.write(VERSION);
+        header.write(deflate ? FLAG_DEFLATE : 0);
+        header.writeString(session.sessionId);
+        header.writeString(session.displayName);
+        header.writeString(session.createdAt != null ? session.createdAt.toString() : null);
+        header.writeString(session.lastModified != null ? session.lastModified.toString() : null);
+        header.writeFloat(session.windowScale);
+        header.write(session.isDarkMode ? 1 : 0);
+        header.writeString(session.metadata != null ? METADATA_GSON.toJson(session.metadata, METADATA_TYPE) : null);
+        header.writeVarint(tabs.size());
+        for (int i = 0; i < tabs.size(); i++) {
+            UI.TabInfo tab = tabs.get(i);
+            header.writeString(tab != null ? tab.name : null);
+            Color color = tab != null ? tab.color : null;
+            header.write(color != null ? 1 : 0);
+            if (color != null) header.writeInt(color.getRGB());
+            header.writeFloat(tab != null ? tab.scrollOffset : 0f);
+            header.writeVarint(tab != null && tab.bubbles != null ? tab.bubbles.size() : 0);
+            header.writeVarint(blocks.get(i).length);
+            header.writeVarint(rawLengths[i]);
+        }
+
+        header.writeTo(out);
+        for (byte[] block : blocks) {
+            out.write(block);
+        }
+        out.flush();
+    }
+
+    static SessionManager.WindowSession read(ByteBuffer data) throws IOException {
+        Header header = readHeader(data, data.limit());
+        SessionManager.WindowSession session = header.session;
+        for (TabHeader tab : header.tabs) {
+            session.tabs.add(readTab(data, header.deflated, tab));
+        }
+        return session;
+    }
+
+    // Session fields and the tab directory; leaves the bubbles alone. data may hold just the start
+    // of a file of fileSize bytes, as long as the directory fits.
+    static Header readHeader(ByteBuffer data, long fileSize) throws IOException {
+        try {
+            ByteBuffer in = data.duplicate();
+            if (in.getInt() != MAGIC) throw new IOException("Not a binary session file");
+            int version = in.get() & 0xFF;
+            if (version > VERSION) throw new IOException("Session file version " + version + " is newer than supported");
+            int flags = in.get() & 0xFF;
+
+            SessionManager.WindowSession session = new SessionManager.WindowSession();
+            session.sessionId = readString(in);
+            session.displayName = readString(in);
+            String createdAt = readString(in);
+            String lastModified = readString(in);
+            session.createdAt = createdAt != null ? LocalDateTime.parse(createdAt) : null;
+            session.lastModified = lastModified != null ? LocalDateTime.parse(lastModified) : null;
+            session.windowScale = in.getFloat();
+            session.isDarkMode = in.get() != 0;
+            String metadata = readString(in);
+            if (metadata != null) {
+                Map<String, Object> parsed = METADATA_GSON.fromJson(metadata, METADATA_TYPE);
+                session.metadata = parsed != null ? parsed : new HashMap<>();
+            }
+
+            int tabCount = readVarint(in);
+            if (tabCount > fileSize - in.position()) throw new IOException("Session file is truncated");
+            List<TabHeader> tabs = new ArrayList<>(tabCount);
+            String[] names = new String[tabCount];
+            Color[] colors = new Color[tabCount];
+            float[] scrolls = new float[tabCount];
+            int[] bubbleCounts = new int[tabCount];
+            int[] storedLengths = new int[tabCount];
+            int[] rawLengths = new int[tabCount];
+            for (int i = 0; i < tabCount; i++) {
+                names[i] = readString(in);
+                colors[i] = in.get() != 0 ? new Color(in.getInt(), true) : null;
+                scrolls[i] = in.getFloat();
+                bubbleCounts[i] = readVarint(in);
+                storedLengths[i] = readVarint(in);
+                rawLengths[i] = readVarint(in);
+            }
+
+            // Blocks follow the directory in order
+            int offset = in.position();
+            for (int i = 0; i < tabCount; i++) {
+                if ((long) offset + storedLengths[i] > fileSize) throw new IOException("Session file is truncated");
+                tabs.add(new TabHeader(names[i], colors[i], scrolls[i], bubbleCounts[i], offset, storedLengths[i], rawLengths[i]));
+                offset += storedLengths[i];
+            }
+            return new Header(session, (flags & FLAG_DEFLATE) != 0, tabs);
+        } catch (RuntimeException e) {
+            throw new IOException("Damaged session file: " + e.getMessage(), e);
+        }
+    }
+
+    static UI.TabInfo readTab(ByteBuffer data, boolean deflated, TabHeader header) throws IOException {
+        UI.TabInfo tab = new UI.TabInfo(header.name);
+        tab.color = header.color;
+        tab.scrollOffset = header.scrollOffset;
+        tab.bubbles = readBubbles(data, deflated, header);
+        return tab;
+    }
+
+    static List<UI.TextBubble> readBubbles(ByteBuffer data, boolean deflated, TabHeader header) throws IOException {
+        ByteBuffer block = data.duplicate();
+        block.limit(header.offset + header.storedLength).position(header.offset);
+        return readBlock(block.slice(), deflated, header);
+    }
+
+    // Decodes a tab block on its own, read from the file at header.offset
+    static List<UI.TextBubble> readBlock(ByteBuffer block, boolean deflated, TabHeader header) throws IOException {
+        if (deflated) {
+            block = inflate(block, header.rawLength);
+        }
+
+        try {
+            int tableSize = readVarint(block);
+            // Every entry takes at least a byte, every bubble at least BUBBLE_MIN_BYTES
+            if (tableSize > block.remaining() || (long) header.bubbleCount * BUBBLE_MIN_BYTES > block.remaining()) {
+                throw new IOException("Damaged tab " + header.name);
+            }
+            String[] table = new String[tableSize];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = readString(block);
+            }
+
+            int n = header.bubbleCount;
+            List<UI.TextBubble> bubbles = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                bubbles.add(new UI.TextBubble());
+            }
+            for (UI.TextBubble bubble : bubbles) bubble.x = block.getFloat();
+            for (UI.TextBubble bubble : bubbles) bubble.y = block.getFloat();
+            for (UI.TextBubble bubble : bubbles) bubble.scale = block.getFloat();
+            for (UI.TextBubble bubble : bubbles) bubble.text = lookup(table, readVarint(block));
+            for (UI.TextBubble bubble : bubbles) bubble.timestamp = lookup(table, readVarint(block));
+            for (UI.TextBubble bubble : bubbles) bubble.template = lookup(table, readVarint(block));
+            for (UI.TextBubble bubble : bubbles) {
+                int rgba = block.getInt();
+                bubble.colorR = (rgba >>> 24) / 255f;
+                bubble.colorG = ((rgba >>> 16) & 0xFF) / 255f;
+                bubble.colorB = ((rgba >>> 8) & 0xFF) / 255f;
+                bubble.colorA = (rgba & 0xFF) / 255f;
+            }
+            for (UI.TextBubble bubble : bubbles) {
+                int style = block.get() & 0xFF;
+                bubble.style = style > 0 && style <= STYLES.length ? STYLES[style - 1] : null;
+            }
+            for (UI.TextBubble bubble : bubbles) {
+                int flags = block.get();
+                bubble.isEditing = (flags & BUBBLE_EDITING) != 0;
+                bubble.live = (flags & BUBBLE_LIVE) != 0;
+                bubble.isBold = (flags & BUBBLE_BOLD) != 0;
+                bubble.isItalic = (flags & BUBBLE_ITALIC) != 0;
+            }
+            return bubbles;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Damaged tab " + header.name, e);
+        }
+    }
+
+    private static byte[] encodeTab(UI.TabInfo tab) {
+        if (tab != null) tab.ensureLoaded();
+        List<UI.TextBubble> bubbles = tab != null && tab.bubbles != null ? tab.bubbles : List.of();
+        int n = bubbles.size();
+
+        // References into the tab's string table, one column per field
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        int[] texts = new int[n];
+        int[] timestamps = new int[n];
+        int[] templates = new int[n];
+        for (int i = 0; i < n; i++) {
+            UI.TextBubble bubble = bubbles.get(i);
+            texts[i] = intern(indices, table, bubble.text);
+            timestamps[i] = intern(indices, table, bubble.timestamp);
+            templates[i] = intern(indices, table, bubble.template);
+        }
+
+        Buffer out = new Buffer(64 + n * 24);
+        out.writeVarint(table.size());
+        for (String value : table) {
+            out.writeString(value);
+        }
+        for (UI.TextBubble bubble : bubbles) out.writeFloat(bubble.x);
+        for (UI.TextBubble bubble : bubbles) out.writeFloat(bubble.y);
+        for (UI.TextBubble bubble : bubbles) out.writeFloat(bubble.scale);
+        for (int ref : texts) out.writeVarint(ref);
+        for (int ref : timestamps) out.writeVarint(ref);
+        for (int ref : templates) out.writeVarint(ref);
+        for (UI.TextBubble bubble : bubbles) {
+            out.writeInt(channel(bubble.colorR) << 24 | channel(bubble.colorG) << 16
+                    | channel(bubble.colorB) << 8 | channel(bubble.colorA));
+        }
+        for (UI.TextBubble bubble : bubbles) out.write(bubble.style != null ? bubble.style.ordinal() + 1 : 0);
+        for (UI.TextBubble bubble : bubbles) {
+            out.write((bubble.isEditing ? BUBBLE_EDITING : 0) | (bubble.live ? BUBBLE_LIVE : 0)
+                    | (bubble.isBold ? BUBBLE_BOLD : 0) | (bubble.isItalic ? BUBBLE_ITALIC : 0));
+        }
+        return out.toByteArray();
+    }
+
+    // Zero for null, otherwise the table index plus one
+    private static int intern(Map<String, Integer> indices, List<String> table, String value) {
+        if (value == null) return 0;
+        Integer index = indices.get(value);
+        if (index == null) {
+            index = table.size();
+            table.add(value);
+            indices.put(value, index);
+        }
+        return index + 1;
+    }
+
+    private static String lookup(String[] table, int ref) {
+        return ref == 0 ? null : table[ref - 1];
+    }
+
+    // Colour components are stored as 8-bit channels, the precision they are drawn with
+    private static int channel(float value) {
+        return Math.round(Math.max(0f, Math.min(1f, value)) * 255f);
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int written = deflater.deflate(chunk);
+            out.write(chunk, 0, written);
+        }
+        return out.toByteArray();
+    }
+
+    private static ByteBuffer inflate(ByteBuffer stored, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int filled = 0;
+            while (filled < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, filled, rawLength - filled);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                filled += read;
+            }
+            if (filled != rawLength) throw new IOException("Compressed tab is truncated");
+            return ByteBuffer.wrap(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Compressed tab is damaged", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static int readVarint(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) throw new IOException("Negative length in session file");
+                return value;
+            }
+        }
+        throw new IOException("Varint too long in session file");
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = readVarint(in);
+        if (length == 0) return null;
+        length--;
+        if (length > in.remaining()) throw new IOException("String runs past the end of the session file");
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    // Growable byte array with the few encoders the format needs
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeFloat(float value) {
+            writeInt(Float.floatToIntBits(value));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
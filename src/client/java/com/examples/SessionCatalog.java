@@ -0,0 +1,193 @@
+package com.examples;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Name, dates and tab count of every saved session, so menus can list sessions without reading them.
+// Kept in memory and mirrored to a small file next to the sessions directory. Our own saves,
+// renames and deletes update it directly; files changed by anything else are picked up by
+// comparing each file's size and modification time, and only those files are read again.
+final class SessionCatalog {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int VERSION = 1;
+
+    static final class Entry {
+        String file;           // File name inside the sessions directory
+        String displayName;
+        String createdAt;      // ISO dates, as in the session files
+        String lastModified;
+        int tabCount;
+        long size;
+        long modifiedMillis;
+        boolean valid = true;  // False when the file could not be read
+    }
+
+    private static final class CatalogFile {
+        int version = VERSION;
+        List<Entry> entries = new ArrayList<>();
+    }
+
+    private static Path sessionDir;
+    private static Path catalogFile;
+    private static final Map<String, Entry> entries = new HashMap<>();
+    private static boolean loaded;
+    // Directory timestamp at the last scan; adding, replacing or removing a file changes it
+    private static FileTime scannedDirTime;
+
+    private SessionCatalog() {
+    }
+
+    static synchronized void init(Path dir) {
+        sessionDir = dir;
+        catalogFile = dir.resolveSibling("session-catalog.json");
+    }
+
+    // Every session, checked against the directory first. Costs one directory timestamp when
+    // nothing changed on disk since the last call.
+    static synchronized List<Entry> entries() {
+        refresh(false);
+        return new ArrayList<>(entries.values());
+    }
+
+    // Stats every file and re-reads the changed ones, even if the directory looks unchanged
+    static synchronized List<Entry> rescan() {
+        refresh(true);
+        return new ArrayList<>(entries.values());
+    }
+
+    static boolean isSessionFile(Path path) {
+        String fileName = path.getFileName().toString();
+        for (SessionManager.SessionFormat format : SessionManager.SessionFormat.values()) {
+            if (fileName.endsWith(format.extension)) return true;
+        }
+        return false;
+    }
+
+    // Called on the writer thread right after file was written from session
+    static synchronized void recordSaved(Path file, SessionManager.WindowSession session) {
+        ensureLoaded();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Entry entry = new Entry();
+            entry.file = file.getFileName().toString();
+            entry.displayName = session.displayName;
+            entry.createdAt = session.createdAt != null ? session.createdAt.toString() : null;
+            entry.lastModified = session.lastModified != null ? session.lastModified.toString() : null;
+            entry.tabCount = session.tabs != null ? session.tabs.size() : 0;
+            entry.size = attributes.size();
+            entry.modifiedMillis = attributes.lastModifiedTime().toMillis();
+            entries.put(entry.file, entry);
+            persist();
+        } catch (IOException e) {
+            // The next scan reads the file instead
+            entries.remove(file.getFileName().toString());
+            scannedDirTime = null;
+        }
+    }
+
+    static synchronized void recordDeleted(Path file) {
+        ensureLoaded();
+        if (entries.remove(file.getFileName().toString()) != null) {
+            persist();
+        }
+    }
+
+    private static void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (!Files.exists(catalogFile)) return;
+
+        try (Reader reader = Files.newBufferedReader(catalogFile)) {
+            CatalogFile stored = GSON.fromJson(reader, CatalogFile.class);
+            if (stored == null || stored.version != VERSION || stored.entries == null) return;
+            for (Entry entry : stored.entries) {
+                if (entry != null && entry.file != null) {
+                    entries.put(entry.file, entry);
+                }
+            }
+        } catch (Exception e) {
+            // A damaged catalog only costs one full scan
+            ErrorHandler.debug("Rebuilding session catalog: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private static void refresh(boolean force) {
+        ensureLoaded();
+        try {
+            Files.createDirectories(sessionDir);
+            FileTime dirTime = Files.getLastModifiedTime(sessionDir);
+            if (!force && dirTime.equals(scannedDirTime)) return;
+
+            boolean changed = false;
+            Set<String> seen = new HashSet<>();
+            try (Stream<Path> files = Files.list(sessionDir)) {
+                for (Path path : (Iterable<Path>) files.filter(SessionCatalog::isSessionFile)::iterator) {
+                    String name = path.getFileName().toString();
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    } catch (IOException e) {
+                        continue;  // Removed while listing
+                    }
+                    seen.add(name);
+
+                    Entry entry = entries.get(name);
+                    long modified = attributes.lastModifiedTime().toMillis();
+                    if (entry != null && entry.size == attributes.size() && entry.modifiedMillis == modified) {
+                        continue;
+                    }
+                    entries.put(name, readEntry(path, attributes.size(), modified));
+                    changed = true;
+                }
+            }
+            changed |= entries.keySet().retainAll(seen);
+
+            scannedDirTime = dirTime;
+            if (changed) {
+                persist();
+            }
+        } catch (IOException e) {
+            System.err.println("Error scanning sessions: " + e.getMessage());
+        }
+    }
+
+    private static Entry readEntry(Path path, long size, long modified) {
+        Entry entry = new Entry();
+        entry.file = path.getFileName().toString();
+        entry.size = size;
+        entry.modifiedMillis = modified;
+        try {
+            SessionCodec.Summary summary = SessionManager.readSessionSummary(path);
+            entry.displayName = summary.displayName();
+            entry.createdAt = summary.createdAt();
+            entry.lastModified = summary.lastModified();
+            entry.tabCount = summary.tabCount();
+        } catch (Exception e) {
+            ErrorHandler.debug("Unreadable session file " + path + ": " + e.getMessage());
+            entry.valid = false;
+        }
+        return entry;
+    }
+
+    // Written in place: losing the catalog only means the next start scans every file
+    private static void persist() {
+        CatalogFile stored = new CatalogFile();
+        stored.entries.addAll(entries.values());
+        stored.entries.sort(Comparator.comparing(e -> e.file));
+        try (Writer writer = Files.newBufferedWriter(catalogFile)) {
+            GSON.toJson(stored, writer);
+        } catch (IOException e) {
+            ErrorHandler.debug("Could not write session catalog: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.examples;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streams sessions to and from JSON without building a tree or a string first.
+// The layout matches what reflective Gson wrote before: same field names and order, colours as
+// ARGB ints, dates as ISO strings. Unknown fields are skipped, so older and newer files still load.
+final class SessionCodec {
+    private static final Gson METADATA_GSON = new Gson();
+    private static final Type METADATA_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    static final TypeAdapter<UI.TextBubble> BUBBLE_ADAPTER = new TextBubbleAdapter();
+    static final TypeAdapter<UI.TabInfo> TAB_ADAPTER = new TabInfoAdapter();
+
+    private SessionCodec() {
+    }
+
+    static void write(SessionManager.WindowSession session, Writer out, boolean pretty) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setSerializeNulls(true);
+        if (pretty) {
+            writer.setIndent("  ");
+        }
+
+        writer.beginObject();
+        writer.name("sessionId").value(session.sessionId);
+        writer.name("displayName").value(session.displayName);
+        writer.name("createdAt").value(session.createdAt != null ? session.createdAt.toString() : null);
+        writer.name("lastModified").value(session.lastModified != null ? session.lastModified.toString() : null);
+        writer.name("tabs");
+        if (session.tabs == null) {
+            writer.nullValue();
+        } else {
+            writer.beginArray();
+            for (UI.TabInfo tab : session.tabs) {
+                TAB_ADAPTER.write(writer, tab);
+            }
+            writer.endArray();
+        }
+        writer.name("metadata");
+        METADATA_GSON.toJson(session.metadata, METADATA_TYPE, writer);
+        writer.name("windowScale").value(session.windowScale);
+        writer.name("isDarkMode").value(session.isDarkMode);
+        writer.endObject();
+        writer.flush();
+    }
+
+    // Null for a file holding just "null"; tabs is never null on the result
+    static SessionManager.WindowSession read(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        // Fields missing from the file keep the constructor defaults, as with Gson
+        SessionManager.WindowSession session = new SessionManager.WindowSession();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "sessionId" -> session.sessionId = reader.nextString();
+                case "displayName" -> session.displayName = reader.nextString();
+                case "createdAt" -> session.createdAt = LocalDateTime.parse(reader.nextString());
+                case "lastModified" -> session.lastModified = LocalDateTime.parse(reader.nextString());
+                case "tabs" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        UI.TabInfo tab = TAB_ADAPTER.read(reader);
+                        if (tab != null) session.tabs.add(tab);
+                    }
+                    reader.endArray();
+                }
+                case "metadata" -> {
+                    Map<String, Object> metadata = METADATA_GSON.fromJson(reader, METADATA_TYPE);
+                    session.metadata = metadata != null ? metadata : new HashMap<>();
+                }
+                case "windowScale" -> session.windowScale = (float) reader.nextDouble();
+                case "isDarkMode" -> session.isDarkMode = reader.nextBoolean();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return session;
+    }
+
+    // What the session catalog keeps; dates stay as the ISO strings from the file
+    record Summary(String displayName, String createdAt, String lastModified, int tabCount) {
+    }
+
+    // Reads the header fields and counts the tabs, skipping over their contents
+    static Summary readSummary(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        String displayName = null;
+        String createdAt = null;
+        String lastModified = null;
+        int tabCount = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "displayName" -> displayName = reader.nextString();
+                case "createdAt" -> createdAt = reader.nextString();
+                case "lastModified" -> lastModified = reader.nextString();
+                case "tabs" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                        } else {
+                            reader.skipValue();
+                            tabCount++;
+                        }
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Summary(displayName, createdAt, lastModified, tabCount);
+    }
+
+    private static final class TabInfoAdapter extends TypeAdapter<UI.TabInfo> {
+        @Override
+        public void write(JsonWriter writer, UI.TabInfo tab) throws IOException {
+            if (tab == null) {
+                writer.nullValue();
+                return;
+            }
+            tab.ensureLoaded();
+            writer.beginObject();
+            writer.name("name").value(tab.name);
+            writer.name("bubbles");
+            if (tab.bubbles == null) {
+                writer.nullValue();
+            } else {
+                writer.beginArray();
+                for (UI.TextBubble bubble : tab.bubbles) {
+                    BUBBLE_ADAPTER.write(writer, bubble);
+                }
+                writer.endArray();
+            }
+            writer.name("color");
+            if (tab.color == null) {
+                writer.nullValue();
+            } else {
+                writer.value(tab.color.getRGB());
+            }
+            writer.name("scrollOffset").value(tab.scrollOffset);
+            writer.endObject();
+        }
+
+        @Override
+        public UI.TabInfo read(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+
+            UI.TabInfo tab = new UI.TabInfo(null);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    if (name.equals("color")) tab.color = null;
+                    continue;
+                }
+                switch (name) {
+                    case "name" -> tab.name = reader.nextString();
+                    case "bubbles" -> {
+                        List<UI.TextBubble> bubbles = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            UI.TextBubble bubble = BUBBLE_ADAPTER.read(reader);
+                            if (bubble != null) bubbles.add(bubble);
+                        }
+                        reader.endArray();
+                        tab.bubbles = bubbles;
+                    }
+                    case "color" -> tab.color = new Color(reader.nextInt(), true);
+                    case "scrollOffset" -> tab.scrollOffset = (float) reader.nextDouble();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return tab;
+        }
+    }
+
+    private static final class TextBubbleAdapter extends TypeAdapter<UI.TextBubble> {
+        @Override
+        public void write(JsonWriter writer, UI.TextBubble bubble) throws IOException {
+            if (bubble == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginObject();
+            writer.name("x").value(bubble.x);
+            writer.name("y").value(bubble.y);
+            writer.name("text").value(bubble.text);
+            writer.name("scale").value(bubble.scale);
+            writer.name("timestamp").value(bubble.timestamp);
+            writer.name("isEditing").value(bubble.isEditing);
+            writer.name("template").value(bubble.template);
+            writer.name("live").value(bubble.live);
+            writer.name("colorR").value(bubble.colorR);
+            writer.name("colorG").value(bubble.colorG);
+            writer.name("colorB").value(bubble.colorB);
+            writer.name("colorA").value(bubble.colorA);
+            writer.name("style").value(bubble.style != null ? bubble.style.name() : null);
+            writer.name("isBold").value(bubble.isBold);
+            writer.name("isItalic").value(bubble.isItalic);
+            writer.endObject();
+        }
+
+        @Override
+        public UI.TextBubble read(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+
+            UI.TextBubble bubble = new UI.TextBubble();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    if (name.equals("text")) bubble.text = null;
+                    continue;
+                }
+                switch (name) {
+                    case "x" -> bubble.x = (float) reader.nextDouble();
+                    case "y" -> bubble.y = (float) reader.nextDouble();
+                    case "text" -> bubble.text = reader.nextString();
+                    case "scale" -> bubble.scale = (float) reader.nextDouble();
+                    case "timestamp" -> bubble.timestamp = reader.nextString();
+                    case "isEditing" -> bubble.isEditing = reader.nextBoolean();
+                    case "template" -> bubble.template = reader.nextString();
+                    case "live" -> bubble.live = reader.nextBoolean();
+                    case "colorR" -> bubble.colorR = (float) reader.nextDouble();
+                    case "colorG" -> bubble.colorG = (float) reader.nextDouble();
+                    case "colorB" -> bubble.colorB = (float) reader.nextDouble();
+                    case "colorA" -> bubble.colorA = (float) reader.nextDouble();
+                    case "style" -> bubble.style = parseStyle(reader.nextString());
+                    case "isBold" -> bubble.isBold = reader.nextBoolean();
+                    case "isItalic" -> bubble.isItalic = reader.nextBoolean();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return bubble;
+        }
+
+        private static UI.TextBubble.BubbleStyle parseStyle(String name) {
+            try {
+                return UI.TextBubble.BubbleStyle.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                return null;  // Gson also left unknown constants null
+            }
+        }
+    }
+}
@@ -0,0 +1,636 @@
+package com.examples;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Crash-recovery autosave for every open window: a snapshot of its tabs plus an append-only
+// journal of the edits made since. Edits are encoded on the window's render thread into an
+// in-memory buffer; a writer thread appends all buffered records in one write and sync every
+// FLUSH_INTERVAL_MS (group commit). Once a journal passes COMPACT_THRESHOLD_BYTES the window
+// takes a new snapshot and starts the next journal generation, and the writer folds the old ones away.
+//
+// On disk, per window: autosave/<name>-<hash>/snapshot (a session file in the configured format), whose metadata names the first journal
+// generation that still applies, and journal-<generation>.log files replayed in order on recovery.
+// A clean window close discards the autosave; after a crash the next window with that name gets it back.
+class SessionJournal {
+    private static final Path JOURNAL_DIR = WindowsClient.getWindowsClientConfigDir().toPath().resolve("autosave");
+    private static final String SNAPSHOT_NAME = "snapshot";
+    private static final String GENERATION_KEY = "journalGeneration";
+    private static final long FLUSH_INTERVAL_MS = 200;
+    private static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private enum Op {
+        BUBBLE_ADD,
+        BUBBLE_EDIT,
+        BUBBLE_STYLE,
+        BUBBLE_DELETE,
+        BUBBLE_MOVE,
+        TAB_CREATE,
+        TAB_RENAME,
+        TAB_CLOSE
+    }
+
+    private static final class Journal {
+        final long window;
+        final String name;
+        final Path dir;
+
+        // Guarded by the journal: records not yet handed to the writer, and the generation they belong to
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int generation;
+
+        // Set by the writer when the journal grew too long, or by a bulk change; read each frame
+        volatile boolean compactionWanted;
+        volatile boolean compacting;
+
+        // Writer thread only
+        FileChannel channel;
+        int channelGeneration = -1;
+        long channelSize;
+
+        Journal(long window, String name, Path dir) {
+            this.window = window;
+            this.name = name;
+            this.dir = dir;
+        }
+    }
+
+    private static final Map<Long, Journal> journals = new ConcurrentHashMap<>();
+
+    // Every file operation runs here, so appends, snapshots and deletes never interleave
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Session-Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        writer.scheduleWithFixedDelay(SessionJournal::flushAll, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Called while the window is set up, before its render thread starts. A window opened without
+    // content of its own first gets back whatever a crashed window of the same name left behind.
+    static void open(long window, String name, boolean recover) {
+        Path dir = JOURNAL_DIR.resolve(directoryName(name));
+        Journal journal = new Journal(window, name, dir);
+
+        if (recover) {
+            try {
+                SessionManager.WindowSession recovered = recover(dir);
+                if (recovered != null && !recovered.tabs.isEmpty()) {
+                    UI.restoreWindowSession(window, recovered, 0);
+                    UI.showToast(window, "Recovered unsaved changes");
+                }
+            } catch (IOException | RuntimeException e) {
+                ErrorHandler.handleError("Failed to recover autosave for " + name, e, "SessionJournal.open");
+            }
+        }
+
+        journal.generation = latestGeneration(dir);
+        journals.put(window, journal);
+        // The window's current content becomes the new baseline
+        compact(journal);
+    }
+
+    // Names like "a b" and "a_b" sanitize alike, and some file systems ignore case, so the
+    // readable part gets a hash of the exact name
+    private static String directoryName(String name) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return SessionManager.sanitizeFileName(name) + "-" + HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Render thread, from UI.cleanup; the window closed normally, so nothing needs recovering
+    static void close(long window) {
+        Journal journal = journals.remove(window);
+        if (journal == null) return;
+
+        writer.execute(() -> {
+            closeChannel(journal);
+            deleteJournalFiles(journal.dir, Integer.MAX_VALUE);
+            try {
+                for (SessionManager.SessionFormat format : SessionManager.SessionFormat.values()) {
+                    Files.deleteIfExists(journal.dir.resolve(SNAPSHOT_NAME + format.extension));
+                }
+                Files.deleteIfExists(journal.dir);
+            } catch (IOException e) {
+                ErrorHandler.debug("Could not remove autosave for " + journal.name + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Writes out everything still buffered; called while the client shuts down
+    static void shutdown() {
+        writer.execute(SessionJournal::flushAll);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                ErrorHandler.debug("Session journal still writing at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Render thread, once per frame
+    static void onFrame(long window) {
+        Journal journal = journals.get(window);
+        if (journal != null && journal.compactionWanted && !journal.compacting) {
+            compact(journal);
+        }
+    }
+
+    // For changes too broad to journal one by one, such as loading a session into the window
+    static void checkpoint(long window) {
+        Journal journal = journals.get(window);
+        if (journal != null) {
+            journal.compactionWanted = true;
+        }
+    }
+
+    // Any thread; each window snapshots itself on its next frame
+    static void checkpointAll() {
+        for (Journal journal : journals.values()) {
+            journal.compactionWanted = true;
+        }
+    }
+
+    static void bubbleAdded(long window, int tabIndex, UI.TextBubble bubble) {
+        append(window, Op.BUBBLE_ADD, out -> {
+            out.writeInt(tabIndex);
+            writeBubble(out, bubble);
+        });
+    }
+
+    // Text, template or live flag changed
+    static void bubbleEdited(long window, UI.TextBubble bubble) {
+        int[] location = locate(window, bubble);
+        if (location == null) return;
+        append(window, Op.BUBBLE_EDIT, out -> {
+            writeLocation(out, location);
+            writeString(out, bubble.text);
+            writeString(out, bubble.template);
+            out.writeBoolean(bubble.live);
+        });
+    }
+
+    static void bubbleRestyled(long window, UI.TextBubble bubble) {
+        int[] location = locate(window, bubble);
+        if (location == null) return;
+        append(window, Op.BUBBLE_STYLE, out -> {
+            writeLocation(out, location);
+            writeStyle(out, bubble);
+        });
+    }
+
+    // Before the bubble is removed from its tab
+    static void bubbleDeleted(long window, UI.TextBubble bubble) {
+        int[] location = locate(window, bubble);
+        if (location == null) return;
+        append(window, Op.BUBBLE_DELETE, out -> writeLocation(out, location));
+    }
+
+    static void bubbleMoved(long window, UI.TextBubble bubble) {
+        int[] location = locate(window, bubble);
+        if (location == null) return;
+        append(window, Op.BUBBLE_MOVE, out -> {
+            writeLocation(out, location);
+            out.writeFloat(bubble.x);
+            out.writeFloat(bubble.y);
+        });
+    }
+
+    // Appended after the last tab
+    static void tabCreated(long window, String name) {
+        append(window, Op.TAB_CREATE, out -> writeString(out, name));
+    }
+
+    static void tabRenamed(long window, int tabIndex, String name) {
+        append(window, Op.TAB_RENAME, out -> {
+            out.writeInt(tabIndex);
+            writeString(out, name);
+        });
+    }
+
+    static void tabClosed(long window, int tabIndex) {
+        append(window, Op.TAB_CLOSE, out -> out.writeInt(tabIndex));
+    }
+
+    @FunctionalInterface
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    // Frames the record as length, CRC32, op, body, so a torn tail is recognised on recovery
+    private static void append(long window, Op op, RecordBody body) {
+        Journal journal = journals.get(window);
+        if (journal == null) return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(op.ordinal());
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // In-memory streams do not fail
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        synchronized (journal) {
+            DataOutputStream out = new DataOutputStream(journal.buffer);
+            try {
+                out.writeInt(payload.length);
+                out.writeInt((int) crc.getValue());
+                out.write(payload);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Render thread: copies the tabs and starts the next generation; the writer does the rest
+    private static void compact(Journal journal) {
+        List<UI.TabInfo> tabs = UI.getTabs(journal.window);
+        if (tabs == null) return;
+
+        journal.compactionWanted = false;
+        journal.compacting = true;
+        SessionManager.WindowSession snapshot = SessionManager.snapshotSession(tabs, journal.name,
+                UI.getWindowState(journal.window));
+
+        byte[] sealed;
+        int sealedGeneration;
+        synchronized (journal) {
+            sealed = journal.buffer.toByteArray();
+            sealedGeneration = journal.generation;
+            journal.buffer = new ByteArrayOutputStream();
+            journal.generation++;
+        }
+        int nextGeneration = sealedGeneration + 1;
+        snapshot.metadata.put(GENERATION_KEY, nextGeneration);
+
+        writer.execute(() -> {
+            try {
+                // Until the new snapshot is in place the old generations are still what recovery uses
+                writeRecords(journal, sealedGeneration, sealed);
+                Files.createDirectories(journal.dir);
+                Path snapshotFile = journal.dir.resolve(SNAPSHOT_NAME + SessionManager.getFormat().extension);
+                SessionManager.writeSessionFile(snapshotFile, snapshot);
+                SessionManager.removeOtherFormats(snapshotFile);
+                if (journal.channelGeneration < nextGeneration) {
+                    closeChannel(journal);
+                }
+                deleteJournalFiles(journal.dir, nextGeneration);
+            } catch (IOException e) {
+                ErrorHandler.handleError("Failed to compact autosave for " + journal.name, e, "SessionJournal.compact");
+            } finally {
+                journal.compacting = false;
+            }
+        });
+    }
+
+    // Writer thread: the group commit, one write and one sync per journal with pending records
+    private static void flushAll() {
+        for (Journal journal : journals.values()) {
+            byte[] records;
+            int generation;
+            synchronized (journal) {
+                if (journal.buffer.size() == 0) continue;
+                records = journal.buffer.toByteArray();
+                generation = journal.generation;
+                journal.buffer = new ByteArrayOutputStream();
+            }
+            try {
+                writeRecords(journal, generation, records);
+            } catch (IOException e) {
+                ErrorHandler.handleError("Failed to write autosave for " + journal.name, e, "SessionJournal.flushAll");
+            }
+        }
+    }
+
+    private static void writeRecords(Journal journal, int generation, byte[] records) throws IOException {
+        if (records.length == 0) return;
+
+        if (journal.channel == null || journal.channelGeneration != generation) {
+            closeChannel(journal);
+            Files.createDirectories(journal.dir);
+            journal.channel = FileChannel.open(journalFile(journal.dir, generation),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            journal.channelGeneration = generation;
+            journal.channelSize = journal.channel.size();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            journal.channel.write(buffer);
+        }
+        journal.channel.force(false);
+        journal.channelSize += records.length;
+
+        int currentGeneration;
+        synchronized (journal) {
+            currentGeneration = journal.generation;
+        }
+        if (journal.channelSize > COMPACT_THRESHOLD_BYTES && generation == currentGeneration) {
+            journal.compactionWanted = true;
+        }
+    }
+
+    private static void closeChannel(Journal journal) {
+        if (journal.channel == null) return;
+        try {
+            journal.channel.close();
+        } catch (IOException e) {
+            ErrorHandler.debug("Could not close journal for " + journal.name + ": " + e.getMessage());
+        }
+        journal.channel = null;
+        journal.channelGeneration = -1;
+    }
+
+    private static Path journalFile(Path dir, int generation) {
+        return dir.resolve("journal-" + generation + ".log");
+    }
+
+    // Journal generations present in the directory, oldest first
+    private static List<Integer> journalGenerations(Path dir) throws IOException {
+        List<Integer> generations = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return generations;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                try {
+                    generations.add(Integer.parseInt(fileName.substring("journal-".length(), fileName.length() - ".log".length())));
+                } catch (NumberFormatException e) {
+                    ErrorHandler.debug("Ignoring unexpected journal file " + file);
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private static int latestGeneration(Path dir) {
+        try {
+            List<Integer> generations = journalGenerations(dir);
+            int latest = generations.isEmpty() ? 0 : generations.getLast();
+            return Math.max(latest, snapshotGeneration(dir));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static int snapshotGeneration(Path dir) {
+        Path snapshotFile = SessionManager.findSessionFile(dir, SNAPSHOT_NAME);
+        if (snapshotFile == null) return 0;
+        try {
+            SessionManager.WindowSession snapshot = SessionManager.readSessionFile(snapshotFile);
+            return snapshot != null ? generationOf(snapshot) : 0;
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static int generationOf(SessionManager.WindowSession snapshot) {
+        Object generation = snapshot.metadata != null ? snapshot.metadata.get(GENERATION_KEY) : null;
+        return generation instanceof Number number ? number.intValue() : 0;
+    }
+
+    private static void deleteJournalFiles(Path dir, int belowGeneration) {
+        try {
+            for (int generation : journalGenerations(dir)) {
+                if (generation < belowGeneration) {
+                    Files.deleteIfExists(journalFile(dir, generation));
+                }
+            }
+        } catch (IOException e) {
+            ErrorHandler.debug("Could not remove old journals in " + dir + ": " + e.getMessage());
+        }
+    }
+
+    // Snapshot plus every journal generation it does not already include; null if there is nothing
+    static SessionManager.WindowSession recover(Path dir) throws IOException {
+        Path snapshotFile = SessionManager.findSessionFile(dir, SNAPSHOT_NAME);
+        List<Integer> generations = journalGenerations(dir);
+        if (snapshotFile == null && generations.isEmpty()) return null;
+
+        SessionManager.WindowSession session = snapshotFile != null ? SessionManager.readSessionFile(snapshotFile) : null;
+        if (session == null) {
+            session = new SessionManager.WindowSession();
+            session.tabs.add(new UI.TabInfo("Main"));
+        }
+
+        int firstGeneration = generationOf(session);
+        int replayed = 0;
+        for (int generation : generations) {
+            if (generation < firstGeneration) continue;
+            replayed += replay(journalFile(dir, generation), session.tabs);
+        }
+        ErrorHandler.debug("Recovered autosave " + dir.getFileName() + ": snapshot plus " + replayed + " journal records");
+        return session;
+    }
+
+    // Applies records until the end of the file or the first damaged one; returns how many applied
+    private static int replay(Path file, List<UI.TabInfo> tabs) throws IOException {
+        int applied = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > COMPACT_THRESHOLD_BYTES * 16) break;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;  // Torn final record
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) break;
+
+                try (DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload))) {
+                    apply(record, tabs);
+                    applied++;
+                } catch (IOException | RuntimeException e) {
+                    ErrorHandler.debug("Skipping unreadable journal record in " + file + ": " + e);
+                }
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(DataInputStream in, List<UI.TabInfo> tabs) throws IOException {
+        Op[] ops = Op.values();
+        int opIndex = in.readUnsignedByte();
+        if (opIndex >= ops.length) return;
+
+        switch (ops[opIndex]) {
+            case BUBBLE_ADD -> {
+                int tabIndex = in.readInt();
+                UI.TextBubble bubble = readBubble(in);
+                if (tabIndex >= 0 && tabIndex < tabs.size()) {
+                    tabs.get(tabIndex).bubbles.add(bubble);
+                }
+            }
+            case BUBBLE_EDIT -> {
+                UI.TextBubble bubble = bubbleAt(tabs, in.readInt(), in.readInt());
+                String text = readString(in);
+                String template = readString(in);
+                boolean live = in.readBoolean();
+                if (bubble != null) {
+                    bubble.text = text;
+                    bubble.template = template;
+                    bubble.live = live;
+                }
+            }
+            case BUBBLE_STYLE -> {
+                UI.TextBubble bubble = bubbleAt(tabs, in.readInt(), in.readInt());
+                readStyle(in, bubble != null ? bubble : new UI.TextBubble());
+            }
+            case BUBBLE_DELETE -> {
+                int tabIndex = in.readInt();
+                int bubbleIndex = in.readInt();
+                if (bubbleAt(tabs, tabIndex, bubbleIndex) != null) {
+                    tabs.get(tabIndex).bubbles.remove(bubbleIndex);
+                }
+            }
+            case BUBBLE_MOVE -> {
+                UI.TextBubble bubble = bubbleAt(tabs, in.readInt(), in.readInt());
+                float x = in.readFloat();
+                float y = in.readFloat();
+                if (bubble != null) {
+                    bubble.x = x;
+                    bubble.y = y;
+                }
+            }
+            case TAB_CREATE -> tabs.add(new UI.TabInfo(readString(in)));
+            case TAB_RENAME -> {
+                int tabIndex = in.readInt();
+                String name = readString(in);
+                if (tabIndex >= 0 && tabIndex < tabs.size()) {
+                    tabs.get(tabIndex).name = name;
+                }
+            }
+            case TAB_CLOSE -> {
+                int tabIndex = in.readInt();
+                if (tabIndex > 0 && tabIndex < tabs.size()) {
+                    tabs.remove(tabIndex);
+                }
+            }
+        }
+    }
+
+    private static UI.TextBubble bubbleAt(List<UI.TabInfo> tabs, int tabIndex, int bubbleIndex) {
+        if (tabIndex < 0 || tabIndex >= tabs.size()) return null;
+        List<UI.TextBubble> bubbles = tabs.get(tabIndex).bubbles;
+        return bubbleIndex >= 0 && bubbleIndex < bubbles.size() ? bubbles.get(bubbleIndex) : null;
+    }
+
+    // Tab and bubble index of a bubble in the window, or null if it is not in any tab
+    private static int[] locate(long window, UI.TextBubble bubble) {
+        if (!journals.containsKey(window)) return null;
+        List<UI.TabInfo> tabs = UI.getTabs(window);
+        if (tabs == null) return null;
+
+        for (int tabIndex = 0; tabIndex < tabs.size(); tabIndex++) {
+            UI.TabInfo tab = tabs.get(tabIndex);
+            if (!tab.isLoaded()) continue;  // Nothing in it has been touched yet
+            List<UI.TextBubble> bubbles = tab.bubbles;
+            if (bubbles == null) continue;
+            for (int bubbleIndex = 0; bubbleIndex < bubbles.size(); bubbleIndex++) {
+                if (bubbles.get(bubbleIndex) == bubble) return new int[]{tabIndex, bubbleIndex};
+            }
+        }
+        return null;
+    }
+
+    private static void writeLocation(DataOutputStream out, int[] location) throws IOException {
+        out.writeInt(location[0]);
+        out.writeInt(location[1]);
+    }
+
+    private static void writeBubble(DataOutputStream out, UI.TextBubble bubble) throws IOException {
+        out.writeFloat(bubble.x);
+        out.writeFloat(bubble.y);
+        out.writeFloat(bubble.scale);
+        writeString(out, bubble.text);
+        writeString(out, bubble.template);
+        out.writeBoolean(bubble.live);
+        writeString(out, bubble.timestamp);
+        writeStyle(out, bubble);
+    }
+
+    private static UI.TextBubble readBubble(DataInputStream in) throws IOException {
+        UI.TextBubble bubble = new UI.TextBubble();
+        bubble.x = in.readFloat();
+        bubble.y = in.readFloat();
+        bubble.scale = in.readFloat();
+        bubble.text = readString(in);
+        bubble.template = readString(in);
+        bubble.live = in.readBoolean();
+        bubble.timestamp = readString(in);
+        readStyle(in, bubble);
+        return bubble;
+    }
+
+    private static void writeStyle(DataOutputStream out, UI.TextBubble bubble) throws IOException {
+        out.writeFloat(bubble.colorR);
+        out.writeFloat(bubble.colorG);
+        out.writeFloat(bubble.colorB);
+        out.writeFloat(bubble.colorA);
+        out.writeByte(bubble.style != null ? bubble.style.ordinal() : -1);
+        out.writeBoolean(bubble.isBold);
+        out.writeBoolean(bubble.isItalic);
+    }
+
+    private static void readStyle(DataInputStream in, UI.TextBubble bubble) throws IOException {
+        bubble.colorR = in.readFloat();
+        bubble.colorG = in.readFloat();
+        bubble.colorB = in.readFloat();
+        bubble.colorA = in.readFloat();
+        int style = in.readByte();
+        UI.TextBubble.BubbleStyle[] styles = UI.TextBubble.BubbleStyle.values();
+        bubble.style = style >= 0 && style < styles.length ? styles[style] : null;
+        bubble.isBold = in.readBoolean();
+        bubble.isItalic = in.readBoolean();
+    }
+
+    // Length-prefixed UTF-8, -1 for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,15 +1,24 @@
 package com.examples;
 
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 
-import java.awt.*;
 import java.io.*;
-import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class SessionManager {
@@ -18,12 +27,75 @@ public class SessionManager {
             "sessions"
     );
 
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeAdapter(Color.class, new ColorAdapter())
-            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-            .setPrettyPrinting()
-            .serializeNulls()
-            .create();
+    private static final Path EXPORT_DIR = Paths.get(
+            WindowsClient.getWindowsClientConfigDir().getPath(),
+            "exports"
+    );
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int SUMMARY_CHUNK_SIZE = 16 * 1024;
+
+    // How session files are written; the file extension records the format. Files in either
+    // format are always read back, so switching only affects what is saved next.
+    enum SessionFormat {
+        BINARY(".wses"),
+        JSON(".json");
+
+        final String extension;
+
+        SessionFormat(String extension) {
+            this.extension = extension;
+        }
+
+        static SessionFormat of(Path file) {
+            return file.getFileName().toString().endsWith(JSON.extension) ? JSON : BINARY;
+        }
+    }
+
+    // The choices below survive restarts, so a session is never converted behind the user's back
+    private static final Path SETTINGS_FILE = SESSION_DIR.resolveSibling("session-settings.json");
+    private static final Gson SETTINGS_GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private static final class Settings {
+        SessionFormat format = SessionFormat.BINARY;
+        boolean compress = false;
+        boolean prettyPrint = false;
+    }
+
+    private static volatile SessionFormat format;
+    // DEFLATE each tab of binary files; smaller on disk, slower to save
+    private static volatile boolean compress;
+    // Indented files are easier to read by hand but noticeably larger for big sessions
+    private static volatile boolean prettyPrint;
+
+    static {
+        Settings settings = loadSettings();
+        format = settings.format != null ? settings.format : SessionFormat.BINARY;
+        compress = settings.compress;
+        prettyPrint = settings.prettyPrint;
+    }
+
+    // One writer thread, so saves, renames and deletes reach the disk in the order they were asked for
+    private static final ExecutorService persistExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Session-Save");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    // Decodes tabs of lazily loaded sessions that have not been opened yet
+    private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Session-Load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Newest snapshot waiting to be written per session file. A save made while an earlier one
+    // for the same file is still queued replaces its snapshot, so only the latest gets written.
+    private record PendingSave(long window, WindowSession session) {
+    }
+
+    private static final Map<Path, PendingSave> pendingSaves = new ConcurrentHashMap<>();
 
     public static class WindowSession {
         public String sessionId;
@@ -58,150 +130,493 @@ public class SessionManager {
         } catch (IOException e) {
             System.err.println("Failed to create session directory: " + e.getMessage());
         }
+        SessionCatalog.init(SESSION_DIR);
     }
 
+    // Copies the tabs on the calling thread and writes them in the background; the window is
+    // told when the write finished
     public static void saveSession(long window, List<UI.TabInfo> tabs, String customName) {
+        WindowSession session;
         try {
-            WindowSession session = new WindowSession();
-            session.tabs = new ArrayList<>();
-
-            // Deep copy the tabs to ensure all data is captured
-            for (UI.TabInfo tab : tabs) {
-                UI.TabInfo newTab = new UI.TabInfo(tab.name);
-                newTab.color = tab.color;
-                newTab.scrollOffset = tab.scrollOffset;
-
-                for (UI.TextBubble bubble : tab.bubbles) {
-                    UI.TextBubble newBubble = new UI.TextBubble(bubble.text, bubble.scale);
-                    newBubble.x = bubble.x;
-                    newBubble.y = bubble.y;
-                    newBubble.timestamp = bubble.timestamp;
-                    newBubble.colorR = bubble.colorR;
-                    newBubble.colorG = bubble.colorG;
-                    newBubble.colorB = bubble.colorB;
-                    newBubble.colorA = bubble.colorA;
-                    newBubble.style = bubble.style;
-                    newBubble.isBold = bubble.isBold;
-                    newBubble.isItalic = bubble.isItalic;
-                    newTab.bubbles.add(newBubble);
-                }
-                session.tabs.add(newTab);
+            session = snapshotSession(tabs, customName, UI.getCurrentState());
+        } catch (Exception e) {
+            ErrorHandler.handleError("Failed to snapshot session", e, "SessionManager.saveSession");
+            return;
+        }
+
+        Path sessionFile = sessionFile(session.displayName);
+        if (pendingSaves.put(sessionFile, new PendingSave(window, session)) != null) return;
+
+        boolean queued = persist(() -> {
+            PendingSave pending = pendingSaves.remove(sessionFile);
+            if (pending == null) return;
+            try {
+                writeSessionFile(sessionFile, pending.session);
+                SessionCatalog.recordSaved(sessionFile, pending.session);
+                removeOtherFormats(sessionFile);
+                System.out.println("Session saved to " + sessionFile + " with " + pending.session.tabs.size() + " tabs");
+                UI.showToast(pending.window, "Saved session " + pending.session.displayName);
+            } catch (IOException e) {
+                ErrorHandler.handleError("Failed to save session " + pending.session.displayName, e, "SessionManager.saveSession");
+                UI.showToast(pending.window, "Could not save session " + pending.session.displayName);
             }
+        });
+        if (!queued) {
+            pendingSaves.remove(sessionFile);
+            UI.showToast(window, "Could not save session " + session.displayName + ": the game is closing");
+        }
+    }
 
-            session.displayName = customName != null ? customName : "Session-" + session.sessionId;
+    // Queues work on the writer thread; false once shutdown() stopped taking new work
+    private static boolean persist(Runnable task) {
+        if (persistExecutor.isShutdown()) return false;
+        try {
+            persistExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
 
-            // Capture UI state
-            UI.UIState uiState = UI.getCurrentState();
-            if (uiState != null) {
-                session.isDarkMode = uiState.isDarkMode;
-                session.windowScale = uiState.scale;
+    // Waits for queued writes; called while the client shuts down
+    static void shutdown() {
+        persistExecutor.shutdown();
+        try {
+            if (!persistExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                ErrorHandler.debug("Session writes still running at shutdown");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            String filename = sanitizeFileName(session.displayName) + ".json";
-            Path sessionFile = SESSION_DIR.resolve(filename);
+    // Deep copies the tabs so the snapshot can be written while the window keeps changing
+    static WindowSession snapshotSession(List<UI.TabInfo> tabs, String customName, UI.UIState uiState) {
+        WindowSession session = new WindowSession();
+        session.tabs = new ArrayList<>();
 
-            System.out.println("Saving session to: " + sessionFile);
-            String json = GSON.toJson(session);
-            System.out.println("Session JSON: " + json);
+        for (UI.TabInfo tab : tabs) {
+            UI.TabInfo newTab = new UI.TabInfo(tab.name);
+            newTab.color = tab.color;
+            newTab.scrollOffset = tab.scrollOffset;
+
+            // A tab still in its session file is decoded by whoever writes the snapshot
+            if (tab.copyPendingTo(newTab)) {
+                session.tabs.add(newTab);
+                continue;
+            }
 
-            try (Writer writer = Files.newBufferedWriter(sessionFile)) {
-                GSON.toJson(session, writer);
-                System.out.println("Session saved successfully with " + session.tabs.size() + " tabs");
+            for (UI.TextBubble bubble : tab.bubbles) {
+                UI.TextBubble newBubble = new UI.TextBubble();
+                newBubble.text = bubble.text;
+                newBubble.scale = bubble.scale;
+                newBubble.template = bubble.template;
+                newBubble.live = bubble.live;
+                newBubble.x = bubble.x;
+                newBubble.y = bubble.y;
+                newBubble.timestamp = bubble.timestamp;
+                newBubble.colorR = bubble.colorR;
+                newBubble.colorG = bubble.colorG;
+                newBubble.colorB = bubble.colorB;
+                newBubble.colorA = bubble.colorA;
+                newBubble.style = bubble.style;
+                newBubble.isBold = bubble.isBold;
+                newBubble.isItalic = bubble.isItalic;
+                newTab.bubbles.add(newBubble);
             }
+            session.tabs.add(newTab);
+        }
+
+        session.displayName = customName != null ? customName : "Session-" + session.sessionId;
+
+        // Capture UI state
+        if (uiState != null) {
+            session.isDarkMode = uiState.isDarkMode;
+            session.windowScale = uiState.scale;
+        }
+        return session;
+    }
+
+    static SessionFormat getFormat() {
+        return format;
+    }
+
+    static void setFormat(SessionFormat newFormat) {
+        format = newFormat;
+        saveSettings();
+    }
+
+    static boolean isCompress() {
+        return compress;
+    }
+
+    static void setCompress(boolean enabled) {
+        compress = enabled;
+        saveSettings();
+    }
+
+    static boolean isPrettyPrint() {
+        return prettyPrint;
+    }
+
+    static void setPrettyPrint(boolean enabled) {
+        prettyPrint = enabled;
+        saveSettings();
+    }
+
+    private static Settings loadSettings() {
+        if (!Files.exists(SETTINGS_FILE)) return new Settings();
+        try (Reader reader = Files.newBufferedReader(SETTINGS_FILE)) {
+            Settings settings = SETTINGS_GSON.fromJson(reader, Settings.class);
+            return settings != null ? settings : new Settings();
         } catch (Exception e) {
-            System.err.println("Error saving session: " + e.getMessage());
-            e.printStackTrace();
+            ErrorHandler.handleError("Failed to read session settings, using defaults", e, "SessionManager.loadSettings");
+            return new Settings();
         }
     }
 
-    public static WindowSession loadSession(String sessionName) {
+    // Client thread, from the commands that change a setting
+    private static synchronized void saveSettings() {
+        Settings settings = new Settings();
+        settings.format = format;
+        settings.compress = compress;
+        settings.prettyPrint = prettyPrint;
         try {
-            Path sessionFile = SESSION_DIR.resolve(sanitizeFileName(sessionName) + ".json");
-            System.out.println("Loading session from: " + sessionFile);
+            Files.createDirectories(SETTINGS_FILE.getParent());
+            try (Writer writer = Files.newBufferedWriter(SETTINGS_FILE)) {
+                SETTINGS_GSON.toJson(settings, writer);
+            }
+        } catch (IOException e) {
+            ErrorHandler.handleError("Failed to save session settings", e, "SessionManager.saveSettings");
+        }
+    }
 
-            if (!Files.exists(sessionFile)) {
-                System.err.println("Session file does not exist: " + sessionFile);
-                return null;
+    // Writes a temporary file next to the target, syncs it and moves it over the target, so a
+    // crash leaves either the old file or the new one, never a truncated mix. The target's
+    // extension picks the format.
+    static void writeSessionFile(Path file, WindowSession session) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (SessionFormat.of(file) == SessionFormat.JSON) {
+                    Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+                    SessionCodec.write(session, writer, prettyPrint);
+                    writer.flush();
+                } else {
+                    OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+                    SessionBinaryCodec.write(session, out, compress);
+                    out.flush();
+                }
+                channel.force(true);
             }
+            moveIntoPlace(temp, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
 
-            try (Reader reader = Files.newBufferedReader(sessionFile)) {
-                WindowSession session = GSON.fromJson(reader, WindowSession.class);
-                if (session.tabs == null) session.tabs = new ArrayList<>();
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 
-                // Update last modified time
-                session.lastModified = LocalDateTime.now();
+    // Reads either format, whatever the extension says
+    static WindowSession readSessionFile(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), WRITE_BUFFER_SIZE)) {
+            if (isBinary(in)) {
+                return SessionBinaryCodec.read(ByteBuffer.wrap(in.readAllBytes()));
+            }
+            return SessionCodec.read(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
 
-                System.out.println("Session loaded with " + session.tabs.size() + " tabs");
-                return session;
+    // Name, dates and tab count without decoding any tab contents. Binary files are read from the
+    // start until the tab directory fits, which is usually the first chunk.
+    static SessionCodec.Summary readSessionSummary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (SessionBinaryCodec.hasMagic(readPrefix(channel, 4).array())) {
+                SessionBinaryCodec.Header header = readHeader(channel);
+                WindowSession session = header.session();
+                return new SessionCodec.Summary(session.displayName,
+                        session.createdAt != null ? session.createdAt.toString() : null,
+                        session.lastModified != null ? session.lastModified.toString() : null,
+                        header.tabs().size());
             }
-        } catch (Exception e) {
-            System.err.println("Error loading session: " + e.getMessage());
-            e.printStackTrace();
-            return null;
         }
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return SessionCodec.readSummary(reader);
+        }
+    }
+
+    // Reads from the start of a binary file until the tab directory fits, usually the first chunk
+    private static SessionBinaryCodec.Header readHeader(FileChannel channel) throws IOException {
+        long size = channel.size();
+        for (int chunk = SUMMARY_CHUNK_SIZE; ; chunk *= 2) {
+            ByteBuffer data = readPrefix(channel, (int) Math.min(size, chunk));
+            try {
+                return SessionBinaryCodec.readHeader(data, size);
+            } catch (IOException e) {
+                if (data.limit() >= size) throw e;
+            }
+        }
+    }
+
+    private static ByteBuffer readPrefix(FileChannel channel, int length) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(length);
+        while (data.hasRemaining()) {
+            if (channel.read(data, data.position()) < 0) break;
+        }
+        return data.flip();
     }
 
-    public static class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
-        @Override
-        public JsonElement serialize(LocalDateTime src, Type typeOfSrc, JsonSerializationContext context) {
-            return new JsonPrimitive(src.toString());
+    private static boolean isBinary(InputStream in) throws IOException {
+        in.mark(4);
+        byte[] start = in.readNBytes(4);
+        in.reset();
+        return SessionBinaryCodec.hasMagic(start);
+    }
+
+    // Where a session with this name is saved in the current format
+    static Path sessionFile(String sessionName) {
+        return SESSION_DIR.resolve(sanitizeFileName(sessionName) + format.extension);
+    }
+
+    // The saved file for baseName in dir, preferring the current format; null if there is none
+    static Path findSessionFile(Path dir, String baseName) {
+        Path preferred = dir.resolve(baseName + format.extension);
+        if (Files.exists(preferred)) return preferred;
+        for (SessionFormat other : SessionFormat.values()) {
+            Path candidate = dir.resolve(baseName + other.extension);
+            if (Files.exists(candidate)) return candidate;
         }
+        return null;
+    }
 
-        @Override
-        public LocalDateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
-                throws JsonParseException {
-            return LocalDateTime.parse(json.getAsString());
+    // Deletes copies of the same session saved earlier in another format
+    static void removeOtherFormats(Path written) throws IOException {
+        String fileName = written.getFileName().toString();
+        SessionFormat writtenFormat = SessionFormat.of(written);
+        String baseName = fileName.substring(0, fileName.length() - writtenFormat.extension.length());
+        for (SessionFormat other : SessionFormat.values()) {
+            if (other == writtenFormat) continue;
+            Path stale = written.resolveSibling(baseName + other.extension);
+            if (Files.deleteIfExists(stale) && stale.getParent().equals(SESSION_DIR)) {
+                SessionCatalog.recordDeleted(stale);
+            }
         }
     }
 
-    public static void renameSession(String oldName, String newName) {
+    public static WindowSession loadSession(String sessionName) {
         try {
-            Path oldFile = SESSION_DIR.resolve(sanitizeFileName(oldName) + ".json");
-            Path newFile = SESSION_DIR.resolve(sanitizeFileName(newName) + ".json");
+            Path sessionFile = findSessionFile(SESSION_DIR, sanitizeFileName(sessionName));
+            if (sessionFile == null) {
+                System.err.println("Session file does not exist: " + sessionName);
+                return null;
+            }
+            System.out.println("Loading session from: " + sessionFile);
 
-            WindowSession session = loadSession(oldName);
-            if (session != null) {
-                session.displayName = newName;
-                session.lastModified = LocalDateTime.now();
+            WindowSession session = readSessionFile(sessionFile);
 
-                try (Writer writer = Files.newBufferedWriter(newFile)) {
-                    GSON.toJson(session, writer);
-                }
+            // Update last modified time
+            session.lastModified = LocalDateTime.now();
 
-                Files.deleteIfExists(oldFile);
-                System.out.println("Session renamed from " + oldName + " to " + newName);
-            }
+            System.out.println("Session loaded with " + session.tabs.size() + " tabs");
+            return session;
         } catch (Exception e) {
-            System.err.println("Error renaming session: " + e.getMessage());
+            System.err.println("Error loading session: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
-    public static void deleteSession(String sessionName) {
+    // Reads the header of a binary session file and decodes only the tab shown first. The other
+    // tabs are decoded when first activated or by loadRemainingTabs, so opening costs the same
+    // however large the session is. JSON files are read in full.
+    public static WindowSession loadSessionLazily(String sessionName, int activeTab) {
+        Path sessionFile = findSessionFile(SESSION_DIR, sanitizeFileName(sessionName));
+        if (sessionFile == null || SessionFormat.of(sessionFile) == SessionFormat.JSON) {
+            return loadSession(sessionName);
+        }
+
+        FileChannel channel = null;
         try {
-            Path sessionFile = SESSION_DIR.resolve(sanitizeFileName(sessionName) + ".json");
-            Files.deleteIfExists(sessionFile);
-            System.out.println("Session deleted: " + sessionName);
+            System.out.println("Opening session from: " + sessionFile);
+            channel = FileChannel.open(sessionFile, StandardOpenOption.READ);
+            if (!SessionBinaryCodec.hasMagic(readPrefix(channel, 4).array())) {
+                channel.close();
+                return loadSession(sessionName);
+            }
+
+            SessionBinaryCodec.Header header = readHeader(channel);
+            WindowSession session = header.session();
+            TabBlocks blocks = new TabBlocks(sessionFile, channel, header);
+            for (int i = 0; i < header.tabs().size(); i++) {
+                SessionBinaryCodec.TabHeader tabHeader = header.tabs().get(i);
+                UI.TabInfo tab = new UI.TabInfo(tabHeader.name());
+                tab.color = tabHeader.color();
+                tab.scrollOffset = tabHeader.scrollOffset();
+                int index = i;
+                tab.deferBubbles(() -> blocks.decode(index));
+                session.tabs.add(tab);
+            }
+            if (header.tabs().isEmpty()) {
+                channel.close();
+            }
+            if (activeTab >= 0 && activeTab < session.tabs.size()) {
+                session.tabs.get(activeTab).ensureLoaded();
+            }
+
+            session.lastModified = LocalDateTime.now();
+            System.out.println("Session opened with " + session.tabs.size() + " tabs");
+            return session;
         } catch (Exception e) {
-            System.err.println("Error deleting session: " + e.getMessage());
+            System.err.println("Error loading session: " + e.getMessage());
             e.printStackTrace();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
         }
     }
 
-    public static List<String> listSessions() {
-        try {
-            if (!Files.exists(SESSION_DIR)) {
-                Files.createDirectories(SESSION_DIR);
+    // The tab blocks of a lazily loaded session. Each block is read once with a positional read and
+    // kept, since snapshots of a still pending tab decode it again; the channel is closed as soon as
+    // the last block has been read. An open channel does not keep the file from being replaced, and
+    // a file truncated meanwhile fails the read instead of faulting like a mapping would.
+    private static final class TabBlocks {
+        private final Path file;
+        private final FileChannel channel;
+        private final SessionBinaryCodec.Header header;
+        private final ByteBuffer[] blocks;
+        private int unread;
+
+        TabBlocks(Path file, FileChannel channel, SessionBinaryCodec.Header header) {
+            this.file = file;
+            this.channel = channel;
+            this.header = header;
+            this.blocks = new ByteBuffer[header.tabs().size()];
+            this.unread = blocks.length;
+        }
+
+        List<UI.TextBubble> decode(int index) {
+            SessionBinaryCodec.TabHeader tab = header.tabs().get(index);
+            try {
+                return SessionBinaryCodec.readBlock(block(index), header.deflated(), tab);
+            } catch (IOException | RuntimeException e) {
+                ErrorHandler.handleError("Failed to read tab " + tab.name() + " from " + file, e, "SessionManager.TabBlocks.decode");
+                return new ArrayList<>();
             }
-            return Files.list(SESSION_DIR)
-                    .filter(path -> path.toString().endsWith(".json"))
-                    .map(path -> path.getFileName().toString().replace(".json", ""))
-                    .sorted()
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            System.err.println("Error listing sessions: " + e.getMessage());
-            return new ArrayList<>();
         }
+
+        private synchronized ByteBuffer block(int index) throws IOException {
+            if (blocks[index] != null) return blocks[index].duplicate();
+
+            SessionBinaryCodec.TabHeader tab = header.tabs().get(index);
+            ByteBuffer block = ByteBuffer.allocate(tab.storedLength());
+            try {
+                while (block.hasRemaining()) {
+                    if (channel.read(block, tab.offset() + block.position()) < 0) {
+                        throw new IOException("Session file is truncated");
+                    }
+                }
+                block.flip();
+            } catch (IOException e) {
+                // A failed block is not read again; the tab comes up empty
+                block.limit(0);
+                throw e;
+            } finally {
+                blocks[index] = block;
+                if (--unread == 0) {
+                    channel.close();
+                }
+            }
+            return block.duplicate();
+        }
+    }
+
+    // Decodes the tabs of a lazily loaded session that nobody has opened yet
+    static void loadRemainingTabs(List<UI.TabInfo> tabs) {
+        List<UI.TabInfo> pending = new ArrayList<>();
+        for (UI.TabInfo tab : tabs) {
+            if (!tab.isLoaded()) pending.add(tab);
+        }
+        if (pending.isEmpty()) return;
+
+        loadExecutor.execute(() -> {
+            for (UI.TabInfo tab : pending) {
+                tab.ensureLoaded();
+            }
+        });
+    }
+
+    public static void renameSession(long window, String oldName, String newName) {
+        boolean queued = persist(() -> {
+            try {
+                Path oldFile = findSessionFile(SESSION_DIR, sanitizeFileName(oldName));
+                Path newFile = sessionFile(newName);
+
+                WindowSession session = loadSession(oldName);
+                if (session != null) {
+                    session.displayName = newName;
+                    session.lastModified = LocalDateTime.now();
+
+                    writeSessionFile(newFile, session);
+                    SessionCatalog.recordSaved(newFile, session);
+                    removeOtherFormats(newFile);
+
+                    // Names that sanitize to the same file were just rewritten in place
+                    if (oldFile != null && !oldFile.equals(newFile) && Files.deleteIfExists(oldFile)) {
+                        SessionCatalog.recordDeleted(oldFile);
+                    }
+                    System.out.println("Session renamed from " + oldName + " to " + newName);
+                    UI.showToast(window, "Renamed session to " + newName);
+                }
+            } catch (Exception e) {
+                ErrorHandler.handleError("Failed to rename session " + oldName, e, "SessionManager.renameSession");
+                UI.showToast(window, "Could not rename session " + oldName);
+            }
+        });
+        if (!queued) {
+            UI.showToast(window, "Could not rename session " + oldName + ": the game is closing");
+        }
+    }
+
+    public static void deleteSession(long window, String sessionName) {
+        boolean queued = persist(() -> {
+            try {
+                for (SessionFormat each : SessionFormat.values()) {
+                    Path sessionFile = SESSION_DIR.resolve(sanitizeFileName(sessionName) + each.extension);
+                    if (Files.deleteIfExists(sessionFile)) {
+                        SessionCatalog.recordDeleted(sessionFile);
+                    }
+                }
+                System.out.println("Session deleted: " + sessionName);
+                UI.showToast(window, "Deleted session " + sessionName);
+            } catch (Exception e) {
+                ErrorHandler.handleError("Failed to delete session " + sessionName, e, "SessionManager.deleteSession");
+                UI.showToast(window, "Could not delete session " + sessionName);
+            }
+        });
+        if (!queued) {
+            UI.showToast(window, "Could not delete session " + sessionName + ": the game is closing");
+        }
+    }
+
+    // File names without the extension, from the catalog
+    public static List<String> listSessions() {
+        return SessionCatalog.entries().stream()
+                .map(entry -> entry.file.substring(0, entry.file.lastIndexOf('.')))
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
     }
 
     public static class SessionInfo {
@@ -223,56 +638,100 @@ public class SessionManager {
         public int getTabCount() { return tabCount; }
     }
 
+    // Newest first; files that could not be read are left out
     public static List<SessionInfo> listSessionsWithInfo() {
+        return SessionCatalog.entries().stream()
+                .filter(entry -> entry.valid)
+                .map(entry -> new SessionInfo(
+                        entry.displayName,
+                        parseDate(entry.createdAt),
+                        parseDate(entry.lastModified),
+                        entry.tabCount
+                ))
+                .sorted(Comparator.comparing(SessionInfo::getLastModified,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .collect(Collectors.toList());
+    }
+
+    private static LocalDateTime parseDate(String value) {
         try {
-            return Files.list(SESSION_DIR)
-                    .filter(path -> path.toString().endsWith(".json"))
-                    .map(path -> {
-                        try {
-                            WindowSession session = loadSession(getNameWithoutExtension(path));
-                            return new SessionInfo(
-                                    session.displayName,
-                                    session.createdAt,
-                                    session.lastModified,
-                                    session.tabs.size()
-                            );
-                        } catch (Exception e) {
-                            System.err.println("Error reading session file: " + path);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .sorted((a, b) -> b.getLastModified().compareTo(a.getLastModified()))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            System.err.println("Error listing sessions with info: " + e.getMessage());
-            return new ArrayList<>();
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (RuntimeException e) {
+            return null;
         }
     }
 
-    private static String sanitizeFileName(String name) {
-        return name.replaceAll("[^a-zA-Z0-9.-]", "_");
+    // Writes a JSON copy of a saved session to the exports folder, whatever format it is stored in
+    static void exportSession(String sessionName, Consumer<String> onDone) {
+        boolean queued = persist(() -> {
+            try {
+                Path source = findSessionFile(SESSION_DIR, sanitizeFileName(sessionName));
+                if (source == null) {
+                    onDone.accept("No saved session named " + sessionName);
+                    return;
+                }
+                WindowSession session = readSessionFile(source);
+                Files.createDirectories(EXPORT_DIR);
+                Path target = EXPORT_DIR.resolve(sanitizeFileName(sessionName) + SessionFormat.JSON.extension);
+                writeSessionFile(target, session);
+                onDone.accept("Exported " + sessionName + " to " + target);
+            } catch (Exception e) {
+                ErrorHandler.handleError("Failed to export session " + sessionName, e, "SessionManager.exportSession");
+                onDone.accept("Could not export " + sessionName + ": " + e.getMessage());
+            }
+        });
+        if (!queued) {
+            onDone.accept("Could not export " + sessionName + ": the game is closing");
+        }
     }
 
-    private static String getNameWithoutExtension(Path path) {
-        String fileName = path.getFileName().toString();
-        return fileName.substring(0, fileName.lastIndexOf('.'));
+    // Reads a JSON file from the exports folder and saves it as a session in the current format
+    static void importSession(String fileName, Consumer<String> onDone) {
+        boolean queued = persist(() -> {
+            try {
+                String baseName = fileName.endsWith(SessionFormat.JSON.extension)
+                        ? fileName.substring(0, fileName.length() - SessionFormat.JSON.extension.length())
+                        : fileName;
+                Path source = EXPORT_DIR.resolve(sanitizeFileName(baseName) + SessionFormat.JSON.extension);
+                if (!Files.exists(source)) {
+                    onDone.accept("No export named " + source.getFileName() + " in " + EXPORT_DIR);
+                    return;
+                }
+                WindowSession session = readSessionFile(source);
+                if (session == null) {
+                    onDone.accept(source.getFileName() + " holds no session");
+                    return;
+                }
+                if (session.displayName == null) {
+                    session.displayName = baseName;
+                }
+                Path target = sessionFile(session.displayName);
+                writeSessionFile(target, session);
+                SessionCatalog.recordSaved(target, session);
+                removeOtherFormats(target);
+                onDone.accept("Imported session " + session.displayName);
+            } catch (Exception e) {
+                ErrorHandler.handleError("Failed to import session " + fileName, e, "SessionManager.importSession");
+                onDone.accept("Could not import " + fileName + ": " + e.getMessage());
+            }
+        });
+        if (!queued) {
+            onDone.accept("Could not import " + fileName + ": the game is closing");
+        }
     }
 
+    static String sanitizeFileName(String name) {
+        return name.replaceAll("[^a-zA-Z0-9.-]", "_");
+    }
+
+    // Re-reads every file whose size or modification time changed since it was last checked
     public static void validateSessions() {
-        try {
-            Files.list(SESSION_DIR)
-                    .filter(path -> path.toString().endsWith(".json"))
-                    .forEach(path -> {
-                        try {
-                            loadSession(getNameWithoutExtension(path));
-                            System.out.println("Validated session: " + path);
-                        } catch (Exception e) {
-                            System.err.println("Invalid session file: " + path);
-                        }
-                    });
-        } catch (IOException e) {
-            System.err.println("Error validating sessions: " + e.getMessage());
+        for (SessionCatalog.Entry entry : SessionCatalog.rescan()) {
+            if (entry.valid) {
+                System.out.println("Validated session: " + SESSION_DIR.resolve(entry.file));
+            } else {
+                System.err.println("Invalid session file: " + SESSION_DIR.resolve(entry.file));
+            }
         }
     }
 }
\ No newline at end of file
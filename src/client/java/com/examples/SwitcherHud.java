@@ -0,0 +1,132 @@
+package com.examples;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.RenderTickCounter;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+
+import java.util.*;
+import java.util.List;
+
+// In-game overlay for /windows switch; runs entirely on the client thread
+public class SwitcherHud {
+    private static final int CELL_WIDTH = 96;
+    private static final int CELL_HEIGHT = 60;
+    private static final int PADDING = 6;
+    private static final int LABEL_HEIGHT = 12;
+    private static final int COLUMNS = 4;
+
+    private static final Map<Long, HudTexture> textures = new HashMap<>();
+    // Read by the window render threads to decide whether thumbnails are needed
+    private static volatile boolean visible = false;
+
+    private static class HudTexture {
+        final Identifier id;
+        final NativeImageBackedTexture texture;
+        final int width;
+        final int height;
+        long version = -1;
+
+        HudTexture(Identifier id, NativeImageBackedTexture texture, int width, int height) {
+            this.id = id;
+            this.texture = texture;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    static boolean isVisible() {
+        return visible;
+    }
+
+    static boolean toggle() {
+        visible = !visible;
+        if (!visible) releaseAll();
+        return visible;
+    }
+
+    static void hide() {
+        visible = false;
+        releaseAll();
+    }
+
+    static void render(DrawContext context, RenderTickCounter tickCounter) {
+        if (!visible) return;
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        List<String> names = WindowsClient.getWindowNames();
+        Set<Long> shown = new HashSet<>();
+
+        int x0 = PADDING;
+        int y0 = PADDING;
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            long window = WindowsClient.getWindowHandle(name);
+            if (window == 0) continue;
+            shown.add(window);
+
+            int x = x0 + (i % COLUMNS) * (CELL_WIDTH + PADDING);
+            int y = y0 + (i / COLUMNS) * (CELL_HEIGHT + LABEL_HEIGHT + PADDING);
+            context.fill(x - 1, y - 1, x + CELL_WIDTH + 1, y + CELL_HEIGHT + LABEL_HEIGHT + 1, 0xB0000000);
+
+            HudTexture texture = updateTexture(client, window, WindowThumbnails.get(window));
+            if (texture != null) {
+                context.drawTexture(RenderLayer::getGuiTextured, texture.id, x, y, 0, 0,
+                        CELL_WIDTH, CELL_HEIGHT, CELL_WIDTH, CELL_HEIGHT);
+            }
+            context.drawTextWithShadow(client.textRenderer, name, x + 2, y + CELL_HEIGHT + 2, 0xFFFFFF);
+        }
+
+        // Forget windows that were closed while the overlay was up
+        Iterator<Map.Entry<Long, HudTexture>> iterator = textures.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, HudTexture> entry = iterator.next();
+            if (!shown.contains(entry.getKey())) {
+                client.getTextureManager().destroyTexture(entry.getValue().id);
+                iterator.remove();
+            }
+        }
+    }
+
+    // Re-uploads only when the window published a newer thumbnail
+    private static HudTexture updateTexture(MinecraftClient client, long window, WindowThumbnails.Thumbnail thumbnail) {
+        HudTexture texture = textures.get(window);
+        if (thumbnail == null) return texture;
+        if (texture != null && texture.version == thumbnail.version) return texture;
+
+        if (texture == null || texture.width != thumbnail.width || texture.height != thumbnail.height) {
+            if (texture != null) {
+                client.getTextureManager().destroyTexture(texture.id);
+            }
+            Identifier id = Identifier.of("windows", "switcher/" + Long.toHexString(window));
+            NativeImageBackedTexture backed = new NativeImageBackedTexture(
+                    new NativeImage(thumbnail.width, thumbnail.height, false));
+            client.getTextureManager().registerTexture(id, backed);
+            texture = new HudTexture(id, backed, thumbnail.width, thumbnail.height);
+            textures.put(window, texture);
+        }
+
+        NativeImage image = texture.texture.getImage();
+        if (image == null) return texture;
+        for (int y = 0; y < thumbnail.height; y++) {
+            int row = y * thumbnail.width;
+            for (int x = 0; x < thumbnail.width; x++) {
+                image.setColorArgb(x, y, thumbnail.argb[row + x]);
+            }
+        }
+        texture.texture.upload();
+        texture.version = thumbnail.version;
+        return texture;
+    }
+
+    private static void releaseAll() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        for (HudTexture texture : textures.values()) {
+            client.getTextureManager().destroyTexture(texture.id);
+        }
+        textures.clear();
+    }
+}
@@ -17,7 +17,11 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.examples.WindowsClient.getWindowsClientConfigDir;
@@ -30,6 +34,8 @@ public class UI {
     // State Maps
     private static Map<Long, UIState> windowStates = new ConcurrentHashMap<>();
     private static final Map<Long, List<TabInfo>> windowTabs = new ConcurrentHashMap<>();
+    // Work handed to a window's render thread by other threads, see callOnRenderThread
+    private static final Map<Long, Queue<Runnable>> renderTasks = new ConcurrentHashMap<>();
     private static final Map<Long, Integer> activeTabIndices = new ConcurrentHashMap<>();
     private static final Map<Long, StringBuilder> inputBuffers = new ConcurrentHashMap<>();
     private static final Map<Long, Float> scrollOffsets = new ConcurrentHashMap<>();
@@ -67,6 +73,11 @@ public class UI {
     private static final float DARK_MODE_BUTTON_PADDING = 10.0f;
     private static final float NEW_TAB_BUTTON_WIDTH = 20.0f;
 
+    // Click zone layers, in the order the elements are drawn
+    private static final int TAB_LAYER_Z = 0;
+    private static final int BUBBLE_LAYER_Z = 10;
+    private static final int INPUT_LAYER_Z = 1 << 20;
+
     private static final Map<Long, Integer> previousTabIndices = new ConcurrentHashMap<>();
 
     private static final Map<Long, Integer> renamingTabs = new ConcurrentHashMap<>();
@@ -75,8 +86,20 @@ public class UI {
     private static String sessionBeingRenamed = null;
 
     private static final Map<Long, Map<TextBubble, AnimationState>> bubbleAnimations = new ConcurrentHashMap<>();
+
+    // Bumped whenever something that affects a window's picture changes; thumbnails refresh on change only
+    private static final Map<Long, Long> contentVersions = new ConcurrentHashMap<>();
+    // Bumped only by edits that move, resize, add or remove elements; the cached layout keys on it
+    private static final Map<Long, Long> layoutVersions = new ConcurrentHashMap<>();
     private static final long ANIMATION_DURATION = 300; // milliseconds
 
+    // A short status line over the window, e.g. when a background save finished
+    private record Toast(String message, long expiresAt) {
+    }
+
+    private static final Map<Long, Toast> toasts = new ConcurrentHashMap<>();
+    private static final long TOAST_DURATION = 2500; // milliseconds
+
     private static final float SESSION_BUTTON_WIDTH = 40.0f;
     private static final float SESSION_BUTTON_PADDING = 10.0f;
     private static final float SESSION_MENU_WIDTH = 200.0f;  // Wider menu
@@ -121,21 +144,13 @@ public class UI {
             isDarkMode = !isDarkMode;
             updateColors();
 
-            // Update all existing bubbles to match new theme
+            // Update all existing bubbles to match new theme; tabs still in their session file
+            // get it once decoded
+            boolean dark = isDarkMode;
             for (TabInfo tab : UI.getWindowTabs()) {
-                for (TextBubble bubble : tab.bubbles) {
-                    if (isDarkMode) {
-                        bubble.colorR = 0.2f;
-                        bubble.colorG = 0.2f;
-                        bubble.colorB = 0.2f;
-                    } else {
-                        bubble.colorR = 0.85f;
-                        bubble.colorG = 0.85f;
-                        bubble.colorB = 0.85f;
-                    }
-                    bubble.colorA = 1.0f;
-                }
+                tab.whenLoaded(loaded -> applyTheme(loaded, dark));
             }
+            SessionJournal.checkpointAll();
 
             // Save state
             try {
@@ -153,6 +168,21 @@ public class UI {
             }
         }
 
+        private static void applyTheme(TabInfo tab, boolean dark) {
+            for (TextBubble bubble : tab.bubbles) {
+                if (dark) {
+                    bubble.colorR = 0.2f;
+                    bubble.colorG = 0.2f;
+                    bubble.colorB = 0.2f;
+                } else {
+                    bubble.colorR = 0.85f;
+                    bubble.colorG = 0.85f;
+                    bubble.colorB = 0.85f;
+                }
+                bubble.colorA = 1.0f;
+            }
+        }
+
         void updateColors() {
             if (isDarkMode) {
                 backgroundColor = new Color(0.15f, 0.15f, 0.15f, 1.0f);  // Lighter dark gray
@@ -184,12 +214,64 @@ public class UI {
         Color color;
         float scrollOffset;
 
+        // Decodes the bubbles while they are still only in the session file; null once loaded
+        private volatile Supplier<List<TextBubble>> pendingBubbles;
+        private Consumer<TabInfo> onLoaded;
+
         TabInfo(String name) {
             this.name = name;
             this.bubbles = new ArrayList<>();
             this.color = new Color(0.6f, 0.6f, 0.7f, 0.8f);
             this.scrollOffset = 0.0f;
         }
+
+        boolean isLoaded() {
+            return pendingBubbles == null;
+        }
+
+        // Leaves the bubbles in the session file until someone needs them
+        synchronized void deferBubbles(Supplier<List<TextBubble>> source) {
+            bubbles = new ArrayList<>();
+            pendingBubbles = source;
+        }
+
+        // Decodes the bubbles if they are still pending; anything reading bubbles of a tab that
+        // may come from a lazily loaded session calls this first. Safe from any thread.
+        void ensureLoaded() {
+            if (pendingBubbles == null) return;
+
+            Consumer<TabInfo> callback;
+            synchronized (this) {
+                Supplier<List<TextBubble>> source = pendingBubbles;
+                if (source == null) return;
+                bubbles = new ArrayList<>(source.get());
+                pendingBubbles = null;
+                callback = onLoaded;
+                onLoaded = null;
+            }
+            if (callback != null) {
+                callback.accept(this);
+            }
+        }
+
+        // Runs callback once the bubbles are decoded, straight away if they already are.
+        // Callbacks registered before that run in the order they were added.
+        void whenLoaded(Consumer<TabInfo> callback) {
+            synchronized (this) {
+                if (pendingBubbles != null) {
+                    onLoaded = onLoaded == null ? callback : onLoaded.andThen(callback);
+                    return;
+                }
+            }
+            callback.accept(this);
+        }
+
+        // Gives target the same pending bubbles; false if this tab is already loaded
+        synchronized boolean copyPendingTo(TabInfo target) {
+            if (pendingBubbles == null) return false;
+            target.deferBubbles(pendingBubbles);
+            return true;
+        }
     }
 
 
@@ -209,6 +291,88 @@ public class UI {
         return windowStates.values().iterator().next();
     }
 
+    static UIState getWindowState(long window) {
+        return windowStates.get(window);
+    }
+
+    static List<TabInfo> getTabs(long window) {
+        return windowTabs.get(window);
+    }
+
+    static int getActiveTabIndex(long window) {
+        return activeTabIndices.getOrDefault(window, 0);
+    }
+
+    // Switches tabs, decoding the new tab's bubbles if they were left in the session file.
+    // A bubble edit in progress ends unless the edited bubble is on the tab now shown.
+    private static void setActiveTab(long window, int index) {
+        activeTabIndices.put(window, index);
+        markLayoutChanged(window);
+        List<TabInfo> tabs = windowTabs.get(window);
+        TabInfo tab = tabs != null && index >= 0 && index < tabs.size() ? tabs.get(index) : null;
+        if (tab != null) {
+            tab.ensureLoaded();
+        }
+
+        TextBubble editing = editingBubbles.get(window);
+        if (editing != null && (tab == null || !containsBubble(tab, editing))) {
+            stopEditing(window, inputBuffers.computeIfAbsent(window, k -> new StringBuilder()));
+        }
+    }
+
+    private static boolean containsBubble(TabInfo tab, TextBubble bubble) {
+        if (tab.bubbles == null) return false;
+        for (TextBubble candidate : tab.bubbles) {
+            if (candidate == bubble) return true;
+        }
+        return false;
+    }
+
+    // Runs task on the window's render thread at the start of its next frame, so it sees the
+    // tabs the way the window does. Completes with null if the window is already gone.
+    static <T> CompletableFuture<T> callOnRenderThread(long window, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!windowStates.containsKey(window)) {
+            result.complete(null);
+            return result;
+        }
+        renderTasks.computeIfAbsent(window, k -> new ConcurrentLinkedQueue<>()).add(() -> {
+            try {
+                result.complete(task.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private static void runRenderTasks(long window) {
+        Queue<Runnable> tasks = renderTasks.get(window);
+        if (tasks == null) return;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    static void markContentChanged(long window) {
+        contentVersions.merge(window, 1L, Long::sum);
+    }
+
+    static long getContentVersion(long window) {
+        return contentVersions.getOrDefault(window, 0L);
+    }
+
+    // A geometry change is also a content change
+    static void markLayoutChanged(long window) {
+        layoutVersions.merge(window, 1L, Long::sum);
+        markContentChanged(window);
+    }
+
+    static long getLayoutVersion(long window) {
+        return layoutVersions.getOrDefault(window, 0L);
+    }
+
     // Add helper method to get all tabs
     public static List<TabInfo> getWindowTabs() {
         List<TabInfo> allTabs = new ArrayList<>();
@@ -280,6 +444,7 @@ public class UI {
         // Start from the top of the window under the tab bar
         float currentY = TAB_HEIGHT + 10;
         Map<TextBubble, AnimationState> animations = bubbleAnimations.computeIfAbsent(window, k -> new ConcurrentHashMap<>());
+        markLayoutChanged(window);
 
         // Go through each bubble and position it properly
         for (TextBubble bubble : tab.bubbles) {
@@ -312,6 +477,10 @@ public class UI {
         float scale;
         String timestamp;
         boolean isEditing;
+        // Text as typed, before keyword expansion; only kept when it contained keywords
+        String template;
+        // Re-rendered from the template whenever a keyword value it uses changes
+        boolean live;
 
         // Color components as floats (0.0f to 1.0f)
         float colorR = 0.95f;  // Default light blue
@@ -342,6 +511,12 @@ public class UI {
             }
         }
 
+        // For decoders and copies, which set every field themselves; does not look at any window
+        TextBubble() {
+            this.text = "";
+            this.scale = 1.0f;
+        }
+
         TextBubble(String text, float scale) {
             this.text = text != null ? text : "";
             this.scale = scale;
@@ -405,6 +580,8 @@ public class UI {
         messageHistory.putIfAbsent(window, new ArrayList<>());
         historyIndices.putIfAbsent(window, -1);
         cursorPositions.putIfAbsent(window, 0);
+        InputSystem.initializeWindow(window);
+        LatencyTracker.initializeWindow(window);
 
         setupCallbacks(window);
     }
@@ -425,66 +602,132 @@ public class UI {
     }
 
 
-    private static void handleKeyCallback(long window, int key, int scancode, int action, int mods) {
-        try {
-            if (action != GLFW_PRESS && action != GLFW_REPEAT) return;
+    @FunctionalInterface
+    private interface KeyAction {
+        void run(long window, int key, StringBuilder input, int cursorPos);
+    }
 
-            // Handle Ctrl+S for session menu
-            if (key == GLFW_KEY_S && (mods & GLFW_MOD_CONTROL) != 0 && action == GLFW_PRESS) {
-                // Get window dimensions for positioning
-                int[] width = new int[1];
-                int[] height = new int[1];
-                glfwGetWindowSize(window, width, height);
+    // Who receives a key press, in priority order
+    private enum KeyMode {
+        RENAMING_TAB,
+        SESSION,
+        BUBBLE_EDIT,
+        NORMAL
+    }
 
-                // Position menu in the center of the window
-                float menuX = width[0] / 2.0f - MENU_WIDTH / 2.0f;
-                float menuY = height[0] / 2.0f - 100;  // Offset from center
+    // Built once; a key press costs a mode lookup and a map lookup
+    private static final Map<KeyMode, Map<Integer, KeyAction>> keyBindings = new EnumMap<>(KeyMode.class);
+    private static final Map<KeyMode, KeyAction> keyFallbacks = new EnumMap<>(KeyMode.class);
+    // Ctrl+key presses handled in every mode
+    private static final Map<Integer, KeyAction> controlBindings = new HashMap<>();
 
-                showSessionManagementMenu(window, menuX, menuY);
-                return;
+    static {
+        Map<Integer, KeyAction> renaming = new HashMap<>();
+        renaming.put(GLFW_KEY_ENTER, UI::commitTabRename);
+        renaming.put(GLFW_KEY_ESCAPE, (window, key, input, cursorPos) -> stopTabRename(window, input));
+        keyBindings.put(KeyMode.RENAMING_TAB, renaming);
+        keyFallbacks.put(KeyMode.RENAMING_TAB, UI::handleCommonKeyInput);
+
+        Map<Integer, KeyAction> session = new HashMap<>();
+        session.put(GLFW_KEY_ENTER, (window, key, input, cursorPos) -> handleSessionEnter(window, input));
+        session.put(GLFW_KEY_ESCAPE, (window, key, input, cursorPos) -> handleSessionEscape(window, input));
+        keyBindings.put(KeyMode.SESSION, session);
+        keyFallbacks.put(KeyMode.SESSION, UI::handleCommonKeyInput);
+
+        Map<Integer, KeyAction> bubbleEdit = new HashMap<>();
+        bubbleEdit.put(GLFW_KEY_ENTER, UI::commitBubbleEdit);
+        bubbleEdit.put(GLFW_KEY_ESCAPE, (window, key, input, cursorPos) -> stopEditing(window, input));
+        bubbleEdit.put(GLFW_KEY_TAB, (window, key, input, cursorPos) -> acceptSuggestion(window, input, cursorPos));
+        bubbleEdit.put(GLFW_KEY_UP, (window, key, input, cursorPos) -> KeywordAutocomplete.moveSelection(window, input, cursorPos, -1));
+        bubbleEdit.put(GLFW_KEY_DOWN, (window, key, input, cursorPos) -> KeywordAutocomplete.moveSelection(window, input, cursorPos, 1));
+        keyBindings.put(KeyMode.BUBBLE_EDIT, bubbleEdit);
+        keyFallbacks.put(KeyMode.BUBBLE_EDIT, UI::handleCommonKeyInput);
+
+        Map<Integer, KeyAction> normal = new HashMap<>();
+        normal.put(GLFW_KEY_ENTER, (window, key, input, cursorPos) -> {
+            if (!input.isEmpty()) {
+                handleEnterPressed(window);
+            }
+        });
+        // While keyword suggestions show, Up/Down pick one, Tab accepts it and Escape hides them
+        normal.put(GLFW_KEY_UP, (window, key, input, cursorPos) -> {
+            if (!KeywordAutocomplete.moveSelection(window, input, cursorPos, -1)) {
+                handleHistoryNavigation(window, key, input);
             }
+        });
+        normal.put(GLFW_KEY_DOWN, (window, key, input, cursorPos) -> {
+            if (!KeywordAutocomplete.moveSelection(window, input, cursorPos, 1)) {
+                handleHistoryNavigation(window, key, input);
+            }
+        });
+        normal.put(GLFW_KEY_TAB, (window, key, input, cursorPos) -> {
+            if (!acceptSuggestion(window, input, cursorPos)) {
+                handleTabNavigation(window);
+            }
+        });
+        normal.put(GLFW_KEY_ESCAPE, (window, key, input, cursorPos) -> KeywordAutocomplete.dismiss(window, input, cursorPos));
+        keyBindings.put(KeyMode.NORMAL, normal);
+        keyFallbacks.put(KeyMode.NORMAL, UI::handleCommonKeyInput);
+
+        // Ctrl+S opens the session menu
+        controlBindings.put(GLFW_KEY_S, (window, key, input, cursorPos) -> {
+            // Get window dimensions for positioning
+            int[] width = new int[1];
+            int[] height = new int[1];
+            glfwGetWindowSize(window, width, height);
 
-            // Get the current input buffer
-            StringBuilder input = inputBuffers.computeIfAbsent(window, k -> new StringBuilder());
-            int cursorPos = cursorPositions.getOrDefault(window, input.length());
+            // Position menu in the center of the window
+            float menuX = width[0] / 2.0f - MENU_WIDTH / 2.0f;
+            float menuY = height[0] / 2.0f - 100;  // Offset from center
 
-            // Check if a tab is being renamed
-            Integer renamingTabIndex = renamingTabs.get(window);
+            showSessionManagementMenu(window, menuX, menuY);
+        });
+    }
 
-            // Check if a bubble is being edited
-            List<TabInfo> tabs = windowTabs.get(window);
-            int activeTab = activeTabIndices.getOrDefault(window, 0);
-            TextBubble editingBubble = null;
+    private static KeyMode getKeyMode(long window) {
+        // Renaming tab takes precedence, then session naming, then bubble editing
+        if (renamingTabs.containsKey(window)) return KeyMode.RENAMING_TAB;
+        if (currentInputMode == InputMode.SAVING_SESSION || currentInputMode == InputMode.RENAMING_SESSION) {
+            return KeyMode.SESSION;
+        }
+        if (editingBubbles.containsKey(window)) return KeyMode.BUBBLE_EDIT;
+        return KeyMode.NORMAL;
+    }
 
-            if (tabs != null && activeTab < tabs.size()) {
-                TabInfo currentTab = tabs.get(activeTab);
-                editingBubble = currentTab.bubbles.stream()
-                        .filter(bubble -> bubble.isEditing)
-                        .findFirst()
-                        .orElse(null);
-            }
+    static void handleKeyCallback(long window, int key, int scancode, int action, int mods) {
+        InputRecorder.recordKey(window, key, scancode, action, mods);
+        if (action == GLFW_PRESS || action == GLFW_REPEAT) {
+            LatencyTracker.onInput(window);
+        }
+        try {
+            if (action != GLFW_PRESS && action != GLFW_REPEAT) return;
+            markContentChanged(window);
 
-            // Renaming tab takes precedence
-            boolean hasInput = !input.toString().trim().isEmpty();
-            if (renamingTabIndex != null) {
-                handleRenamingTabInput(window, key, input, cursorPos, tabs, renamingTabIndex, hasInput);
-                return;
-            }
+            boolean controlPress = (mods & GLFW_MOD_CONTROL) != 0 && action == GLFW_PRESS;
 
-            // Session handling takes priority after tab renaming
-            if (currentInputMode == InputMode.SAVING_SESSION || currentInputMode == InputMode.RENAMING_SESSION) {
-                handleSessionInput(window, key, input, cursorPos);
+            // Ctrl+Tab opens the window switcher, which then takes all keys until it closes
+            if (controlPress && key == GLFW_KEY_TAB) {
+                WindowSwitcher.toggle(window);
                 return;
             }
+            if (WindowSwitcher.handleKey(window, key)) return;
 
-            // Bubble editing takes next priority
-            if (editingBubble != null) {
-                handleBubbleEditInput(window, key, input, editingBubble, hasInput);
+            // Get the current input buffer
+            StringBuilder input = inputBuffers.computeIfAbsent(window, k -> new StringBuilder());
+            int cursorPos = cursorPositions.getOrDefault(window, input.length());
+
+            KeyAction controlAction = controlPress ? controlBindings.get(key) : null;
+            if (controlAction != null) {
+                controlAction.run(window, key, input, cursorPos);
                 return;
             }
 
-            // Normal input handling
-            handleNormalInput(window, key, input, cursorPos);
+            KeyMode mode = getKeyMode(window);
+            KeyAction keyAction = keyBindings.get(mode).get(key);
+            if (keyAction == null) {
+                keyAction = keyFallbacks.get(mode);
+            }
+            keyAction.run(window, key, input, cursorPos);
 
         } catch (Exception e) {
             System.err.println("Error in handleKeyCallback: " + e.getMessage());
@@ -492,44 +735,29 @@ public class UI {
         }
     }
 
-    private static void handleRenamingTabInput(long window, int key, StringBuilder input, int cursorPos,
-                                               List<TabInfo> tabs, int renamingTabIndex, boolean hasInput) {
-        switch (key) {
-            case GLFW_KEY_ENTER:
-                if (tabs != null && hasInput) {
-                    tabs.get(renamingTabIndex).name = input.toString().trim();
-                }
-                renamingTabs.remove(window);
-                input.setLength(0);
-                cursorPositions.remove(window);
-                break;
-
-            case GLFW_KEY_ESCAPE:
-                renamingTabs.remove(window);
-                input.setLength(0);
-                cursorPositions.remove(window);
-                break;
+    private static boolean acceptSuggestion(long window, StringBuilder input, int cursorPos) {
+        int newCursorPos = KeywordAutocomplete.accept(window, input, cursorPos);
+        if (newCursorPos < 0) return false;
+        cursorPositions.put(window, newCursorPos);
+        return true;
+    }
 
-            default:
-                handleCommonKeyInput(window, key, input, cursorPos);
-                break;
+    private static void commitTabRename(long window, int key, StringBuilder input, int cursorPos) {
+        Integer renamingTabIndex = renamingTabs.get(window);
+        List<TabInfo> tabs = windowTabs.get(window);
+        String name = input.toString().trim();
+        if (renamingTabIndex != null && tabs != null && renamingTabIndex < tabs.size() && !name.isEmpty()) {
+            tabs.get(renamingTabIndex).name = name;
+            SessionJournal.tabRenamed(window, renamingTabIndex, name);
+            markLayoutChanged(window);
         }
+        stopTabRename(window, input);
     }
 
-    private static void handleSessionInput(long window, int key, StringBuilder input, int cursorPos) {
-        switch (key) {
-            case GLFW_KEY_ENTER:
-                handleSessionEnter(window, input);
-                break;
-
-            case GLFW_KEY_ESCAPE:
-                handleSessionEscape(window, input);
-                break;
-
-            default:
-                handleCommonKeyInput(window, key, input, cursorPos);
-                break;
-        }
+    private static void stopTabRename(long window, StringBuilder input) {
+        renamingTabs.remove(window);
+        input.setLength(0);
+        cursorPositions.remove(window);
     }
 
     private static void handleSessionEnter(long window, StringBuilder input) {
@@ -546,7 +774,7 @@ public class UI {
         } else if (currentInputMode == InputMode.RENAMING_SESSION) {
             String newName = input.toString().trim();
             if (!newName.isEmpty() && sessionBeingRenamed != null) {
-                SessionManager.renameSession(sessionBeingRenamed, newName);
+                SessionManager.renameSession(window, sessionBeingRenamed, newName);
                 sessionBeingRenamed = null;
             }
             input.setLength(0);
@@ -562,20 +790,29 @@ public class UI {
         cursorPositions.put(window, 0);
     }
 
-    private static void handleBubbleEditInput(long window, int key, StringBuilder input,
-                                              TextBubble bubble, boolean hasInput) {
-        if (key == GLFW_KEY_ENTER) {
-            if (hasInput) {
-                bubble.text = input.toString().trim();
+    private static void commitBubbleEdit(long window, int key, StringBuilder input, int cursorPos) {
+        TextBubble bubble = editingBubbles.get(window);
+        String text = input.toString().trim();
+        if (bubble != null && !text.isEmpty()) {
+            if (bubble.live) {
+                bubble.template = text;
+                LiveBubbles.bind(window, bubble);
+            } else {
+                bubble.text = text;
             }
+            SessionJournal.bubbleEdited(window, bubble);
+            markLayoutChanged(window);
+        }
+        stopEditing(window, input);
+    }
+
+    private static void stopEditing(long window, StringBuilder input) {
+        TextBubble bubble = editingBubbles.remove(window);
+        if (bubble != null) {
             bubble.isEditing = false;
-            input.setLength(0);
-            cursorPositions.put(window, 0);
-        } else if (key == GLFW_KEY_ESCAPE) {
-            bubble.isEditing = false;
-            input.setLength(0);
-            cursorPositions.put(window, 0);
         }
+        input.setLength(0);
+        cursorPositions.put(window, 0);
     }
 
 
@@ -618,30 +855,6 @@ public class UI {
         }
     }
 
-    private static void handleNormalInput(long window, int key, StringBuilder input, int cursorPos) {
-        switch (key) {
-            case GLFW_KEY_ENTER:
-                if (!input.isEmpty()) {
-                    handleEnterPressed(window);
-                }
-                break;
-
-            case GLFW_KEY_UP:
-            case GLFW_KEY_DOWN:
-                handleHistoryNavigation(window, key, input);
-                break;
-
-            case GLFW_KEY_TAB:
-                handleTabNavigation(window);
-                break;
-
-            default:
-                handleCommonKeyInput(window, key, input, cursorPos);
-                break;
-        }
-    }
-
-
     private static void handleTabNavigation(long window) {
         List<TabInfo> tabs = windowTabs.get(window);
         if (tabs != null && tabs.size() > 1) {
@@ -652,7 +865,7 @@ public class UI {
 
             // Move to next tab
             int newTab = (currentTab + 1) % tabs.size();
-            activeTabIndices.put(window, newTab);
+            setActiveTab(window, newTab);
 
             // Reset scroll position for new tab
             scrollOffsets.put(window, 0.0f);
@@ -714,6 +927,9 @@ public class UI {
         // Window resize callback
         glfwSetWindowSizeCallback(window, UI::handleWindowSizeCallback);
 
+        // Window move callback, keeps WindowPositionManager in sync for workspace snapshots
+        glfwSetWindowPosCallback(window, UI::handleWindowPosCallback);
+
         // Key callback with comprehensive handling
         glfwSetKeyCallback(window, UI::handleKeyCallback);
     }
@@ -746,6 +962,12 @@ public class UI {
         UIState state = windowStates.get(window);
         if (state == null) return;
 
+        long frameStart = System.nanoTime();
+        InputReplayer.beforeFrame(window);
+        SessionJournal.onFrame(window);
+        ensureActiveTabLoaded(window);
+        runRenderTasks(window);
+
         // Get window dimensions
         int[] width = new int[1];
         int[] height = new int[1];
@@ -755,6 +977,12 @@ public class UI {
         float dynamicScale = calculateDynamicScale(width[0], height[0]);
         state.scale = dynamicScale;
 
+        // Hover hit tests below run against the layout this frame draws
+        SceneGraph.Layout layout = updateLayout(window, width[0], height[0], state);
+
+        // Dispatch at most one coalesced cursor move per frame
+        InputSystem.flushPendingMoves(window);
+
         // Setup render state
         glClearColor(
                 state.backgroundColor.getRed() / 255f,
@@ -776,14 +1004,79 @@ public class UI {
         glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
 
         // Draw UI elements with dynamic scale
-        drawTabs(window, width[0], height[0]);
-        drawMessages(window, width[0], height[0]);
-        drawInputArea(window, width[0], height[0]);
+        drawTabs(window, width[0], layout);
+        drawMessages(window, layout);
+        drawInputArea(window, layout);
         drawContextMenu(window);
+        drawToast(window, width[0], state);
+
+        // Capture the thumbnail and any requested export before the switcher overlay is drawn on top
+        int[] framebufferWidth = new int[1];
+        int[] framebufferHeight = new int[1];
+        glfwGetFramebufferSize(window, framebufferWidth, framebufferHeight);
+        WindowThumbnails.onFrameRendered(window, getContentVersion(window), framebufferWidth[0], framebufferHeight[0]);
+        WindowCapture.onFrameRendered(window, framebufferWidth[0], framebufferHeight[0]);
+
+        if (WindowSwitcher.isOpen(window)) {
+            WindowSwitcher.draw(window, width[0], height[0]);
+        }
 
         glfwSwapBuffers(window);
+        LatencyTracker.onFrameSwapped(window, frameStart);
+        InputReplayer.afterFrame(window, System.nanoTime() - frameStart);
+    }
+
+
+    // The main tab cannot be closed
+    private static void closeTab(long window, int tabIndex) {
+        List<TabInfo> tabs = windowTabs.get(window);
+        if (tabs == null || tabs.size() <= 1 || tabIndex <= 0 || tabIndex >= tabs.size()) return;
+
+        TabInfo removed = tabs.remove(tabIndex);
+        SessionJournal.tabClosed(window, tabIndex);
+        markLayoutChanged(window);
+        TextBubble editing = editingBubbles.get(window);
+        if (editing != null && containsBubble(removed, editing)) {
+            stopEditing(window, inputBuffers.computeIfAbsent(window, k -> new StringBuilder()));
+        }
+        if (removed.isLoaded() && removed.bubbles != null) {
+            for (TextBubble bubble : removed.bubbles) {
+                if (bubble.live) {
+                    LiveBubbles.unbind(bubble);
+                }
+            }
+        }
+        int currentTab = activeTabIndices.getOrDefault(window, 0);
+        if (currentTab >= tabIndex) {
+            setActiveTab(window, Math.max(0, currentTab - 1));
+        }
     }
 
+    // Expands the keywords of every sent message in the tab again with current values, as one batch.
+    // Live bubbles already follow their keywords and are left alone.
+    private static void reexpandTab(long window, TabInfo tab) {
+        tab.ensureLoaded();
+        List<TextBubble> targets = new ArrayList<>();
+        List<String> templates = new ArrayList<>();
+        for (TextBubble bubble : tab.bubbles) {
+            if (bubble.template != null && !bubble.live) {
+                targets.add(bubble);
+                templates.add(bubble.template);
+            }
+        }
+        if (targets.isEmpty()) return;
+
+        List<String> expanded = KeywordProcessor.processKeywordsBatch(templates);
+        for (int i = 0; i < targets.size(); i++) {
+            TextBubble bubble = targets.get(i);
+            String text = expanded.get(i);
+            if (text != null && !text.equals(bubble.text)) {
+                bubble.text = text;
+                SessionJournal.bubbleEdited(window, bubble);
+            }
+        }
+        markLayoutChanged(window);
+    }
 
     private static void showTabContextMenu(long window, float x, float y, TabInfo tab, int tabIndex) {
         List<MenuItem> tabMenuItems = new ArrayList<>(Arrays.asList(
@@ -803,22 +1096,21 @@ public class UI {
                     if (tabs != null && tabs.size() < 10) {
                         TabInfo duplicatedTab = new TabInfo(tab.name + " (Copy)");
                         // Deep copy bubbles
+                        tab.ensureLoaded();
                         duplicatedTab.bubbles = tab.bubbles.stream()
                                 .map(bubble -> new TextBubble(bubble.text, bubble.scale)).collect(Collectors.toList());
                         tabs.add(duplicatedTab);
-                        activeTabIndices.put(window, tabs.size() - 1);
+                        setActiveTab(window, tabs.size() - 1);
+                        SessionJournal.checkpoint(window);
                     }
                     activeContextMenus.remove(window);
                 }),
+                new MenuItem("Update Keywords", () -> {
+                    reexpandTab(window, tab);
+                    activeContextMenus.remove(window);
+                }),
                 new MenuItem("Close Tab", () -> {
-                    List<TabInfo> tabs = windowTabs.get(window);
-                    if (tabs != null && tabs.size() > 1 && tabIndex > 0) {
-                        tabs.remove(tabIndex);
-                        int currentTab = activeTabIndices.getOrDefault(window, 0);
-                        if (currentTab >= tabIndex) {
-                            activeTabIndices.put(window, Math.max(0, currentTab - 1));
-                        }
-                    }
+                    closeTab(window, tabIndex);
                     activeContextMenus.remove(window);
                 })
         ));
@@ -852,27 +1144,152 @@ public class UI {
         activeContextMenus.put(window, tabContextMenu);
     }
 
-    private static void handleContextMenu(long window, double x, double y) {
-        ContextMenu menu = activeContextMenus.get(window);
-        if (menu == null || !menu.isVisible) return;
+    // Computes where every element goes. Drawing and click handling both use the result,
+    // which is rebuilt only when the geometry, window size, scale or scroll position changes.
+    private static SceneGraph.Layout updateLayout(long window, int width, int height, UIState state) {
+        List<TabInfo> tabs = windowTabs.getOrDefault(window, Collections.emptyList());
+        int activeTab = activeTabIndices.getOrDefault(window, 0);
+        int renamingTab = renamingTabs.getOrDefault(window, -1);
+        float scrollOffset = scrollOffsets.getOrDefault(window, 0.0f);
 
-        // Calculate which menu item was clicked
-        int itemIndex = (int) ((y - menu.y) / MENU_ITEM_HEIGHT);
+        SceneGraph.LayoutKey key = new SceneGraph.LayoutKey(getLayoutVersion(window), width, height,
+                state.scale, scrollOffset, activeTab, renamingTab);
+        SceneGraph.Layout cached = SceneGraph.getLayout(window);
+        if (cached != null && cached.key.equals(key)) {
+            return cached;
+        }
 
-        // Check if click is within menu bounds
-        if (x >= menu.x && x <= menu.x + MENU_WIDTH &&
-                itemIndex >= 0 && itemIndex < menu.items.size()) {
-            // Execute the selected menu item's action
-            menu.items.get(itemIndex).action.run();
-        } else {
-            // Click outside menu, close the menu
-            activeContextMenus.remove(window);
+        SceneGraph.Builder builder = SceneGraph.begin(window, key);
+
+        // Tabs
+        float x = TAB_PADDING;
+        for (int i = 0; i < tabs.size(); i++) {
+            boolean isRenaming = renamingTab == i;
+            String displayText = isRenaming ? "Tab Rename" : tabs.get(i).name;
+            float tabWidth = getTextWidth(displayText, state.scale) + 40;  // Add padding
+
+            builder.add(SceneGraph.NodeKind.TAB, i, null, x, 2, tabWidth, TAB_HEIGHT - 4, TAB_LAYER_Z);
+            if (i > 0 && !isRenaming) {
+                builder.add(SceneGraph.NodeKind.TAB_CLOSE, i, null, x + tabWidth - 25, 8, 14, 14, TAB_LAYER_Z + 1);
+            }
+            x += tabWidth + 5;
+        }
+        if (tabs.size() < 10) {
+            builder.add(SceneGraph.NodeKind.NEW_TAB, 0, null, x, 2, NEW_TAB_BUTTON_WIDTH, 26, TAB_LAYER_Z);
+        }
+        builder.add(SceneGraph.NodeKind.DARK_MODE, 0, null,
+                width - DARK_MODE_BUTTON_WIDTH - DARK_MODE_BUTTON_PADDING, 5,
+                DARK_MODE_BUTTON_WIDTH, DARK_MODE_BUTTON_HEIGHT, TAB_LAYER_Z);
+
+        // Bubbles of the active tab, later ones on top like they are drawn
+        if (activeTab < tabs.size()) {
+            Map<TextBubble, AnimationState> animations = bubbleAnimations.get(window);
+            List<TextBubble> bubbles = tabs.get(activeTab).bubbles;
+
+            for (int i = 0; i < bubbles.size(); i++) {
+                TextBubble bubble = bubbles.get(i);
+                // Get current position (either animated or static)
+                float bubbleX = bubble.x;
+                float bubbleY = bubble.y - scrollOffset;
+
+                if (animations != null) {
+                    AnimationState anim = animations.get(bubble);
+                    if (anim != null && anim.isAnimating) {
+                        bubbleX = anim.getCurrentX();
+                        bubbleY = anim.getCurrentY() - scrollOffset;
+                        // Keeps the layout from being reused while the bubble moves
+                        markLayoutChanged(window);
+
+                        // Update bubble position when animation completes
+                        if (!anim.isAnimating) {
+                            bubble.x = anim.targetX;
+                            bubble.y = anim.targetY;
+                            animations.remove(bubble);
+                        }
+                    }
+                }
+
+                // Skip if outside visible area
+                if (bubbleY + getTextHeight(state.scale) < TAB_HEIGHT || bubbleY > height - CONTENT_BOTTOM_MARGIN) {
+                    continue;
+                }
+
+                float textWidth = getTextWidth(bubble.text, bubble.scale * state.scale);
+                float timestampWidth = getTextWidth(bubble.timestamp, bubble.scale * 0.8f * state.scale);
+                float bubbleWidth = Math.max(textWidth, timestampWidth) + 40 * state.scale;
+                float bubbleHeight = getTextHeight(bubble.scale * state.scale) + 25 * state.scale;
+                builder.add(SceneGraph.NodeKind.BUBBLE, 0, bubble,
+                        bubbleX, bubbleY, bubbleWidth, bubbleHeight, BUBBLE_LAYER_Z + i);
+            }
+        }
+
+        // Input area
+        float scaledHeight = TEXT_BOX_HEIGHT * state.scale;
+        float scaledPadding = 10 * state.scale;
+        float inputY = height - scaledHeight - scaledPadding;
+        float textBoxWidth = TEXT_BOX_WIDTH * state.scale;
+        float buttonWidth = BUTTON_WIDTH * state.scale;
+        float sendButtonX = TEXT_BOX_X * state.scale + textBoxWidth + scaledPadding;
+        float sessionButtonX = sendButtonX + buttonWidth + scaledPadding;
+
+        builder.add(SceneGraph.NodeKind.INPUT_BOX, 0, null,
+                TEXT_BOX_X * state.scale, inputY, textBoxWidth, scaledHeight, INPUT_LAYER_Z);
+        builder.add(SceneGraph.NodeKind.SEND_BUTTON, 0, null,
+                sendButtonX, inputY, buttonWidth, scaledHeight, INPUT_LAYER_Z);
+        builder.add(SceneGraph.NodeKind.SESSION_BUTTON, 0, null,
+                sessionButtonX, inputY, SESSION_BUTTON_WIDTH * state.scale, scaledHeight, INPUT_LAYER_Z);
+
+        return SceneGraph.commit(builder);
+    }
+
+    // Called by InputSystem when a scene node is clicked
+    static void handleNodeClick(long window, SceneGraph.Node node, double x, double y, int button) {
+        try {
+            UIState state = windowStates.get(window);
+            List<TabInfo> tabs = windowTabs.get(window);
+            if (state == null || tabs == null) return;
+
+            if (button == GLFW_MOUSE_BUTTON_RIGHT) {
+                if (node.kind == SceneGraph.NodeKind.TAB && node.index < tabs.size()) {
+                    showTabContextMenu(window, (float) x, (float) y, tabs.get(node.index), node.index);
+                } else if (node.kind == SceneGraph.NodeKind.BUBBLE) {
+                    showContextMenu(window, (float) x, (float) y, node.bubble);
+                }
+                return;
+            }
+            if (button != GLFW_MOUSE_BUTTON_LEFT) return;
+
+            switch (node.kind) {
+                case TAB -> {
+                    if (node.index < tabs.size()) {
+                        setActiveTab(window, node.index);
+                    }
+                }
+                case TAB_CLOSE -> closeTab(window, node.index);
+                case NEW_TAB -> {
+                    if (tabs.size() < 10) {
+                        TabInfo newTab = new TabInfo("Tab " + (tabs.size() + 1));
+                        tabs.add(newTab);
+                        setActiveTab(window, tabs.size() - 1);
+                        SessionJournal.tabCreated(window, newTab.name);
+                    }
+                }
+                case DARK_MODE -> state.toggleDarkMode();
+                case BUBBLE -> startDragging(window, node.bubble, x, y);
+                // Calculate cursor position based on click position
+                case INPUT_BOX -> updateCursorPosition(window, x - node.x - 10 * state.scale);
+                case SEND_BUTTON -> handleEnterPressed(window);
+                case SESSION_BUTTON -> showSessionManagementMenu(window, node.x, node.y - 200 * state.scale);
+            }
+        } catch (Exception e) {
+            System.err.println("Error handling click: " + e.getMessage());
+            e.printStackTrace();
         }
     }
 
 
     // Drawing methods
-    private static void drawTabs(long window, int width, int height) {
+    private static void drawTabs(long window, int width, SceneGraph.Layout layout) {
         UIState state = windowStates.get(window);
         List<TabInfo> tabs = windowTabs.get(window);
         int activeTab = activeTabIndices.getOrDefault(window, 0);
@@ -880,9 +1297,6 @@ public class UI {
 
         if (state == null || tabs == null) return;
 
-        float x = TAB_PADDING;
-        float y = 0;
-
         // Draw tab bar background
         Color tabBarColor = state.isDarkMode ?
                 new Color(0.18f, 0.18f, 0.18f, 1.0f) :
@@ -890,15 +1304,12 @@ public class UI {
         drawRect(0, 0, width, TAB_HEIGHT, tabBarColor);
 
         // Draw tabs
-        for (int i = 0; i < tabs.size(); i++) {
-            TabInfo tab = tabs.get(i);
-            boolean isActive = i == activeTab;
-            boolean isRenaming = renamingTabIndex != null && renamingTabIndex == i;
-
-            // Get precise text width for the current tab name
+        for (SceneGraph.Node node : layout.tabs) {
+            if (node.index >= tabs.size()) continue;
+            TabInfo tab = tabs.get(node.index);
+            boolean isActive = node.index == activeTab;
+            boolean isRenaming = renamingTabIndex != null && renamingTabIndex == node.index;
             String displayText = isRenaming ? "Tab Rename" : tab.name;
-            float textWidth = getTextWidth(displayText, state.scale);
-            float tabWidth = textWidth + 40;  // Add padding
 
             // Determine tab color
             Color tabColor = isActive ?
@@ -911,48 +1322,44 @@ public class UI {
                     );
 
             // Draw tab background
-            drawRoundedRect(x, y + 2, tabWidth, TAB_HEIGHT - 4, DEFAULT_CORNER_RADIUS, tabColor);
+            drawRoundedRect(node.x, node.y, node.width, node.height, DEFAULT_CORNER_RADIUS, tabColor);
 
             // Draw tab text
-            drawText(x + 20, y + (TAB_HEIGHT - getTextHeight(state.scale)) / 2,
+            drawText(node.x + 20, (TAB_HEIGHT - getTextHeight(state.scale)) / 2,
                     displayText, state.scale, state.textColor);
+        }
 
-            // Draw close button for non-main tabs
-            if (i > 0 && !isRenaming) {
-                float closeX = x + tabWidth - 25;
-                float closeY = y + 8;
-                drawCloseButton(closeX, closeY, state.textColor);
-            }
-
-            x += tabWidth + 5;
+        // Draw close buttons for non-main tabs
+        for (SceneGraph.Node node : layout.tabCloseButtons) {
+            drawCloseButton(node.x, node.y, state.textColor);
         }
 
         // Draw new tab button if there's room
-        if (tabs.size() < 10) {
-            drawNewTabButton(x, y + 2, state);
+        if (layout.newTabButton != null) {
+            drawNewTabButton(layout.newTabButton.x, layout.newTabButton.y, state);
         }
 
         // Draw dark mode toggle button
-        float buttonX = width - DARK_MODE_BUTTON_WIDTH - DARK_MODE_BUTTON_PADDING;
-        float buttonY = 5;
+        SceneGraph.Node button = layout.darkModeButton;
+        if (button == null) return;
 
         Color buttonColor = state.isDarkMode ?
                 new Color(0.25f, 0.25f, 0.25f, 1.0f) :
                 new Color(0.7f, 0.7f, 0.7f, 1.0f);
 
         drawRoundedRect(
-                buttonX,
-                buttonY,
-                DARK_MODE_BUTTON_WIDTH,
-                DARK_MODE_BUTTON_HEIGHT,
+                button.x,
+                button.y,
+                button.width,
+                button.height,
                 5.0f,
                 buttonColor
         );
 
         // Draw the dark mode toggle text
         drawText(
-                buttonX + 5,
-                buttonY + 3,
+                button.x + 5,
+                button.y + 3,
                 state.isDarkMode ? "D" : "L",
                 1.0f,
                 state.textColor
@@ -961,56 +1368,23 @@ public class UI {
 
 
 
-    private static void drawMessages(long window, int width, int height) {
+    private static void drawMessages(long window, SceneGraph.Layout layout) {
         UIState state = windowStates.get(window);
-        List<TabInfo> tabs = windowTabs.get(window);
-        int activeTab = activeTabIndices.getOrDefault(window, 0);
-        float scrollOffset = scrollOffsets.getOrDefault(window, 0.0f);
-
-        if (state == null || tabs == null || activeTab >= tabs.size()) return;
-
-        TabInfo tab = tabs.get(activeTab);
-        Map<TextBubble, AnimationState> animations = bubbleAnimations.get(window);
-
-        for (TextBubble bubble : tab.bubbles) {
-            // Get current position (either animated or static)
-            float x = bubble.x;
-            float y = bubble.y - scrollOffset;
-
-            if (animations != null) {
-                AnimationState anim = animations.get(bubble);
-                if (anim != null && anim.isAnimating) {
-                    x = anim.getCurrentX();
-                    y = anim.getCurrentY() - scrollOffset;
-
-                    // Update bubble position when animation completes
-                    if (!anim.isAnimating) {
-                        bubble.x = anim.targetX;
-                        bubble.y = anim.targetY;
-                        animations.remove(bubble);
-                    }
-                }
-            }
-
-            // Skip if outside visible area
-            if (y + getTextHeight(state.scale) < TAB_HEIGHT || y > height - CONTENT_BOTTOM_MARGIN) {
-                continue;
-            }
+        if (state == null) return;
 
-            // Draw the bubble at its current position
-            drawBubble(window, bubble, x, y, state);
+        for (SceneGraph.Node node : layout.bubbles) {
+            drawBubble(node.bubble, node, state);
         }
     }
 
 
-    private static void drawBubble(long window, TextBubble bubble, float x, float y, UIState state) {
+    private static void drawBubble(TextBubble bubble, SceneGraph.Node node, UIState state) {
         float dynamicScale = state.scale;
-
-        // Calculate dimensions with dynamic scale
-        float textWidth = getTextWidth(bubble.text, bubble.scale * dynamicScale);
+        float x = node.x;
+        float y = node.y;
+        float bubbleWidth = node.width;
+        float bubbleHeight = node.height;
         float timestampWidth = getTextWidth(bubble.timestamp, bubble.scale * 0.8f * dynamicScale);
-        float bubbleWidth = Math.max(textWidth, timestampWidth) + 40 * dynamicScale;
-        float bubbleHeight = getTextHeight(bubble.scale * dynamicScale) + 25 * dynamicScale;
 
         // Draw bubble background
         Color bubbleColor = new Color(bubble.colorR, bubble.colorG, bubble.colorB, bubble.colorA);
@@ -1041,56 +1415,59 @@ public class UI {
     }
 
 
-    private static void drawInputArea(long window, int width, int height) {
+    private static void drawInputArea(long window, SceneGraph.Layout layout) {
         UIState state = windowStates.get(window);
         StringBuilder input = inputBuffers.get(window);
         int cursorPos = cursorPositions.getOrDefault(window, 0);
 
-        if (state == null || input == null) return;
+        if (state == null || input == null || layout.inputBox == null) return;
 
         float dynamicScale = state.scale;
-        float scaledHeight = TEXT_BOX_HEIGHT * dynamicScale;
         float scaledPadding = 10 * dynamicScale;
-
-        // Calculate input Y position with dynamic scale
-        float inputY = height - scaledHeight - scaledPadding;
-        float textBoxWidth = TEXT_BOX_WIDTH * dynamicScale;
-        float buttonWidth = BUTTON_WIDTH * dynamicScale;
+        SceneGraph.Node textBox = layout.inputBox;
+        SceneGraph.Node sendButton = layout.sendButton;
+        SceneGraph.Node sessionButton = layout.sessionButton;
+        float inputY = textBox.y;
+        float scaledHeight = textBox.height;
 
         // Draw input box background
-        drawRoundedRect(TEXT_BOX_X * dynamicScale, inputY,
-                textBoxWidth, scaledHeight,
+        drawRoundedRect(textBox.x, inputY,
+                textBox.width, scaledHeight,
                 DEFAULT_CORNER_RADIUS * dynamicScale, state.primaryColor);
 
         // Draw input text with dynamic scale
         String text = input.toString();
-        drawText(TEXT_BOX_X * dynamicScale + scaledPadding,
+        drawText(textBox.x + scaledPadding,
                 inputY + scaledPadding,
                 text, dynamicScale, state.textColor);
 
         // Draw cursor with dynamic scale
         if ((System.currentTimeMillis() / 500) % 2 == 0) {
-            float cursorX = TEXT_BOX_X * dynamicScale + scaledPadding +
+            float cursorX = textBox.x + scaledPadding +
                     getTextWidth(text.substring(0, cursorPos), dynamicScale);
             drawRect(cursorX, inputY + scaledPadding,
                     2 * dynamicScale, scaledHeight - 2 * scaledPadding,
                     state.textColor);
         }
 
+        KeyMode mode = getKeyMode(window);
+        if (mode == KeyMode.NORMAL || mode == KeyMode.BUBBLE_EDIT) {
+            drawKeywordSuggestions(window, state, textBox, text, cursorPos);
+        }
+
         // Draw send button with dynamic scale
-        float sendButtonX = TEXT_BOX_X * dynamicScale + textBoxWidth + scaledPadding;
-        drawRoundedRect(sendButtonX, inputY,
-                buttonWidth, scaledHeight,
+        drawRoundedRect(sendButton.x, inputY,
+                sendButton.width, scaledHeight,
                 DEFAULT_CORNER_RADIUS * dynamicScale, state.accentColor);
 
         // Draw send text
-        drawText(sendButtonX + (buttonWidth - getTextWidth("Send", dynamicScale)) / 2,
+        drawText(sendButton.x + (sendButton.width - getTextWidth("Send", dynamicScale)) / 2,
                 inputY + (scaledHeight - getTextHeight(dynamicScale)) / 2,
                 "Send", dynamicScale, state.textColor);
 
         // Draw session button with dynamic scale
-        float sessionButtonX = sendButtonX + buttonWidth + scaledPadding;
-        float sessionButtonWidth = 40.0f * dynamicScale;
+        float sessionButtonX = sessionButton.x;
+        float sessionButtonWidth = sessionButton.width;
         drawRoundedRect(sessionButtonX, inputY,
                 sessionButtonWidth, scaledHeight,
                 DEFAULT_CORNER_RADIUS * dynamicScale, state.accentColor);
@@ -1109,8 +1486,83 @@ public class UI {
         }
     }
 
+    // Popup above the input box, aligned with the word being completed
+    private static void drawKeywordSuggestions(long window, UIState state, SceneGraph.Node textBox,
+                                               String text, int cursorPos) {
+        KeywordAutocomplete.Completion completion = KeywordAutocomplete.find(window, text, cursorPos);
+        if (completion == null) return;
+
+        float dynamicScale = state.scale;
+        float textScale = dynamicScale * 0.8f;
+        float padding = 6 * dynamicScale;
+        float rowHeight = getTextHeight(textScale) + padding;
+        List<KeywordTrie.Suggestion> suggestions = completion.suggestions();
+
+        String[] labels = new String[suggestions.size()];
+        float popupWidth = 0;
+        for (int i = 0; i < labels.length; i++) {
+            KeywordTrie.Suggestion suggestion = suggestions.get(i);
+            String label = suggestion.name();
+            if (suggestion.detail() != null && !suggestion.detail().isEmpty()) {
+                String detail = suggestion.detail();
+                if (detail.length() > 24) {
+                    detail = detail.substring(0, 21) + "...";
+                }
+                label += "  " + detail;
+            }
+            labels[i] = label;
+            popupWidth = Math.max(popupWidth, getTextWidth(label, textScale));
+        }
+        popupWidth += 2 * padding;
+
+        float popupHeight = labels.length * rowHeight + padding;
+        float popupX = textBox.x + 10 * dynamicScale + getTextWidth(text.substring(0, completion.start()), dynamicScale);
+        popupX = Math.max(0, Math.min(popupX, textBox.x + textBox.width - popupWidth));
+        float popupY = textBox.y - popupHeight - 4 * dynamicScale;
+
+        drawRoundedRect(popupX, popupY, popupWidth, popupHeight,
+                DEFAULT_CORNER_RADIUS * dynamicScale, state.primaryColor);
+
+        int selected = KeywordAutocomplete.selectedIndex(window, completion);
+        for (int i = 0; i < labels.length; i++) {
+            float rowY = popupY + padding / 2 + i * rowHeight;
+            if (i == selected) {
+                drawRect(popupX + padding / 2, rowY, popupWidth - padding, rowHeight, state.accentColor);
+            }
+            drawText(popupX + padding, rowY + padding / 2, labels[i], textScale, state.textColor);
+        }
+    }
+
+    // Any thread; ignored once the window has closed
+    static void showToast(long window, String message) {
+        if (!windowStates.containsKey(window)) return;
+        toasts.put(window, new Toast(message, System.currentTimeMillis() + TOAST_DURATION));
+        markContentChanged(window);
+    }
+
+    private static void drawToast(long window, int width, UIState state) {
+        Toast toast = toasts.get(window);
+        if (toast == null) return;
+        if (System.currentTimeMillis() >= toast.expiresAt) {
+            toasts.remove(window, toast);
+            markContentChanged(window);
+            return;
+        }
+
+        float dynamicScale = state.scale;
+        float textScale = dynamicScale * 0.8f;
+        float padding = 8 * dynamicScale;
+        float toastWidth = getTextWidth(toast.message, textScale) + 2 * padding;
+        float toastHeight = getTextHeight(textScale) + 2 * padding;
+        float x = (width - toastWidth) / 2;
+        float y = TAB_HEIGHT + 10 * dynamicScale;
+
+        drawRoundedRect(x, y, toastWidth, toastHeight, DEFAULT_CORNER_RADIUS * dynamicScale, state.accentColor);
+        drawText(x + padding, y + padding, toast.message, textScale, state.textColor);
+    }
+
     // Helper drawing methods
-    private static void drawRect(float x, float y, float width, float height, Color color) {
+    static void drawRect(float x, float y, float width, float height, Color color) {
         glColor4f(color.getRed() / 255f, color.getGreen() / 255f,
                 color.getBlue() / 255f, color.getAlpha() / 255f);
         glBegin(GL_QUADS);
@@ -1163,7 +1615,7 @@ public class UI {
         glEnd();
     }
 
-    private static void drawText(float x, float y, String text, float scale, Color color) {
+    static void drawText(float x, float y, String text, float scale, Color color) {
         if (text == null || text.isEmpty()) return;
 
         text = Normalizer.normalize(text, Normalizer.Form.NFC);
@@ -1218,7 +1670,11 @@ public class UI {
     // Input handling callbacks
 
 
-    private static void handleCharCallback(long window, int codepoint) {
+    static void handleCharCallback(long window, int codepoint) {
+        InputRecorder.recordChar(window, codepoint);
+        LatencyTracker.onInput(window);
+        if (WindowSwitcher.isOpen(window)) return;
+        markContentChanged(window);
 
         // Existing character input handling for message input
         StringBuilder input = inputBuffers.get(window);
@@ -1229,34 +1685,6 @@ public class UI {
         cursorPositions.put(window, cursorPos + 1);
     }
 
-    private static void handleRightClick(long window, double x, double y) {
-        // Check tabs first
-        if (y < TAB_HEIGHT) {
-            List<TabInfo> tabs = windowTabs.get(window);
-            if (tabs != null) {
-                float currentX = TAB_PADDING;
-                for (int i = 0; i < tabs.size(); i++) {
-                    TabInfo tab = tabs.get(i);
-                    float tabWidth = getTextWidth(tab.name, 1.0f) + 40;
-
-                    if (x >= currentX && x <= currentX + tabWidth) {
-                        // Right-click on a tab
-                        showTabContextMenu(window, (float)x, (float)y, tab, i);
-                        return;
-                    }
-
-                    currentX += tabWidth + 5;
-                }
-            }
-        }
-
-        // Then check bubbles
-        TextBubble bubble = findBubbleAtPosition(window, x, y);
-        if (bubble != null) {
-            showContextMenu(window, (float)x, (float)y, bubble);
-        }
-    }
-
     static class ContextMenu {
         float x, y;
         TextBubble targetBubble;
@@ -1308,6 +1736,7 @@ public class UI {
                 bubble.colorG = g;
                 bubble.colorB = b;
                 bubble.colorA = 0.9f;
+                SessionJournal.bubbleRestyled(window, bubble);
                 activeContextMenus.remove(window);
             }));
         }
@@ -1338,18 +1767,22 @@ public class UI {
         List<MenuItem> styleItems = Arrays.asList(
                 new MenuItem("Rectangle", () -> {
                     bubble.style = TextBubble.BubbleStyle.RECTANGLE;
+                    SessionJournal.bubbleRestyled(window, bubble);
                     activeContextMenus.remove(window);
                 }),
                 new MenuItem("Rounded", () -> {
                     bubble.style = TextBubble.BubbleStyle.ROUNDED;
+                    SessionJournal.bubbleRestyled(window, bubble);
                     activeContextMenus.remove(window);
                 }),
                 new MenuItem(bubble.isBold ? "Disable Bold" : "Enable Bold", () -> {
                     bubble.isBold = !bubble.isBold;
+                    SessionJournal.bubbleRestyled(window, bubble);
                     activeContextMenus.remove(window);
                 }),
                 new MenuItem(bubble.isItalic ? "Disable Italic" : "Enable Italic", () -> {
                     bubble.isItalic = !bubble.isItalic;
+                    SessionJournal.bubbleRestyled(window, bubble);
                     activeContextMenus.remove(window);
                 })
         );
@@ -1374,26 +1807,7 @@ public class UI {
 
     private static void showContextMenu(long window, float x, float y, TextBubble bubble) {
         List<MenuItem> bubbleMenuItems = new ArrayList<>(Arrays.asList(
-                new MenuItem("Edit", () -> {
-                    // Start editing the bubble
-                    bubble.isEditing = true;
-
-                    // Get the current active tab
-                    List<TabInfo> tabs = windowTabs.get(window);
-                    int currentTab = activeTabIndices.getOrDefault(window, 0);
-
-                    if (tabs != null && currentTab < tabs.size()) {
-                        // Prepare input for editing
-                        StringBuilder input = inputBuffers.get(window);
-                        if (input != null) {
-                            input.setLength(0);
-                            input.append(bubble.text);
-                            cursorPositions.put(window, input.length());
-                        }
-                    }
-
-                    activeContextMenus.remove(window);
-                }),
+                new MenuItem("Edit", () -> startEditing(window, bubble)),
                 new MenuItem("Style", () -> {
                     // Open style submenu
                     showStyleMenu(window, x, y + MENU_ITEM_HEIGHT, bubble);
@@ -1402,18 +1816,22 @@ public class UI {
                     // Open color submenu
                     showColorMenu(window, x, y + MENU_ITEM_HEIGHT, bubble);
                 }),
-                new MenuItem("Delete", () -> {
-                    // Delete the bubble from its tab
-                    List<TabInfo> tabs = windowTabs.get(window);
-                    int currentTab = activeTabIndices.getOrDefault(window, 0);
-                    if (tabs != null && currentTab < tabs.size()) {
-                        TabInfo activeTab = tabs.get(currentTab);
-                        activeTab.bubbles.remove(bubble);
-                    }
-                    activeContextMenus.remove(window);
-                })
+                new MenuItem("Delete", () -> deleteBubble(window, bubble))
         ));
 
+        // Bubbles sent with keywords can follow the values as they change
+        if (bubble.template != null) {
+            bubbleMenuItems.add(new MenuItem(bubble.live ? "Freeze" : "Live", () -> {
+                if (bubble.live) {
+                    LiveBubbles.unbind(bubble);
+                } else {
+                    LiveBubbles.bind(window, bubble);
+                }
+                SessionJournal.bubbleEdited(window, bubble);
+                activeContextMenus.remove(window);
+            }));
+        }
+
         // Adjust menu position to ensure it's within window bounds
         int[] width = new int[1];
         int[] height = new int[1];
@@ -1441,11 +1859,16 @@ public class UI {
 
     private static void startEditing(long window, TextBubble bubble) {
         if (bubble != null) {
-            editingBubbles.put(window, bubble);
+            TextBubble previous = editingBubbles.put(window, bubble);
+            if (previous != null) {
+                previous.isEditing = false;
+            }
+            bubble.isEditing = true;
             StringBuilder input = inputBuffers.get(window);
             if (input != null) {
                 input.setLength(0);
-                input.append(bubble.text);
+                // Live bubbles are edited as their template
+                input.append(bubble.live ? bubble.template : bubble.text);
                 cursorPositions.put(window, input.length());
             }
         }
@@ -1458,9 +1881,17 @@ public class UI {
         if (tabs != null && currentTab < tabs.size()) {
             TabInfo activeTab = tabs.get(currentTab);
             if (activeTab.bubbles != null) {
+                SessionJournal.bubbleDeleted(window, bubble);
                 activeTab.bubbles.remove(bubble);
+                markLayoutChanged(window);
             }
         }
+        if (bubble.live) {
+            LiveBubbles.unbind(bubble);
+        }
+        if (editingBubbles.get(window) == bubble) {
+            stopEditing(window, inputBuffers.computeIfAbsent(window, k -> new StringBuilder()));
+        }
         activeContextMenus.remove(window);
     }
 
@@ -1600,75 +2031,86 @@ public class UI {
         private static boolean isMouseOverMenuItem(long window, float menuX, float itemY, float width, float height) {
         double[] xpos = new double[1];
         double[] ypos = new double[1];
-        glfwGetCursorPos(window, xpos, ypos);
+        InputReplayer.getCursorPos(window, xpos, ypos);
 
         return xpos[0] >= menuX && xpos[0] <= menuX + width &&
                 ypos[0] >= itemY && ypos[0] <= itemY + height;
     }
 
-    private static void handleMouseButtonCallback(long window, int button, int action, int mods) {
+    static void handleMouseButtonCallback(long window, int button, int action, int mods) {
+        if (action == GLFW_PRESS || action == GLFW_RELEASE) {
+            double[] cursorX = new double[1];
+            double[] cursorY = new double[1];
+            InputReplayer.getCursorPos(window, cursorX, cursorY);
+            InputRecorder.recordMouseButton(window, button, action, mods, cursorX[0], cursorY[0]);
+            LatencyTracker.onInput(window);
+        }
+        markContentChanged(window);
         if (action == GLFW_PRESS) {
             double[] xpos = new double[1];
             double[] ypos = new double[1];
-            glfwGetCursorPos(window, xpos, ypos);
-
-            if (button == GLFW_MOUSE_BUTTON_LEFT) {
-                // First check if there's an active menu
-                if (activeContextMenus.containsKey(window)) {
-                    System.out.println("Menu is active, handling menu click");
-                    handleContextMenuClick(window, xpos[0], ypos[0]);
-                    return;
-                }
-
-                // Get window dimensions
-                int[] width = new int[1];
-                int[] height = new int[1];
-                glfwGetWindowSize(window, width, height);
-
-                float inputY = height[0] - TEXT_BOX_HEIGHT - 10;
-                float sendButtonX = TEXT_BOX_X + TEXT_BOX_WIDTH + 10;
-                float sessionButtonX = sendButtonX + BUTTON_WIDTH + SESSION_BUTTON_PADDING;
+            InputReplayer.getCursorPos(window, xpos, ypos);
 
-                // Check session button click
-                if (xpos[0] >= sessionButtonX &&
-                        xpos[0] <= sessionButtonX + SESSION_BUTTON_WIDTH &&
-                        ypos[0] >= inputY &&
-                        ypos[0] <= inputY + BUTTON_HEIGHT) {
-
-                    System.out.println("Session button clicked!");
-                    showSessionManagementMenu(window, sessionButtonX, inputY - 200);
-                    return;
-                }
+            // Overlays are drawn above the scene and take the click first
+            if (WindowSwitcher.handleClick(window, xpos[0], ypos[0])) return;
 
-                // Handle other clicks
-                handleLeftClick(window, xpos[0], ypos[0]);
-            } else if (button == GLFW_MOUSE_BUTTON_RIGHT) {
-                // Handle right-click menu if needed
-                handleRightClick(window, xpos[0], ypos[0]);
+            if (button == GLFW_MOUSE_BUTTON_LEFT && activeContextMenus.containsKey(window)) {
+                handleContextMenuClick(window, xpos[0], ypos[0]);
+                return;
             }
         } else if (action == GLFW_RELEASE) {
-            dragStates.remove(window);
+            DragState finished = dragStates.remove(window);
+            if (finished != null) {
+                SessionJournal.bubbleMoved(window, finished.bubble);
+            }
         }
+
+        // Scene elements are hit-tested against the layout's click zones
+        InputSystem.handleMouseButton(window, button, action, mods);
     }
 
-    private static void handleCursorPosCallback(long window, double xpos, double ypos) {
+    static void handleCursorPosCallback(long window, double xpos, double ypos) {
+        InputRecorder.recordCursorPos(window, xpos, ypos);
+        InputSystem.handleMouseMove(window, xpos, ypos);
+
         DragState dragState = dragStates.get(window);
+        if (dragState != null) {
+            markLayoutChanged(window);
+        } else if (activeContextMenus.containsKey(window)) {
+            markContentChanged(window);
+        }
         if (dragState != null) {
             dragState.bubble.x = (float) (xpos - dragState.offsetX);
             dragState.bubble.y = (float) (ypos - dragState.offsetY);
         }
     }
 
-    private static void handleScrollCallback(long window, double xoffset, double yoffset) {
+    static void handleScrollCallback(long window, double xoffset, double yoffset) {
+        InputRecorder.recordScroll(window, xoffset, yoffset);
+        markContentChanged(window);
         float currentOffset = scrollOffsets.getOrDefault(window, 0.0f);
         float newOffset = currentOffset - (float)yoffset * SCROLL_SPEED;
         newOffset = Math.max(0, newOffset);
         scrollOffsets.put(window, newOffset);
     }
 
-    private static void handleWindowSizeCallback(long window, int width, int height) {
+    static void handleWindowSizeCallback(long window, int width, int height) {
+        InputRecorder.recordWindowSize(window, width, height);
+        markContentChanged(window);
         // Adjust UI elements based on new window size
         repositionElements(window, width, height);
+
+        int[] x = new int[1];
+        int[] y = new int[1];
+        glfwGetWindowPos(window, x, y);
+        WindowPositionManager.setWindowBounds(window, x[0], y[0], width, height);
+    }
+
+    private static void handleWindowPosCallback(long window, int x, int y) {
+        int[] width = new int[1];
+        int[] height = new int[1];
+        glfwGetWindowSize(window, width, height);
+        WindowPositionManager.setWindowBounds(window, x, y, width[0], height[0]);
     }
 
     private static void handleSendButtonClick(long window) {
@@ -1693,7 +2135,7 @@ public class UI {
             if (input != null && !input.toString().trim().isEmpty() && sessionBeingRenamed != null) {
                 String newName = input.toString().trim();
                 System.out.println("Renaming session from " + sessionBeingRenamed + " to " + newName);
-                SessionManager.renameSession(sessionBeingRenamed, newName);
+                SessionManager.renameSession(window, sessionBeingRenamed, newName);
                 sessionBeingRenamed = null;
                 input.setLength(0);
                 currentInputMode = InputMode.NORMAL;
@@ -1704,150 +2146,6 @@ public class UI {
         }
     }
 
-    // Mouse click handlers
-    private static void handleLeftClick(long windowHandle, double x, double y) {
-        try {
-            // Get window dimensions and calculate scale
-            int[] width = new int[1];
-            int[] height = new int[1];
-            glfwGetWindowSize(windowHandle, width, height);
-
-            UIState state = windowStates.get(windowHandle);
-            if (state == null) return;
-
-            float dynamicScale = calculateDynamicScale(width[0], height[0]);
-            float scaledPadding = 10 * dynamicScale;
-
-            // Calculate scaled positions
-            float inputY = height[0] - (TEXT_BOX_HEIGHT * dynamicScale) - scaledPadding;
-            float textBoxWidth = TEXT_BOX_WIDTH * dynamicScale;
-            float buttonWidth = BUTTON_WIDTH * dynamicScale;
-            float sessionButtonWidth = 40.0f * dynamicScale;
-
-            // Handle dark mode button
-            float buttonX = width[0] - (DARK_MODE_BUTTON_WIDTH * dynamicScale) - (DARK_MODE_BUTTON_PADDING * dynamicScale);
-            float buttonY = 5 * dynamicScale;
-            if (x >= buttonX && x <= buttonX + (DARK_MODE_BUTTON_WIDTH * dynamicScale) &&
-                    y >= buttonY && y <= buttonY + (DARK_MODE_BUTTON_HEIGHT * dynamicScale)) {
-                if (state != null) {
-                    state.toggleDarkMode();
-                }
-                return;
-            }
-
-            // Handle session button click
-            float sendButtonX = (TEXT_BOX_X * dynamicScale) + textBoxWidth + scaledPadding;
-            float sessionButtonX = sendButtonX + buttonWidth + scaledPadding;
-            if (x >= sessionButtonX && x <= sessionButtonX + sessionButtonWidth &&
-                    y >= inputY && y <= inputY + (TEXT_BOX_HEIGHT * dynamicScale)) {
-                System.out.println("Session button clicked!");
-                showSessionManagementMenu(windowHandle, sessionButtonX, inputY - 200 * dynamicScale);
-                return;
-            }
-
-            // Handle input area clicks
-            if (y >= inputY && y <= inputY + (TEXT_BOX_HEIGHT * dynamicScale)) {
-                float scaledTextBoxX = TEXT_BOX_X * dynamicScale;
-                if (x >= scaledTextBoxX && x <= scaledTextBoxX + textBoxWidth) {
-                    // Calculate cursor position based on click position
-                    updateCursorPosition(windowHandle, x - scaledTextBoxX - scaledPadding);
-                } else if (x >= sendButtonX && x <= sendButtonX + buttonWidth) {
-                    handleEnterPressed(windowHandle);
-                }
-                return;
-            }
-
-            // Handle tab clicks
-            float scaledTabHeight = TAB_HEIGHT * dynamicScale;
-            if (y < scaledTabHeight) {
-                handleScaledTabClick(windowHandle, x, y, dynamicScale);
-                return;
-            }
-
-            // Handle bubble clicks
-            TextBubble bubble = findScaledBubbleAtPosition(windowHandle, x, y, dynamicScale);
-            if (bubble != null) {
-                startDragging(windowHandle, bubble, x, y);
-            }
-        } catch (Exception e) {
-            System.err.println("Error in handleLeftClick: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-
-    private static TextBubble findScaledBubbleAtPosition(long window, double x, double y, float scale) {
-        List<TabInfo> tabs = windowTabs.get(window);
-        int activeTab = activeTabIndices.getOrDefault(window, 0);
-        float scrollOffset = scrollOffsets.getOrDefault(window, 0.0f);
-
-        if (tabs == null || activeTab >= tabs.size()) return null;
-
-        TabInfo tab = tabs.get(activeTab);
-        float currentY = (TAB_HEIGHT * scale) + (10 * scale) - scrollOffset;
-
-        for (TextBubble bubble : tab.bubbles) {
-            float textWidth = getTextWidth(bubble.text, bubble.scale * scale) + (40 * scale);
-            float timestampWidth = getTextWidth(bubble.timestamp, bubble.scale * 0.8f * scale);
-            float bubbleWidth = Math.max(textWidth, timestampWidth) + (40 * scale);
-            float bubbleHeight = getTextHeight(bubble.scale * scale) + (25 * scale);
-
-            if (x >= (10 * scale) && x <= (10 * scale) + bubbleWidth &&
-                    y >= currentY && y <= currentY + bubbleHeight) {
-                return bubble;
-            }
-
-            currentY += bubbleHeight + (BUBBLE_SPACING * scale);
-        }
-
-        return null;
-    }
-
-
-    private static void handleScaledTabClick(long window, double x, double y, float scale) {
-        List<TabInfo> tabs = windowTabs.get(window);
-        if (tabs == null) return;
-
-        float currentX = TAB_PADDING * scale;
-        for (int i = 0; i < tabs.size(); i++) {
-            TabInfo tab = tabs.get(i);
-            float tabWidth = (getTextWidth(tab.name, 1.0f) + 40) * scale;
-
-            if (x >= currentX && x <= currentX + tabWidth) {
-                // Check close button for non-main tabs
-                if (i > 0) {
-                    float closeX = currentX + tabWidth - (25 * scale);
-                    float closeY = 5 * scale;
-                    float closeSize = 14 * scale;
-
-                    if (x >= closeX && x <= closeX + closeSize &&
-                            y >= closeY && y <= closeY + closeSize) {
-                        tabs.remove(i);
-                        int currentTab = activeTabIndices.getOrDefault(window, 0);
-                        if (currentTab >= i) {
-                            activeTabIndices.put(window, Math.max(0, currentTab - 1));
-                        }
-                        return;
-                    }
-                }
-                activeTabIndices.put(window, i);
-                return;
-            }
-            currentX += tabWidth + (5 * scale);
-        }
-
-        // Check new tab button
-        float newTabButtonWidth = NEW_TAB_BUTTON_WIDTH * scale;
-        if (tabs.size() < 10 &&
-                x >= currentX && x <= currentX + newTabButtonWidth &&
-                y >= 2 * scale && y <= (TAB_HEIGHT - 2) * scale) {
-            tabs.add(new TabInfo("Tab " + (tabs.size() + 1)));
-            activeTabIndices.put(window, tabs.size() - 1);
-        }
-    }
-
-
-
     //SessionManager INIT
 
     static class SessionManagementMenu extends ContextMenu {
@@ -2001,7 +2299,7 @@ public class UI {
                 List<MenuItem> actionItems = Arrays.asList(
                         new MenuItem("Load", () -> {
                             System.out.println("Loading session: " + sessionName);
-                            SessionManager.WindowSession session = SessionManager.loadSession(sessionName);
+                            SessionManager.WindowSession session = SessionManager.loadSessionLazily(sessionName, 0);
                             if (session != null) {
                                 loadSessionIntoWindow(window, session);
                             }
@@ -2021,7 +2319,7 @@ public class UI {
                         }),
                         new MenuItem("Delete", () -> {
                             System.out.println("Deleting session: " + sessionName);
-                            SessionManager.deleteSession(sessionName);
+                            SessionManager.deleteSession(window, sessionName);
                             activeContextMenus.remove(window);
                         })
                 );
@@ -2046,7 +2344,7 @@ public class UI {
         List<MenuItem> actionItems = Arrays.asList(
                 new MenuItem("Load", () -> {
                     System.out.println("Loading session: " + sessionName);
-                    SessionManager.WindowSession session = SessionManager.loadSession(sessionName);
+                    SessionManager.WindowSession session = SessionManager.loadSessionLazily(sessionName, 0);
                     if (session != null) {
                         loadSessionIntoWindow(window, session);
                         System.out.println("Session loaded with " + session.tabs.size() + " tabs");
@@ -2067,7 +2365,7 @@ public class UI {
                 }),
                 new MenuItem("Delete", () -> {
                     System.out.println("Deleting session: " + sessionName);
-                    SessionManager.deleteSession(sessionName);
+                    SessionManager.deleteSession(window, sessionName);
                     activeContextMenus.remove(window);
                 })
         );
@@ -2086,9 +2384,35 @@ public class UI {
             for (TabInfo tab : session.tabs) {
                 tabs.add(tab);
             }
+            LiveBubbles.unbindWindow(window);
             windowTabs.put(window, tabs);
-            activeTabIndices.put(window, 0);
+            setActiveTab(window, 0);
             scrollOffsets.put(window, 0.0f);
+            editingBubbles.remove(window);
+            markLayoutChanged(window);
+            SessionJournal.checkpoint(window);
+
+            // Saved live bubbles resume following their keywords, for tabs still in the session
+            // file once they are decoded
+            for (TabInfo tab : tabs) {
+                tab.whenLoaded(loaded -> {
+                    if (windowTabs.get(window) != tabs || !tabs.contains(loaded) || loaded.bubbles == null) return;
+                    for (TextBubble bubble : loaded.bubbles) {
+                        if (bubble.live) {
+                            LiveBubbles.bind(window, bubble);
+                        }
+                    }
+                    // closeTab may have looked at the bubbles before they were bound
+                    if (!tabs.contains(loaded)) {
+                        for (TextBubble bubble : loaded.bubbles) {
+                            if (bubble.live) {
+                                LiveBubbles.unbind(bubble);
+                            }
+                        }
+                    }
+                });
+            }
+            SessionManager.loadRemainingTabs(tabs);
 
             // Apply UI state
             UIState state = windowStates.get(window);
@@ -2104,6 +2428,24 @@ public class UI {
         }
     }
 
+    private static void ensureActiveTabLoaded(long window) {
+        List<TabInfo> tabs = windowTabs.get(window);
+        int activeTab = activeTabIndices.getOrDefault(window, 0);
+        if (tabs != null && activeTab < tabs.size()) {
+            tabs.get(activeTab).ensureLoaded();
+        }
+    }
+
+    // Used by workspace restore before the window's render thread starts
+    static void restoreWindowSession(long window, SessionManager.WindowSession session, int activeTab) {
+        if (session == null || session.tabs == null || session.tabs.isEmpty()) return;
+
+        loadSessionIntoWindow(window, session);
+        if (activeTab > 0 && activeTab < session.tabs.size()) {
+            setActiveTab(window, activeTab);
+        }
+    }
+
     private static void handleSessionKeyInput(long window, int key) {
         if (currentInputMode == InputMode.SAVING_SESSION) {
             if (key == GLFW_KEY_ENTER) {
@@ -2131,7 +2473,7 @@ public class UI {
                 StringBuilder input = inputBuffers.get(window);
                 if (input != null && !input.toString().trim().isEmpty() &&
                         sessionBeingRenamed != null) {
-                    SessionManager.renameSession(sessionBeingRenamed, input.toString().trim());
+                    SessionManager.renameSession(window, sessionBeingRenamed, input.toString().trim());
                     sessionBeingRenamed = null;
                     input.setLength(0);
                 }
@@ -2160,14 +2502,14 @@ public class UI {
                     activeContextMenus.remove(window);
                 }),
                 new MenuItem("Delete", () -> {
-                    deleteSession(sessionName);
+                    SessionManager.deleteSession(window, sessionName);
                     activeContextMenus.remove(window);
                 })
         );
 
         double[] xpos = new double[1];
         double[] ypos = new double[1];
-        glfwGetCursorPos(window, xpos, ypos);
+        InputReplayer.getCursorPos(window, xpos, ypos);
 
         ContextMenu actionsMenu = new ContextMenu(window, (float)xpos[0] + MENU_WIDTH, (float)ypos[0], null);
         actionsMenu.items = actionItems;
@@ -2196,47 +2538,10 @@ public class UI {
         sessionBeingRenamed = oldName;
     }
 
-    private static void handleSessionButtonClick(long window, float x, float y) {
-        // Get window dimensions
-        int[] width = new int[1];
-        int[] height = new int[1];
-        glfwGetWindowSize(window, width, height);
-
-        // Calculate button position
-        float buttonX = TEXT_BOX_X + TEXT_BOX_WIDTH + 10 + BUTTON_WIDTH + 10;
-        float inputY = height[0] - TEXT_BOX_HEIGHT - 10;
-
-        // Check if click is within button bounds
-        if (x >= buttonX && x <= buttonX + 40.0f &&
-                y >= inputY && y <= inputY + BUTTON_HEIGHT) {
-
-            // Show session menu above the button
-            float menuX = buttonX;
-            float menuY = inputY - 200; // Position menu above the button
-
-            showSessionManagementMenu(window, menuX, menuY);
-        }
-    }
-
     private static void loadWindowSession(long window, String sessionName) {
-        SessionManager.WindowSession session = SessionManager.loadSession(sessionName);
+        SessionManager.WindowSession session = SessionManager.loadSessionLazily(sessionName, 0);
         if (session != null && session.tabs != null) {
-            windowTabs.put(window, new ArrayList<>(session.tabs));
-            activeTabIndices.put(window, 0);
-            scrollOffsets.put(window, 0.0f);
-        }
-    }
-
-    private static void deleteSession(String sessionName) {
-        try {
-            Path sessionFile = Paths.get(
-                    WindowsClient.getWindowsClientConfigDir().getPath(),
-                    "sessions",
-                    sessionName + ".json"
-            );
-            Files.deleteIfExists(sessionFile);
-        } catch (IOException e) {
-            System.err.println("Failed to delete session: " + e.getMessage());
+            loadSessionIntoWindow(window, session);
         }
     }
 
@@ -2278,6 +2583,7 @@ public class UI {
             }
 
             // Process text with keyword processor
+            String template = text;
             try {
                 text = KeywordProcessor.processKeywords(text);
             } catch (Exception e) {
@@ -2306,6 +2612,9 @@ public class UI {
 
             // Create and position new bubble
             TextBubble bubble = new TextBubble(text, 1.0f);
+            if (!text.equals(template)) {
+                bubble.template = template;
+            }
             float yPos = TAB_HEIGHT + 10;
             if (!tab.bubbles.isEmpty()) {
                 TextBubble lastBubble = tab.bubbles.getLast();
@@ -2316,6 +2625,8 @@ public class UI {
 
             // Add bubble to tab
             tab.bubbles.add(bubble);
+            SessionJournal.bubbleAdded(windowHandle, activeTab, bubble);
+            markLayoutChanged(windowHandle);
 
             // Update message history
             List<String> history = messageHistory.computeIfAbsent(windowHandle, k -> new ArrayList<>());
@@ -2345,92 +2656,6 @@ public class UI {
     }
 
 
-    private static void handleTabClick(long windowHandle, double x, double y) {
-        try {
-            List<TabInfo> tabs = windowTabs.get(windowHandle);
-            if (tabs == null) return;
-
-            float currentX = TAB_PADDING;
-
-            // Cycle through tabs to find which one was clicked
-            for (int i = 0; i < tabs.size(); i++) {
-                TabInfo tab = tabs.get(i);
-                float tabWidth = getTextWidth(tab.name, 1.0f) + 40;
-
-                // Check if click is within tab area
-                if (x >= currentX && x <= currentX + tabWidth) {
-                    // Check close button for non-main tabs
-                    if (i > 0) {
-                        float closeX = currentX + tabWidth - 25;
-                        float closeY = 5;
-                        float closeSize = 14;
-
-                        // Check if click is within close button area
-                        if (x >= closeX && x <= closeX + closeSize &&
-                                y >= closeY && y <= closeY + closeSize) {
-                            // Remove the tab
-                            tabs.remove(i);
-
-                            // Adjust active tab index if necessary
-                            int currentTab = activeTabIndices.getOrDefault(windowHandle, 0);
-                            if (currentTab >= i) {
-                                activeTabIndices.put(windowHandle, Math.max(0, currentTab - 1));
-                            }
-                            return;
-                        }
-                    }
-
-                    // Set active tab if not already active
-                    activeTabIndices.put(windowHandle, i);
-                    return;
-                }
-
-                currentX += tabWidth + 5;
-            }
-
-            // Check new tab button
-            float newTabButtonX = currentX;
-            if (tabs.size() < 10 &&
-                    x >= newTabButtonX && x <= newTabButtonX + NEW_TAB_BUTTON_WIDTH &&
-                    y >= 2 && y <= TAB_HEIGHT - 2) {
-                tabs.add(new TabInfo("Tab " + (tabs.size() + 1)));
-                activeTabIndices.put(windowHandle, tabs.size() - 1);
-            }
-        } catch (Exception e) {
-            System.err.println("Error in handleTabClick: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private static TextBubble findBubbleAtPosition(long window, double x, double y) {
-        List<TabInfo> tabs = windowTabs.get(window);
-        int activeTab = activeTabIndices.getOrDefault(window, 0);
-        float scrollOffset = scrollOffsets.getOrDefault(window, 0.0f);
-
-        if (tabs == null || activeTab >= tabs.size()) return null;
-
-        TabInfo tab = tabs.get(activeTab);
-        float currentY = TAB_HEIGHT + 10 - scrollOffset;
-
-        for (TextBubble bubble : tab.bubbles) {
-            float textWidth = getTextWidth(bubble.text, bubble.scale) + 40;  // Increased padding
-            float timestampWidth = getTextWidth(bubble.timestamp, bubble.scale * 0.8f);
-            float bubbleWidth = Math.max(textWidth, timestampWidth) + 40;  // Increased padding
-            float bubbleHeight = getTextHeight(bubble.scale) + 25;  // Increased height
-
-            // Check if click is within bubble bounds
-            if (x >= 10 && x <= 10 + bubbleWidth &&
-                    y >= currentY && y <= currentY + bubbleHeight) {
-                return bubble;
-            }
-
-            // Move to next bubble's Y position
-            currentY += bubbleHeight + BUBBLE_SPACING;
-        }
-
-        return null;
-    }
-
     private static void startDragging(long window, TextBubble bubble, double x, double y) {
         DragState dragState = new DragState();
         dragState.bubble = bubble;
@@ -2459,23 +2684,32 @@ public class UI {
         List<TabInfo> tabs = windowTabs.get(window);
         if (tabs == null) return;
 
-        // Adjust bubbles if they're outside the new window bounds
+        markLayoutChanged(window);
+        // Adjust bubbles if they're outside the new window bounds; tabs still in their session
+        // file are adjusted once decoded rather than decoded here
         for (TabInfo tab : tabs) {
-            for (TextBubble bubble : tab.bubbles) {
-                float bubbleWidth = getTextWidth(bubble.text, bubble.scale) + 20;
-                if (bubble.x + bubbleWidth > width) {
-                    bubble.x = width - bubbleWidth - 10;
-                }
-                float maxY = height - CONTENT_BOTTOM_MARGIN;
-                if (bubble.y > maxY) {
-                    bubble.y = maxY;
-                }
+            tab.whenLoaded(loaded -> keepInside(loaded, width, height));
+        }
+    }
+
+    private static void keepInside(TabInfo tab, int width, int height) {
+        for (TextBubble bubble : tab.bubbles) {
+            float bubbleWidth = getTextWidth(bubble.text, bubble.scale) + 20;
+            if (bubble.x + bubbleWidth > width) {
+                bubble.x = width - bubbleWidth - 10;
+            }
+            float maxY = height - CONTENT_BOTTOM_MARGIN;
+            if (bubble.y > maxY) {
+                bubble.y = maxY;
             }
         }
     }
 
     // Cleanup method
     public static void cleanup(long window) {
+        // Anyone still waiting on this window gets its final state
+        runRenderTasks(window);
+        renderTasks.remove(window);
         windowStates.remove(window);
         windowTabs.remove(window);
         activeTabIndices.remove(window);
@@ -2484,9 +2718,25 @@ public class UI {
         dragStates.remove(window);
         messageHistory.remove(window);
         historyIndices.remove(window);
+        KeywordAutocomplete.cleanup(window);
         cursorPositions.remove(window);
         editingBubbles.remove(window);
         currentInput.remove(window);  // Add this line
+        contentVersions.remove(window);
+        layoutVersions.remove(window);
+        toasts.remove(window);
+        SessionJournal.close(window);
+        LiveBubbles.unbindWindow(window);
+        SceneGraph.cleanup(window);
+        InputSystem.cleanupWindow(window);
+        LatencyTracker.cleanupWindow(window);
+        InputRecorder.stop(window);
+        InputReplayer.cleanup(window);
+
+        // GL resources, the context is still current here
+        WindowThumbnails.cleanup(window);
+        WindowCapture.cleanup(window);
+        WindowSwitcher.cleanup(window);
     }
 
     // Utility methods
@@ -0,0 +1,249 @@
+package com.examples;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.text.Text;
+import org.lwjgl.stb.STBImageWrite;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+// Exports what a window shows to PNG, either one frame or a timed sequence.
+// Pixels are read back asynchronously on the render thread and encoded on a background thread.
+public class WindowCapture {
+    private static final Path CAPTURE_DIR = WindowsClient.getWindowsClientConfigDir().toPath().resolve("captures");
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    static final int MAX_SECONDS = 120;
+    static final int MAX_FPS = 60;
+
+    // Frames waiting for the encoder; when it is full, new frames are dropped instead of stalling rendering
+    private static final int QUEUE_CAPACITY = 8;
+    private static final BlockingQueue<EncodeJob> encodeQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private static final Map<Long, CaptureSession> sessions = new ConcurrentHashMap<>();
+
+    static {
+        Thread encoder = new Thread(WindowCapture::runEncoder, "Window-Capture-Encoder");
+        encoder.setDaemon(true);
+        encoder.start();
+    }
+
+    private static class CaptureSession {
+        final String windowName;
+        final Path output;
+        final boolean sequence;
+        final int maxFrames;
+        final long intervalNanos;
+        final long durationNanos;
+
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicInteger dropped = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger encoding = new AtomicInteger();
+        final AtomicBoolean reported = new AtomicBoolean();
+        volatile boolean finished;  // Set once the render thread stops capturing
+
+        // Render thread only
+        PixelReadback readback;
+        int requested;
+        long startNanos;
+        long nextDueNanos;
+
+        CaptureSession(String windowName, Path output, boolean sequence, int maxFrames, long intervalNanos, long durationNanos) {
+            this.windowName = windowName;
+            this.output = output;
+            this.sequence = sequence;
+            this.maxFrames = maxFrames;
+            this.intervalNanos = intervalNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        Path framePath(int frame) {
+            return sequence ? output.resolve(String.format("frame_%05d.png", frame + 1)) : output;
+        }
+    }
+
+    private static class EncodeJob {
+        final CaptureSession session;
+        final ByteBuffer pixels;
+        final int width;
+        final int height;
+        final int frame;
+
+        EncodeJob(CaptureSession session, ByteBuffer pixels, int width, int height, int frame) {
+            this.session = session;
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.frame = frame;
+        }
+    }
+
+    // Returns the file or folder the capture is written to, or null if the window is already capturing
+    static Path startCapture(String windowName, long window, int seconds, int fps) {
+        if (sessions.containsKey(window)) return null;
+
+        String baseName = SessionManager.sanitizeFileName(windowName) + "_" + LocalDateTime.now().format(FILE_TIME_FORMAT);
+        boolean sequence = seconds > 0;
+        CaptureSession session;
+        if (sequence) {
+            int clampedSeconds = Math.min(seconds, MAX_SECONDS);
+            int clampedFps = Math.max(1, Math.min(fps, MAX_FPS));
+            session = new CaptureSession(windowName, CAPTURE_DIR.resolve(baseName), true,
+                    clampedSeconds * clampedFps, 1_000_000_000L / clampedFps, clampedSeconds * 1_000_000_000L);
+        } else {
+            session = new CaptureSession(windowName, CAPTURE_DIR.resolve(baseName + ".png"), false, 1, 0, 0);
+        }
+
+        try {
+            Files.createDirectories(sequence ? session.output : CAPTURE_DIR);
+        } catch (Exception e) {
+            ErrorHandler.handleError("Failed to create capture folder", e, "WindowCapture.startCapture");
+            return null;
+        }
+
+        return sessions.putIfAbsent(window, session) == null ? session.output : null;
+    }
+
+    // Called on the render thread after the frame is drawn and before the buffers are swapped
+    static void onFrameRendered(long window, int framebufferWidth, int framebufferHeight) {
+        CaptureSession session = sessions.get(window);
+        if (session == null) return;
+
+        try {
+            if (session.readback == null) {
+                session.readback = new PixelReadback(2);
+                session.startNanos = System.nanoTime();
+                session.nextDueNanos = session.startNanos;
+            }
+
+            session.readback.poll((pixels, width, height, frame) -> enqueue(session, pixels, width, height, (int) frame));
+
+            long now = System.nanoTime();
+            boolean timeUp = session.sequence && now - session.startNanos >= session.durationNanos;
+            if (!timeUp && session.requested < session.maxFrames && now >= session.nextDueNanos) {
+                if (session.readback.request(framebufferWidth, framebufferHeight, session.requested)) {
+                    session.requested++;
+                } else {
+                    // Both buffers are still in flight; skip this frame rather than wait
+                    session.dropped.incrementAndGet();
+                }
+                // Stay on the requested cadence without bursting after a slow frame
+                session.nextDueNanos = Math.max(session.nextDueNanos + session.intervalNanos, now);
+            }
+
+            boolean done = timeUp || session.requested >= session.maxFrames;
+            if (done && !session.readback.hasPending()) {
+                finish(window, session);
+            }
+        } catch (Exception e) {
+            ErrorHandler.handleError("Window capture failed", e, "WindowCapture.onFrameRendered");
+            finish(window, session);
+        }
+    }
+
+    // Called on the render thread while the window's GL context is still current
+    static void cleanup(long window) {
+        CaptureSession session = sessions.get(window);
+        if (session != null) {
+            finish(window, session);
+        }
+    }
+
+    private static void finish(long window, CaptureSession session) {
+        sessions.remove(window, session);
+        if (session.readback != null) {
+            session.readback.dispose();
+            session.readback = null;
+        }
+        session.finished = true;
+        reportIfComplete(session);
+    }
+
+    private static void enqueue(CaptureSession session, ByteBuffer pixels, int width, int height, int frame) {
+        // The mapped buffer is only valid during the callback, so the encoder gets its own copy.
+        // Readback rows start at the bottom of the framebuffer; the copy puts the top row first.
+        ByteBuffer copy = memAlloc(pixels.remaining());
+        int rowBytes = width * 4;
+        int base = pixels.position();
+        for (int row = 0; row < height; row++) {
+            copy.put(row * rowBytes, pixels, base + (height - 1 - row) * rowBytes, rowBytes);
+        }
+
+        session.encoding.incrementAndGet();
+        if (!encodeQueue.offer(new EncodeJob(session, copy, width, height, frame))) {
+            session.encoding.decrementAndGet();
+            memFree(copy);
+            session.dropped.incrementAndGet();
+        }
+    }
+
+    // stbi_flip_vertically_on_write is left alone: it is global and would also flip every PNG
+    // Minecraft writes through STB
+    private static void runEncoder() {
+        while (true) {
+            EncodeJob job;
+            try {
+                job = encodeQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                Path path = job.session.framePath(job.frame);
+                if (STBImageWrite.stbi_write_png(path.toString(), job.width, job.height, 4, job.pixels, job.width * 4)) {
+                    job.session.written.incrementAndGet();
+                } else {
+                    job.session.failed.incrementAndGet();
+                    ErrorHandler.debug("Could not write capture frame " + path);
+                }
+            } catch (Exception e) {
+                job.session.failed.incrementAndGet();
+                ErrorHandler.handleError("Failed to encode capture frame", e, "WindowCapture.runEncoder");
+            } finally {
+                memFree(job.pixels);
+                job.session.encoding.decrementAndGet();
+            }
+
+            reportIfComplete(job.session);
+        }
+    }
+
+    // Tells the player once capturing stopped and every queued frame has been encoded
+    private static void reportIfComplete(CaptureSession session) {
+        if (!session.finished || session.encoding.get() > 0) return;
+        if (!session.reported.compareAndSet(false, true)) return;
+
+        int written = session.written.get();
+        int failed = session.failed.get();
+        String message;
+        if (!session.sequence) {
+            message = written == 1
+                    ? "Captured " + session.windowName + " to " + session.output.getFileName()
+                    : "Capture of " + session.windowName + " failed.";
+        } else {
+            message = "Recorded " + written + " frames of " + session.windowName + " to " + session.output.getFileName()
+                    + " (" + session.dropped.get() + " dropped" + (failed > 0 ? ", " + failed + " failed" : "") + ")";
+        }
+        ErrorHandler.debug(message);
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        client.execute(() -> {
+            if (client.player != null) {
+                client.player.sendMessage(Text.of(message), false);
+            }
+        });
+    }
+}
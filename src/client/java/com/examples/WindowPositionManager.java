@@ -70,6 +70,16 @@ public class WindowPositionManager {
         }
     }
 
+    // Stores bounds as-is, for callers that already placed the window inside a monitor's work area
+    public static void setWindowBounds(long window, int x, int y, int width, int height) {
+        Rectangle bounds = windowBounds.get(window);
+        if (bounds != null) {
+            bounds.setBounds(x, y, width, height);
+        } else {
+            windowBounds.put(window, new Rectangle(x, y, width, height));
+        }
+    }
+
     public static void unregisterWindow(long window) {
         windowBounds.remove(window);
     }
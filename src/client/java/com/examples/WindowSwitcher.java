@@ -0,0 +1,243 @@
+package com.examples;
+
+import net.minecraft.client.MinecraftClient;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_BGRA;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+import static org.lwjgl.opengl.GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+
+// Ctrl+Tab overlay inside a window that shows the other windows' thumbnails.
+// Everything except toggling runs on the viewing window's render thread.
+public class WindowSwitcher {
+    private static final float CELL_PADDING = 16;
+    private static final float LABEL_HEIGHT = 22;
+
+    private static final Set<Long> openSwitchers = ConcurrentHashMap.newKeySet();
+
+    // Textures live in the viewing window's context, keyed by viewer and then by the shown window
+    private static final Map<Long, Map<Long, UploadedTexture>> textures = new ConcurrentHashMap<>();
+    private static final Map<Long, List<Cell>> lastLayouts = new ConcurrentHashMap<>();
+
+    private static class UploadedTexture {
+        final int id;
+        int width;
+        int height;
+        long version = -1;
+
+        UploadedTexture(int id) {
+            this.id = id;
+        }
+    }
+
+    private record Cell(String name, long window, Rectangle bounds) {
+    }
+
+    static boolean isOpen(long window) {
+        return openSwitchers.contains(window);
+    }
+
+    static boolean isAnyOpen() {
+        return !openSwitchers.isEmpty();
+    }
+
+    static void toggle(long window) {
+        if (!openSwitchers.remove(window)) {
+            openSwitchers.add(window);
+        }
+        UI.markContentChanged(window);
+    }
+
+    static void close(long window) {
+        if (openSwitchers.remove(window)) {
+            UI.markContentChanged(window);
+        }
+    }
+
+    static void draw(long window, int width, int height) {
+        UI.UIState state = UI.getWindowState(window);
+        if (state == null) return;
+
+        List<Cell> cells = layout(window, width, height);
+        lastLayouts.put(window, cells);
+
+        UI.drawRect(0, 0, width, height, new Color(0, 0, 0, 170));
+
+        if (cells.isEmpty()) {
+            UI.drawText(CELL_PADDING, CELL_PADDING, "No other windows open", 1.0f, Color.WHITE);
+            return;
+        }
+
+        Map<Long, UploadedTexture> viewerTextures = textures.computeIfAbsent(window, k -> new HashMap<>());
+        viewerTextures.keySet().removeIf(shown -> {
+            boolean stillShown = cells.stream().anyMatch(cell -> cell.window == shown);
+            if (!stillShown) glDeleteTextures(viewerTextures.get(shown).id);
+            return !stillShown;
+        });
+
+        for (int i = 0; i < cells.size(); i++) {
+            Cell cell = cells.get(i);
+            Rectangle bounds = cell.bounds;
+
+            UI.drawRect(bounds.x - 2, bounds.y - 2, bounds.width + 4, bounds.height + LABEL_HEIGHT + 4, state.accentColor);
+
+            WindowThumbnails.Thumbnail thumbnail = WindowThumbnails.get(cell.window);
+            if (thumbnail != null) {
+                drawThumbnail(viewerTextures, cell.window, thumbnail, bounds);
+            } else {
+                UI.drawRect(bounds.x, bounds.y, bounds.width, bounds.height, state.backgroundColor);
+            }
+
+            String label = (i < 9 ? (i + 1) + "  " : "") + cell.name;
+            UI.drawText(bounds.x + 4, bounds.y + bounds.height + 4, label, 0.8f, Color.WHITE);
+        }
+    }
+
+    // Returns true when the click was consumed by the switcher
+    static boolean handleClick(long window, double x, double y) {
+        if (!isOpen(window)) return false;
+
+        List<Cell> cells = lastLayouts.get(window);
+        if (cells != null) {
+            for (Cell cell : cells) {
+                Rectangle bounds = cell.bounds;
+                if (x >= bounds.x && x <= bounds.x + bounds.width
+                        && y >= bounds.y && y <= bounds.y + bounds.height + LABEL_HEIGHT) {
+                    select(window, cell);
+                    return true;
+                }
+            }
+        }
+        close(window);
+        return true;
+    }
+
+    // Returns true when the key was consumed by the switcher
+    static boolean handleKey(long window, int key) {
+        if (!isOpen(window)) return false;
+
+        if (key == GLFW_KEY_ESCAPE) {
+            close(window);
+        } else if (key >= GLFW_KEY_1 && key <= GLFW_KEY_9) {
+            List<Cell> cells = lastLayouts.get(window);
+            int index = key - GLFW_KEY_1;
+            if (cells != null && index < cells.size()) {
+                select(window, cells.get(index));
+            }
+        }
+        return true;
+    }
+
+    // Called on the render thread while the window's GL context is still current
+    static void cleanup(long window) {
+        openSwitchers.remove(window);
+        lastLayouts.remove(window);
+        Map<Long, UploadedTexture> viewerTextures = textures.remove(window);
+        if (viewerTextures != null) {
+            for (UploadedTexture texture : viewerTextures.values()) {
+                glDeleteTextures(texture.id);
+            }
+        }
+    }
+
+    private static void select(long window, Cell cell) {
+        close(window);
+        // GLFW window management belongs on the main thread
+        MinecraftClient.getInstance().execute(() -> WindowsClient.focusWindow(cell.name));
+    }
+
+    private static List<Cell> layout(long window, int width, int height) {
+        List<Cell> cells = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (String name : WindowsClient.getWindowNames()) {
+            long handle = WindowsClient.getWindowHandle(name);
+            if (handle != 0 && handle != window) names.add(name);
+        }
+        if (names.isEmpty()) return cells;
+
+        int columns = (int) Math.ceil(Math.sqrt(names.size()));
+        int rows = (int) Math.ceil(names.size() / (double) columns);
+
+        float cellWidth = Math.min(WindowThumbnails.MAX_WIDTH,
+                (width - CELL_PADDING * (columns + 1)) / columns);
+        float cellHeight = Math.min(WindowThumbnails.MAX_HEIGHT,
+                (height - (CELL_PADDING + LABEL_HEIGHT) * (rows + 1)) / rows);
+        cellWidth = Math.max(32, cellWidth);
+        cellHeight = Math.max(20, cellHeight);
+
+        float gridWidth = columns * cellWidth + (columns - 1) * CELL_PADDING;
+        float gridHeight = rows * (cellHeight + LABEL_HEIGHT) + (rows - 1) * CELL_PADDING;
+        float startX = Math.max(CELL_PADDING, (width - gridWidth) / 2);
+        float startY = Math.max(CELL_PADDING, (height - gridHeight) / 2);
+
+        for (int i = 0; i < names.size(); i++) {
+            int column = i % columns;
+            int row = i / columns;
+            int x = (int) (startX + column * (cellWidth + CELL_PADDING));
+            int y = (int) (startY + row * (cellHeight + LABEL_HEIGHT + CELL_PADDING));
+            String name = names.get(i);
+            cells.add(new Cell(name, WindowsClient.getWindowHandle(name),
+                    new Rectangle(x, y, (int) cellWidth, (int) cellHeight)));
+        }
+        return cells;
+    }
+
+    private static void drawThumbnail(Map<Long, UploadedTexture> viewerTextures, long shown,
+                                      WindowThumbnails.Thumbnail thumbnail, Rectangle bounds) {
+        UploadedTexture texture = viewerTextures.computeIfAbsent(shown, k -> {
+            UploadedTexture created = new UploadedTexture(glGenTextures());
+            glBindTexture(GL_TEXTURE_2D, created.id);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+            return created;
+        });
+
+        glBindTexture(GL_TEXTURE_2D, texture.id);
+
+        // Only upload when the shown window produced a newer thumbnail
+        if (texture.version != thumbnail.version) {
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+            if (texture.width != thumbnail.width || texture.height != thumbnail.height) {
+                glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, thumbnail.width, thumbnail.height, 0,
+                        GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, thumbnail.argb);
+                texture.width = thumbnail.width;
+                texture.height = thumbnail.height;
+            } else {
+                glTexSubImage2D(GL_TEXTURE_2D, 0, 0, 0, thumbnail.width, thumbnail.height,
+                        GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, thumbnail.argb);
+            }
+            texture.version = thumbnail.version;
+        }
+
+        // Fit the thumbnail into the cell without stretching
+        float scale = Math.min(bounds.width / (float) thumbnail.width, bounds.height / (float) thumbnail.height);
+        float drawWidth = thumbnail.width * scale;
+        float drawHeight = thumbnail.height * scale;
+        float x = bounds.x + (bounds.width - drawWidth) / 2;
+        float y = bounds.y + (bounds.height - drawHeight) / 2;
+
+        glEnable(GL_TEXTURE_2D);
+        glColor4f(1f, 1f, 1f, 1f);
+        glBegin(GL_QUADS);
+        glTexCoord2f(0, 0);
+        glVertex2f(x, y);
+        glTexCoord2f(1, 0);
+        glVertex2f(x + drawWidth, y);
+        glTexCoord2f(1, 1);
+        glVertex2f(x + drawWidth, y + drawHeight);
+        glTexCoord2f(0, 1);
+        glVertex2f(x, y + drawHeight);
+        glEnd();
+        glDisable(GL_TEXTURE_2D);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+}
@@ -0,0 +1,140 @@
+package com.examples;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps a small, recent picture of every window for the switchers.
+// Capturing happens on each window's render thread, and only while a switcher or the HUD is open;
+// thumbnails can be read from any thread.
+public class WindowThumbnails {
+    static final int MAX_WIDTH = 192;
+    static final int MAX_HEIGHT = 120;
+
+    // Continuous changes (typing, dragging) refresh the thumbnail at most this often
+    private static final long MIN_REFRESH_INTERVAL_MS = 250;
+
+    private static final Map<Long, Thumbnail> thumbnails = new ConcurrentHashMap<>();
+    private static final Map<Long, CaptureState> captureStates = new ConcurrentHashMap<>();
+
+    // Immutable once published; pixels are ARGB, top row first
+    static final class Thumbnail {
+        final int width;
+        final int height;
+        final int[] argb;
+        final long version;
+
+        Thumbnail(int width, int height, int[] argb, long version) {
+            this.width = width;
+            this.height = height;
+            this.argb = argb;
+            this.version = version;
+        }
+    }
+
+    private static class CaptureState {
+        final PixelReadback readback = new PixelReadback(2);
+        long requestedVersion = -1;
+        long lastRequestTime;
+    }
+
+    static Thumbnail get(long window) {
+        return thumbnails.get(window);
+    }
+
+    // Called on the render thread after the frame is drawn and before the buffers are swapped
+    static void onFrameRendered(long window, long contentVersion, int framebufferWidth, int framebufferHeight) {
+        try {
+            // Nobody is looking: finish what is in flight, then give the readback buffers back
+            if (!WindowSwitcher.isAnyOpen() && !SwitcherHud.isVisible()) {
+                CaptureState idle = captureStates.get(window);
+                if (idle != null) {
+                    collect(window, idle);
+                    if (!idle.readback.hasPending()) {
+                        captureStates.remove(window);
+                        idle.readback.dispose();
+                    }
+                }
+                return;
+            }
+
+            CaptureState state = captureStates.computeIfAbsent(window, k -> new CaptureState());
+            collect(window, state);
+
+            if (contentVersion == state.requestedVersion) return;
+
+            long now = System.currentTimeMillis();
+            if (now - state.lastRequestTime < MIN_REFRESH_INTERVAL_MS) return;
+
+            // Scaled on the GPU, so only a thumbnail's worth of pixels is read back
+            float scale = thumbnailScale(framebufferWidth, framebufferHeight);
+            int targetWidth = Math.max(1, Math.round(framebufferWidth * scale));
+            int targetHeight = Math.max(1, Math.round(framebufferHeight * scale));
+            if (state.readback.request(framebufferWidth, framebufferHeight, targetWidth, targetHeight, contentVersion)) {
+                state.requestedVersion = contentVersion;
+                state.lastRequestTime = now;
+            }
+        } catch (Exception e) {
+            ErrorHandler.handleError("Thumbnail capture failed", e, "WindowThumbnails.onFrameRendered");
+        }
+    }
+
+    private static void collect(long window, CaptureState state) {
+        state.readback.poll((pixels, width, height, version) -> publish(window, pixels, width, height, version));
+    }
+
+    // Called on the render thread while the window's GL context is still current
+    static void cleanup(long window) {
+        CaptureState state = captureStates.remove(window);
+        if (state != null) {
+            state.readback.dispose();
+        }
+        thumbnails.remove(window);
+    }
+
+    private static void publish(long window, ByteBuffer pixels, int width, int height, long version) {
+        Thumbnail current = thumbnails.get(window);
+        if (current != null && current.version >= version) return;
+
+        float scale = thumbnailScale(width, height);
+        int thumbWidth = Math.max(1, Math.round(width * scale));
+        int thumbHeight = Math.max(1, Math.round(height * scale));
+
+        thumbnails.put(window, new Thumbnail(thumbWidth, thumbHeight,
+                downscale(pixels, width, height, thumbWidth, thumbHeight), version));
+    }
+
+    private static float thumbnailScale(int width, int height) {
+        return Math.min(1.0f, Math.min(MAX_WIDTH / (float) width, MAX_HEIGHT / (float) height));
+    }
+
+    // Pixels read back at thumbnail size are copied as they are. A full-size frame, when the GPU
+    // could not scale it, goes through a box filter averaging four samples per destination pixel.
+    private static int[] downscale(ByteBuffer pixels, int width, int height, int thumbWidth, int thumbHeight) {
+        int[] argb = new int[thumbWidth * thumbHeight];
+
+        for (int ty = 0; ty < thumbHeight; ty++) {
+            int y0 = ty * height / thumbHeight;
+            int y1 = Math.max(y0, (ty + 1) * height / thumbHeight - 1);
+
+            for (int tx = 0; tx < thumbWidth; tx++) {
+                int x0 = tx * width / thumbWidth;
+                int x1 = Math.max(x0, (tx + 1) * width / thumbWidth - 1);
+
+                int r = 0, g = 0, b = 0;
+                for (int sample = 0; sample < 4; sample++) {
+                    int sx = (sample & 1) == 0 ? x0 : x1;
+                    int sy = (sample & 2) == 0 ? y0 : y1;
+                    // Readback rows start at the bottom of the framebuffer
+                    int offset = ((height - 1 - sy) * width + sx) * 4;
+                    r += pixels.get(offset) & 0xFF;
+                    g += pixels.get(offset + 1) & 0xFF;
+                    b += pixels.get(offset + 2) & 0xFF;
+                }
+
+                argb[ty * thumbWidth + tx] = 0xFF000000 | ((r >> 2) << 16) | ((g >> 2) << 8) | (b >> 2);
+            }
+        }
+        return argb;
+    }
+}
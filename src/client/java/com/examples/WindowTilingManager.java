@@ -0,0 +1,384 @@
+package com.examples;
+
+import net.minecraft.client.MinecraftClient;
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.glfw.GLFWVidMode;
+
+import java.awt.Rectangle;
+import java.util.*;
+import java.util.List;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+public class WindowTilingManager {
+    private static final int MIN_TILE_WIDTH = 240;
+    private static final int MIN_TILE_HEIGHT = 160;
+    private static final int DEFAULT_MIN_WIDTH = 800;
+    private static final int DEFAULT_MIN_HEIGHT = 400;
+    private static final int TASKBAR_HEIGHT = 40;
+    private static final float MASTER_RATIO = 0.55f;
+    // Offset between cascaded windows when there are too many to tile at the minimum size
+    private static final int CASCADE_STEP = 32;
+
+    // Windows in the order they were opened; the layout slots follow this order
+    private static final List<Long> tiledWindows = new ArrayList<>();
+    private static final Map<Long, Rectangle> appliedBounds = new HashMap<>();
+    private static final Map<Long, Integer> monitorAssignments = new HashMap<>();
+    private static final Map<Long, int[]> frameInsets = new HashMap<>();
+
+    private static TileMode activeMode = TileMode.OFF;
+    // First work area of the last layout, for decisions made off the main thread
+    private static Rectangle lastPrimaryArea;
+
+    enum TileMode {
+        OFF("off"),
+        GRID("grid"),
+        MASTER_STACK("master"),
+        PER_MONITOR("monitor");
+
+        final String commandName;
+
+        TileMode(String commandName) {
+            this.commandName = commandName;
+        }
+    }
+
+    // Returns true if the window was placed by the tiler, false if the caller should position it
+    static synchronized boolean addWindow(long window) {
+        tiledWindows.add(window);
+        if (activeMode == TileMode.OFF) return false;
+
+        glfwSetWindowSizeLimits(window, MIN_TILE_WIDTH, MIN_TILE_HEIGHT, GLFW_DONT_CARE, GLFW_DONT_CARE);
+
+        List<Rectangle> workAreas = getWorkAreas();
+        int count = tiledWindows.size();
+
+        // A grid that keeps its shape only needs the new slot filled
+        if (activeMode == TileMode.GRID && sameSlots(count, count - 1, workAreas.get(0))) {
+            Rectangle slot = computeGrid(count, workAreas.get(0)).get(count - 1);
+            applyBatch(Collections.singletonMap(window, slot));
+            return true;
+        }
+
+        if (activeMode == TileMode.PER_MONITOR) {
+            monitorAssignments.put(window, leastUsedMonitor(workAreas.size()));
+        }
+        applyBatch(computeLayout(workAreas));
+        return true;
+    }
+
+    // Any thread; a window closed from its title bar is removed by its own render thread. The
+    // handle is dropped right away so nothing touches it once destroyed, while moving the other
+    // windows is left to the main thread, where GLFW allows it.
+    static synchronized void removeWindow(long window) {
+        int index = tiledWindows.indexOf(window);
+        if (index < 0) return;
+
+        appliedBounds.remove(window);
+        monitorAssignments.remove(window);
+        frameInsets.remove(window);
+
+        int oldCount = tiledWindows.size();
+        int lastIndex = oldCount - 1;
+
+        // When the grid keeps its shape, the last window moves into the freed slot
+        // so that only one window needs to be repositioned
+        if (activeMode == TileMode.GRID && index != lastIndex && lastPrimaryArea != null
+                && sameSlots(oldCount, oldCount - 1, lastPrimaryArea)) {
+            tiledWindows.set(index, tiledWindows.get(lastIndex));
+            tiledWindows.remove(lastIndex);
+        } else {
+            tiledWindows.remove(index);
+        }
+
+        if (activeMode != TileMode.OFF && !tiledWindows.isEmpty()) {
+            MinecraftClient.getInstance().execute(WindowTilingManager::retile);
+        }
+    }
+
+    private static synchronized void retile() {
+        if (activeMode != TileMode.OFF && !tiledWindows.isEmpty()) {
+            applyBatch(computeLayout(getWorkAreas()));
+        }
+    }
+
+    static synchronized int setMode(TileMode mode) {
+        TileMode previous = activeMode;
+        activeMode = mode;
+
+        if (mode == TileMode.OFF) {
+            if (previous != TileMode.OFF) {
+                for (long window : tiledWindows) {
+                    glfwSetWindowSizeLimits(window, DEFAULT_MIN_WIDTH, DEFAULT_MIN_HEIGHT, GLFW_DONT_CARE, GLFW_DONT_CARE);
+                }
+            }
+            appliedBounds.clear();
+            monitorAssignments.clear();
+            return 0;
+        }
+
+        for (long window : tiledWindows) {
+            glfwSetWindowSizeLimits(window, MIN_TILE_WIDTH, MIN_TILE_HEIGHT, GLFW_DONT_CARE, GLFW_DONT_CARE);
+        }
+
+        List<Rectangle> workAreas = getWorkAreas();
+        monitorAssignments.clear();
+        if (mode == TileMode.PER_MONITOR) {
+            assignMonitors(workAreas);
+        }
+
+        // Switching modes always re-applies everything, even unchanged rectangles
+        appliedBounds.clear();
+        applyBatch(computeLayout(workAreas));
+        return tiledWindows.size();
+    }
+
+    static synchronized TileMode getMode() {
+        return activeMode;
+    }
+
+    // Computes rectangles for every tiled window in a single pass
+    private static Map<Long, Rectangle> computeLayout(List<Rectangle> workAreas) {
+        Map<Long, Rectangle> layout = new LinkedHashMap<>();
+        int count = tiledWindows.size();
+
+        switch (activeMode) {
+            case GRID -> {
+                List<Rectangle> slots = computeGrid(count, workAreas.get(0));
+                for (int i = 0; i < count; i++) {
+                    layout.put(tiledWindows.get(i), slots.get(i));
+                }
+            }
+            case MASTER_STACK -> {
+                List<Rectangle> slots = computeMasterStack(count, workAreas.get(0));
+                for (int i = 0; i < count; i++) {
+                    layout.put(tiledWindows.get(i), slots.get(i));
+                }
+            }
+            case PER_MONITOR -> {
+                // Group windows by monitor, keeping their open order within each monitor
+                List<List<Long>> perMonitor = new ArrayList<>();
+                for (int i = 0; i < workAreas.size(); i++) {
+                    perMonitor.add(new ArrayList<>());
+                }
+                for (long window : tiledWindows) {
+                    int monitor = monitorAssignments.getOrDefault(window, 0);
+                    perMonitor.get(Math.min(monitor, workAreas.size() - 1)).add(window);
+                }
+                for (int m = 0; m < perMonitor.size(); m++) {
+                    List<Long> windows = perMonitor.get(m);
+                    List<Rectangle> slots = computeGrid(windows.size(), workAreas.get(m));
+                    for (int i = 0; i < windows.size(); i++) {
+                        layout.put(windows.get(i), slots.get(i));
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+
+        return layout;
+    }
+
+    private static GridShape gridShape(int count) {
+        if (count <= 0) return new GridShape(0, 0);
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        int rows = (int) Math.ceil(count / (double) columns);
+        return new GridShape(columns, rows);
+    }
+
+    // Whether the first slots of both counts are the same rectangles
+    private static boolean sameSlots(int count, int otherCount, Rectangle area) {
+        return gridShape(count).equals(gridShape(otherCount))
+                && fitsGrid(count, area) == fitsGrid(otherCount, area);
+    }
+
+    private static boolean fitsGrid(int count, Rectangle area) {
+        GridShape shape = gridShape(count);
+        return shape.columns == 0
+                || (area.width / shape.columns >= MIN_TILE_WIDTH && area.height / shape.rows >= MIN_TILE_HEIGHT);
+    }
+
+    private static List<Rectangle> computeGrid(int count, Rectangle area) {
+        List<Rectangle> slots = new ArrayList<>(count);
+        if (count == 0) return slots;
+        if (!fitsGrid(count, area)) return computeCascade(count, area);
+
+        GridShape shape = gridShape(count);
+        int cellWidth = area.width / shape.columns;
+        int cellHeight = area.height / shape.rows;
+
+        for (int i = 0; i < count; i++) {
+            int column = i % shape.columns;
+            int row = i / shape.columns;
+            slots.add(new Rectangle(
+                    area.x + column * cellWidth,
+                    area.y + row * cellHeight,
+                    cellWidth,
+                    cellHeight
+            ));
+        }
+        return slots;
+    }
+
+    private static List<Rectangle> computeMasterStack(int count, Rectangle area) {
+        List<Rectangle> slots = new ArrayList<>(count);
+        if (count == 0) return slots;
+        if (count == 1) {
+            slots.add(new Rectangle(area));
+            return slots;
+        }
+
+        int masterWidth = Math.max(MIN_TILE_WIDTH, (int) (area.width * MASTER_RATIO));
+        int stackWidth = Math.max(MIN_TILE_WIDTH, area.width - masterWidth);
+        int stackX = Math.max(area.x, area.x + area.width - stackWidth);
+        int stackCount = count - 1;
+        int stackHeight = area.height / stackCount;
+
+        // A stack too tall for the work area overlaps its windows instead of running off screen
+        int stackStep = stackHeight;
+        if (stackHeight < MIN_TILE_HEIGHT) {
+            stackHeight = Math.min(MIN_TILE_HEIGHT, area.height);
+            stackStep = stackCount > 1 ? (area.height - stackHeight) / (stackCount - 1) : 0;
+        }
+
+        slots.add(new Rectangle(area.x, area.y, Math.min(masterWidth, stackX - area.x), area.height));
+        for (int i = 0; i < stackCount; i++) {
+            slots.add(new Rectangle(stackX, area.y + i * stackStep, stackWidth, stackHeight));
+        }
+        return slots;
+    }
+
+    // Half-size windows stepped diagonally across the work area, starting over at the top left
+    // when the next step would leave it
+    private static List<Rectangle> computeCascade(int count, Rectangle area) {
+        int width = Math.min(area.width, Math.max(MIN_TILE_WIDTH, area.width / 2));
+        int height = Math.min(area.height, Math.max(MIN_TILE_HEIGHT, area.height / 2));
+        int steps = 1 + Math.min((area.width - width) / CASCADE_STEP, (area.height - height) / CASCADE_STEP);
+
+        List<Rectangle> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int step = i % steps;
+            slots.add(new Rectangle(area.x + step * CASCADE_STEP, area.y + step * CASCADE_STEP, width, height));
+        }
+        return slots;
+    }
+
+    // Applies only the rectangles that changed, in one batch of GLFW calls
+    private static void applyBatch(Map<Long, Rectangle> layout) {
+        List<Map.Entry<Long, Rectangle>> changed = new ArrayList<>();
+        for (Map.Entry<Long, Rectangle> entry : layout.entrySet()) {
+            if (!entry.getValue().equals(appliedBounds.get(entry.getKey()))) {
+                changed.add(entry);
+            }
+        }
+        if (changed.isEmpty()) return;
+
+        for (Map.Entry<Long, Rectangle> entry : changed) {
+            long window = entry.getKey();
+            Rectangle cell = entry.getValue();
+            int[] insets = getFrameInsets(window);
+
+            int x = cell.x + insets[0];
+            int y = cell.y + insets[1];
+            int width = Math.max(1, cell.width - insets[0] - insets[2]);
+            int height = Math.max(1, cell.height - insets[1] - insets[3]);
+
+            glfwSetWindowPos(window, x, y);
+            glfwSetWindowSize(window, width, height);
+
+            appliedBounds.put(window, new Rectangle(cell));
+            WindowPositionManager.setWindowBounds(window, x, y, width, height);
+        }
+
+        ErrorHandler.debug("Tiling applied " + changed.size() + " of " + layout.size() + " windows (" + activeMode + ")");
+    }
+
+    // Left, top, right and bottom decoration sizes, so tiles include title bars
+    private static int[] getFrameInsets(long window) {
+        return frameInsets.computeIfAbsent(window, k -> {
+            int[] left = new int[1];
+            int[] top = new int[1];
+            int[] right = new int[1];
+            int[] bottom = new int[1];
+            glfwGetWindowFrameSize(window, left, top, right, bottom);
+            return new int[]{left[0], top[0], right[0], bottom[0]};
+        });
+    }
+
+    private static List<Rectangle> getWorkAreas() {
+        List<Rectangle> areas = new ArrayList<>();
+
+        PointerBuffer monitors = glfwGetMonitors();
+        if (monitors != null) {
+            for (int i = 0; i < monitors.limit(); i++) {
+                Rectangle area = getWorkArea(monitors.get(i));
+                if (area != null) areas.add(area);
+            }
+        }
+
+        if (areas.isEmpty()) {
+            Rectangle primary = getWorkArea(glfwGetPrimaryMonitor());
+            areas.add(primary != null ? primary : new Rectangle(0, 0, 1920, 1080 - TASKBAR_HEIGHT));
+        }
+        lastPrimaryArea = areas.get(0);
+        return areas;
+    }
+
+    private static Rectangle getWorkArea(long monitor) {
+        if (monitor == 0) return null;
+
+        int[] x = new int[1];
+        int[] y = new int[1];
+        int[] width = new int[1];
+        int[] height = new int[1];
+        glfwGetMonitorWorkarea(monitor, x, y, width, height);
+        if (width[0] > 0 && height[0] > 0) {
+            return new Rectangle(x[0], y[0], width[0], height[0]);
+        }
+
+        // Fall back to the video mode when the platform reports no work area
+        GLFWVidMode vidMode = glfwGetVideoMode(monitor);
+        if (vidMode == null) return null;
+        glfwGetMonitorPos(monitor, x, y);
+        return new Rectangle(x[0], y[0], vidMode.width(), vidMode.height() - TASKBAR_HEIGHT);
+    }
+
+    // Keeps windows on the monitor they are currently on
+    private static void assignMonitors(List<Rectangle> workAreas) {
+        for (long window : tiledWindows) {
+            int[] x = new int[1];
+            int[] y = new int[1];
+            int[] width = new int[1];
+            int[] height = new int[1];
+            glfwGetWindowPos(window, x, y);
+            glfwGetWindowSize(window, width, height);
+
+            int centerX = x[0] + width[0] / 2;
+            int centerY = y[0] + height[0] / 2;
+            int monitor = -1;
+            for (int i = 0; i < workAreas.size(); i++) {
+                if (workAreas.get(i).contains(centerX, centerY)) {
+                    monitor = i;
+                    break;
+                }
+            }
+            monitorAssignments.put(window, monitor >= 0 ? monitor : leastUsedMonitor(workAreas.size()));
+        }
+    }
+
+    private static int leastUsedMonitor(int monitorCount) {
+        int[] counts = new int[monitorCount];
+        for (int monitor : monitorAssignments.values()) {
+            if (monitor < monitorCount) counts[monitor]++;
+        }
+        int best = 0;
+        for (int i = 1; i < monitorCount; i++) {
+            if (counts[i] < counts[best]) best = i;
+        }
+        return best;
+    }
+
+    private record GridShape(int columns, int rows) {
+    }
+}
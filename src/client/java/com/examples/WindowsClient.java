@@ -5,10 +5,19 @@ import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.command.CommandRegistryAccess;
 import net.minecraft.text.Text;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 
 import org.lwjgl.opengl.GL;
 import org.lwjgl.system.MemoryStack;
@@ -16,15 +25,19 @@ import org.lwjgl.glfw.GLFWVidMode;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import java.awt.Rectangle;
 import java.io.File;
+import java.nio.file.Path;
 import java.util.*;
 
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.system.MemoryStack.stackPush;
 
 public class WindowsClient implements ClientModInitializer {
-    private static final List<String> windowList = new ArrayList<>();
+    // Copy-on-write so render threads can list the windows for the switcher
+    private static final List<String> windowList = new CopyOnWriteArrayList<>();
     private static final Map<String, Long> activeWindows = new ConcurrentHashMap<>();
     private static final Map<String, Thread> windowThreads = new ConcurrentHashMap<>();
     private static final int MAX_WINDOWS = 10000;
@@ -48,7 +61,46 @@ public class WindowsClient implements ClientModInitializer {
         return windowsClientDir;
     }
 
-    private static void openSystemWindow(String windowName) {
+    static List<String> getWindowNames() {
+        return Collections.unmodifiableList(windowList);
+    }
+
+    static long getWindowHandle(String windowName) {
+        return activeWindows.getOrDefault(windowName, 0L);
+    }
+
+    static String getWindowName(long window) {
+        for (Map.Entry<String, Long> entry : activeWindows.entrySet()) {
+            if (entry.getValue() == window) return entry.getKey();
+        }
+        return "window " + Long.toHexString(window);
+    }
+
+    // Must be called on the main thread
+    static boolean focusWindow(String windowName) {
+        Long window = activeWindows.get(windowName);
+        if (window == null) return false;
+
+        if (glfwGetWindowAttrib(window, GLFW_ICONIFIED) == GLFW_TRUE) {
+            glfwRestoreWindow(window);
+        }
+        glfwShowWindow(window);
+        glfwFocusWindow(window);
+        return true;
+    }
+
+    private static long openSystemWindow(String windowName) {
+        return openSystemWindow(windowName, null, null, 0);
+    }
+
+    // Opens a window from a workspace snapshot; skipped if the name is taken or the limit is reached
+    static void openRestoredWindow(String windowName, Rectangle bounds, SessionManager.WindowSession session, int activeTab) {
+        if (windowList.contains(windowName) || windowList.size() >= MAX_WINDOWS) return;
+        openSystemWindow(windowName, bounds, session, activeTab);
+    }
+
+    private static long openSystemWindow(String windowName, Rectangle bounds,
+                                         SessionManager.WindowSession session, int activeTab) {
         glfwDefaultWindowHints();
         glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
         glfwWindowHint(GLFW_RESIZABLE, GLFW_TRUE);
@@ -67,23 +119,43 @@ public class WindowsClient implements ClientModInitializer {
 
         // Initialize UI
         UI.initializeWindow(window);
-
-        // Center window on screen in a cascading pattern
-        try (MemoryStack stack = stackPush()) {
-            GLFWVidMode vidmode = glfwGetVideoMode(glfwGetPrimaryMonitor());
-            if (vidmode != null) {
-                int offset = windowList.size() * 30;  // 30 pixel offset for each window
-                int x = (vidmode.width() - 800) / 2 + offset;
-                int y = (vidmode.height() - 600) / 2 + offset;
-
-                // Make sure window stays on screen
-                x = Math.max(0, Math.min(x, vidmode.width() - 800));
-                y = Math.max(0, Math.min(y, vidmode.height() - 600));
-
-                glfwSetWindowPos(window, x, y);
+        if (session != null) {
+            UI.restoreWindowSession(window, session, activeTab);
+        }
+        SessionJournal.open(window, windowName, session == null);
+
+        // Let the tiling engine place the window, otherwise restore or cascade it
+        if (!WindowTilingManager.addWindow(window)) {
+            if (bounds != null) {
+                glfwSetWindowPos(window, bounds.x, bounds.y);
+                glfwSetWindowSize(window, bounds.width, bounds.height);
+            } else {
+                try (MemoryStack stack = stackPush()) {
+                    GLFWVidMode vidmode = glfwGetVideoMode(glfwGetPrimaryMonitor());
+                    if (vidmode != null) {
+                        int offset = windowList.size() * 30;  // 30 pixel offset for each window
+                        int x = (vidmode.width() - 800) / 2 + offset;
+                        int y = (vidmode.height() - 600) / 2 + offset;
+
+                        // Make sure window stays on screen
+                        x = Math.max(0, Math.min(x, vidmode.width() - 800));
+                        y = Math.max(0, Math.min(y, vidmode.height() - 600));
+
+                        glfwSetWindowPos(window, x, y);
+                    }
+                }
             }
         }
 
+        // Record where the window ended up for workspace snapshots
+        int[] placedX = new int[1];
+        int[] placedY = new int[1];
+        int[] placedWidth = new int[1];
+        int[] placedHeight = new int[1];
+        glfwGetWindowPos(window, placedX, placedY);
+        glfwGetWindowSize(window, placedWidth, placedHeight);
+        WindowPositionManager.setWindowBounds(window, placedX[0], placedY[0], placedWidth[0], placedHeight[0]);
+
         // Make window visible
         glfwShowWindow(window);
 
@@ -103,8 +175,10 @@ public class WindowsClient implements ClientModInitializer {
                     }
                 }
 
-                // Cleanup
+                // Cleanup; nothing may reach the handle once it is destroyed, however the window closed
                 UI.cleanup(window);
+                forgetWindow(windowName, window);
+                windowThreads.remove(windowName, Thread.currentThread());
                 glfwMakeContextCurrent(0);
                 GL.setCapabilities(null);
                 glfwDestroyWindow(window);
@@ -121,6 +195,7 @@ public class WindowsClient implements ClientModInitializer {
 
         // Start render thread
         renderThread.start();
+        return window;
     }
 
 
@@ -129,17 +204,17 @@ public class WindowsClient implements ClientModInitializer {
         Thread renderThread = windowThreads.get(windowName);
 
         if (windowHandle != null) {
+            // Force a window hide before the render thread can destroy it
+            glfwHideWindow(windowHandle);
+
             // Tell GLFW to close the window
             glfwSetWindowShouldClose(windowHandle, true);
 
-            // Force a window hide
-            glfwHideWindow(windowHandle);
-
             // Post an empty event to wake up the render thread
             glfwPostEmptyEvent();
 
-            // Unregister from position manager
-            WindowPositionManager.unregisterWindow(windowHandle);
+            // Unregister from position manager and re-tile the remaining windows
+            forgetWindow(windowName, windowHandle);
 
             // Wait for render thread
             if (renderThread != null) {
@@ -160,6 +235,16 @@ public class WindowsClient implements ClientModInitializer {
         }
     }
 
+    // Drops every reference to a closing window's handle. Runs on the render thread before
+    // glfwDestroyWindow when the window is closed from its title bar, and again from cleanupWindow.
+    private static void forgetWindow(String windowName, long window) {
+        WindowPositionManager.unregisterWindow(window);
+        WindowTilingManager.removeWindow(window);
+        if (activeWindows.remove(windowName, window)) {
+            windowList.remove(windowName);
+        }
+    }
+
     private static String generateUniqueWindowName() {
         int counter = 1;
         String name;
@@ -172,6 +257,177 @@ public class WindowsClient implements ClientModInitializer {
     @Override
     public void onInitializeClient() {
         ClientCommandRegistrationCallback.EVENT.register(this::registerCommands);
+
+        // Bring back the previous workspace on start and snapshot it on the way out
+        ClientLifecycleEvents.CLIENT_STARTED.register(client -> {
+            int pending = WorkspaceManager.restore();
+            if (pending > 0) {
+                ErrorHandler.debug("Restoring " + pending + " workspace windows");
+            }
+        });
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            WorkspaceManager.save(activeWindows);
+            SessionManager.shutdown();
+            SessionJournal.shutdown();
+        });
+        ClientTickEvents.END_CLIENT_TICK.register(WorkspaceManager::tick);
+        ClientTickEvents.END_CLIENT_TICK.register(KeywordProcessor::onEndTick);
+        ClientEntityEvents.ENTITY_LOAD.register(PlayerRoster::onEntityLoad);
+        ClientEntityEvents.ENTITY_UNLOAD.register(PlayerRoster::onEntityUnload);
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> PlayerRoster.clear());
+
+        HudRenderCallback.EVENT.register(SwitcherHud::render);
+    }
+
+    private LiteralArgumentBuilder<FabricClientCommandSource> buildTileCommand() {
+        LiteralArgumentBuilder<FabricClientCommandSource> tileCommand = ClientCommandManager.literal("tile")
+                .executes(context -> {
+                    WindowTilingManager.TileMode mode = WindowTilingManager.getMode();
+                    context.getSource().sendFeedback(Text.of("Tiling mode: " + mode.commandName));
+                    return 1;
+                });
+
+        for (WindowTilingManager.TileMode mode : WindowTilingManager.TileMode.values()) {
+            tileCommand.then(ClientCommandManager.literal(mode.commandName)
+                    .executes(context -> {
+                        int tiled = WindowTilingManager.setMode(mode);
+                        if (mode == WindowTilingManager.TileMode.OFF) {
+                            context.getSource().sendFeedback(Text.of("Tiling disabled."));
+                        } else {
+                            context.getSource().sendFeedback(Text.of("Tiled " + tiled + " windows (" + mode.commandName + ")."));
+                        }
+                        return 1;
+                    }));
+        }
+        return tileCommand;
+    }
+
+    private LiteralArgumentBuilder<FabricClientCommandSource> buildInputCommand() {
+        return ClientCommandManager.literal("input")
+                .then(ClientCommandManager.literal("stats")
+                        .executes(context -> {
+                            if (windowList.isEmpty()) {
+                                context.getSource().sendFeedback(Text.of("No windows are currently open."));
+                                return 1;
+                            }
+
+                            StringBuilder sb = new StringBuilder("Input stats:");
+                            for (String windowName : windowList) {
+                                InputSystem.InputStats stats = InputSystem.getStats(getWindowHandle(windowName));
+                                if (stats == null) continue;
+
+                                long received = stats.moveEventsReceived;
+                                long coalesced = stats.moveEventsCoalesced;
+                                long hoverChecks = stats.hitTests + stats.hitTestsSkipped;
+                                sb.append("\n").append(windowName).append(": ")
+                                        .append(received).append(" moves, ")
+                                        .append(coalesced).append(" coalesced (")
+                                        .append(received > 0 ? coalesced * 100 / received : 0).append("%), ")
+                                        .append(stats.hitTestsSkipped).append("/").append(hoverChecks)
+                                        .append(" hit tests skipped");
+                            }
+                            context.getSource().sendFeedback(Text.of(sb.toString()));
+                            return 1;
+                        }))
+                .then(ClientCommandManager.literal("record")
+                        .then(ClientCommandManager.argument("window_name", StringArgumentType.string())
+                                .executes(context -> {
+                                    String windowName = StringArgumentType.getString(context, "window_name");
+                                    long window = getWindowHandle(windowName);
+                                    if (window == 0) {
+                                        context.getSource().sendFeedback(Text.of("Window " + windowName + " not found."));
+                                    } else if (InputRecorder.start(windowName, window)) {
+                                        context.getSource().sendFeedback(Text.of("Recording input of " + windowName + ". Use /windows input stop to save it."));
+                                    } else {
+                                        context.getSource().sendFeedback(Text.of("Window " + windowName + " is already being recorded."));
+                                    }
+                                    return 1;
+                                })))
+                .then(ClientCommandManager.literal("stop")
+                        .executes(context -> {
+                            List<Path> written = InputRecorder.stopAll();
+                            if (written.isEmpty()) {
+                                context.getSource().sendFeedback(Text.of("No input is being recorded."));
+                            } else {
+                                StringBuilder sb = new StringBuilder("Saved recordings:");
+                                for (Path path : written) {
+                                    sb.append("\n").append(path.getFileName());
+                                }
+                                context.getSource().sendFeedback(Text.of(sb.toString()));
+                            }
+                            return 1;
+                        }))
+                .then(ClientCommandManager.literal("replay")
+                        .then(ClientCommandManager.argument("file", StringArgumentType.string())
+                                .executes(context -> startReplay(context, null, true))
+                                .then(ClientCommandManager.argument("window_name", StringArgumentType.string())
+                                        .executes(context -> startReplay(context,
+                                                StringArgumentType.getString(context, "window_name"), false))
+                                        .then(ClientCommandManager.literal("fast")
+                                                .executes(context -> startReplay(context,
+                                                        StringArgumentType.getString(context, "window_name"), true))))));
+    }
+
+    private int setSessionFormat(CommandContext<FabricClientCommandSource> context, SessionManager.SessionFormat format) {
+        SessionManager.setFormat(format);
+        context.getSource().sendFeedback(Text.of("Sessions will be saved as " + format.name().toLowerCase()));
+        return 1;
+    }
+
+    // For results that arrive on a background thread
+    private void sendFeedbackLater(CommandContext<FabricClientCommandSource> context, String message) {
+        MinecraftClient.getInstance().execute(() -> context.getSource().sendFeedback(Text.of(message)));
+    }
+
+    // Without a window name the recording is replayed headlessly at maximum speed
+    private int startReplay(CommandContext<FabricClientCommandSource> context, String windowName, boolean maxSpeed) {
+        Path file = InputReplayer.resolveRecording(StringArgumentType.getString(context, "file"));
+        try {
+            if (windowName == null) {
+                InputReplayer.startHeadless(file);
+                context.getSource().sendFeedback(Text.of("Replaying " + file.getFileName() + " headlessly..."));
+                return 1;
+            }
+
+            long window = getWindowHandle(windowName);
+            if (window == 0) {
+                context.getSource().sendFeedback(Text.of("Window " + windowName + " not found."));
+                return 0;
+            }
+            if (!InputReplayer.startLive(windowName, window, file, maxSpeed)) {
+                context.getSource().sendFeedback(Text.of("Window " + windowName + " is already replaying."));
+                return 0;
+            }
+            context.getSource().sendFeedback(Text.of("Replaying " + file.getFileName() + " into " + windowName
+                    + (maxSpeed ? " at maximum speed..." : "...")));
+            return 1;
+        } catch (Exception e) {
+            ErrorHandler.handleError("Failed to start replay", e, "WindowsClient.startReplay");
+            context.getSource().sendFeedback(Text.of("Could not replay " + file.getFileName() + ": " + e.getMessage()));
+            return 0;
+        }
+    }
+
+    private int startCapture(CommandContext<FabricClientCommandSource> context, int seconds, int fps) {
+        String windowName = StringArgumentType.getString(context, "window_name");
+        long window = getWindowHandle(windowName);
+        if (window == 0) {
+            context.getSource().sendFeedback(Text.of("Window " + windowName + " not found."));
+            return 0;
+        }
+
+        Path output = WindowCapture.startCapture(windowName, window, seconds, fps);
+        if (output == null) {
+            context.getSource().sendFeedback(Text.of("Window " + windowName + " is already being captured."));
+            return 0;
+        }
+
+        if (seconds > 0) {
+            context.getSource().sendFeedback(Text.of("Recording " + windowName + " for " + seconds + "s at " + fps + " fps..."));
+        } else {
+            context.getSource().sendFeedback(Text.of("Capturing " + windowName + "..."));
+        }
+        return 1;
     }
 
     private void registerCommands(CommandDispatcher<FabricClientCommandSource> dispatcher,
@@ -235,12 +491,136 @@ public class WindowsClient implements ClientModInitializer {
                             }
                             return 1;
                         }))
+                .then(buildTileCommand())
+                .then(ClientCommandManager.literal("switch")
+                        .executes(context -> {
+                            boolean visible = SwitcherHud.toggle();
+                            if (visible && windowList.isEmpty()) {
+                                context.getSource().sendFeedback(Text.of("No windows are currently open."));
+                            }
+                            return 1;
+                        })
+                        .then(ClientCommandManager.argument("window_name", StringArgumentType.string())
+                                .executes(context -> {
+                                    String windowName = StringArgumentType.getString(context, "window_name");
+                                    if (focusWindow(windowName)) {
+                                        SwitcherHud.hide();
+                                    } else {
+                                        context.getSource().sendFeedback(Text.of("Window " + windowName + " not found."));
+                                    }
+                                    return 1;
+                                })))
+                .then(ClientCommandManager.literal("capture")
+                        .then(ClientCommandManager.argument("window_name", StringArgumentType.string())
+                                .executes(context -> startCapture(context, 0, 0))
+                                .then(ClientCommandManager.argument("seconds", IntegerArgumentType.integer(1, WindowCapture.MAX_SECONDS))
+                                        .then(ClientCommandManager.argument("fps", IntegerArgumentType.integer(1, WindowCapture.MAX_FPS))
+                                                .executes(context -> startCapture(context,
+                                                        IntegerArgumentType.getInteger(context, "seconds"),
+                                                        IntegerArgumentType.getInteger(context, "fps")))))))
+                .then(ClientCommandManager.literal("workspace")
+                        .then(ClientCommandManager.literal("save")
+                                .executes(context -> {
+                                    int saved = WorkspaceManager.save(activeWindows);
+                                    context.getSource().sendFeedback(Text.of("Saved workspace with " + saved + " windows."));
+                                    return 1;
+                                }))
+                        .then(ClientCommandManager.literal("restore")
+                                .executes(context -> {
+                                    int pending = WorkspaceManager.restore();
+                                    if (pending == 0) {
+                                        context.getSource().sendError(Text.of("No saved workspace to restore."));
+                                        return 0;
+                                    }
+                                    context.getSource().sendFeedback(Text.of("Restoring " + pending + " windows..."));
+                                    return 1;
+                                })))
+                .then(buildInputCommand())
+                .then(ClientCommandManager.literal("latency")
+                        .executes(context -> {
+                            if (windowList.isEmpty()) {
+                                context.getSource().sendFeedback(Text.of("No windows are currently open."));
+                                return 1;
+                            }
+
+                            StringBuilder sb = new StringBuilder("Input-to-frame latency:");
+                            for (String windowName : windowList) {
+                                LatencyTracker.LatencyHistogram histogram = LatencyTracker.getHistogram(getWindowHandle(windowName));
+                                if (histogram == null) continue;
+                                sb.append("\n").append(windowName).append(": ");
+                                sb.append(histogram.count() > 0 ? LatencyTracker.summarize(histogram) : "no samples yet");
+                            }
+                            context.getSource().sendFeedback(Text.of(sb.toString()));
+                            return 1;
+                        })
+                        .then(ClientCommandManager.literal("reset")
+                                .executes(context -> {
+                                    for (String windowName : windowList) {
+                                        LatencyTracker.LatencyHistogram histogram = LatencyTracker.getHistogram(getWindowHandle(windowName));
+                                        if (histogram != null) histogram.reset();
+                                    }
+                                    context.getSource().sendFeedback(Text.of("Latency histograms cleared."));
+                                    return 1;
+                                })))
                 .then(ClientCommandManager.literal("keywords")
                         .executes(context -> {
                             String[] keywords = KeywordProcessor.getAvailableKeywords();
                             context.getSource().sendFeedback(Text.of("Available keywords:\n" + String.join("\n", keywords)));
                             return 1;
+                        })
+                        .then(ClientCommandManager.literal("listlimit")
+                                .executes(context -> {
+                                    int limit = PlayerRoster.getListLimit();
+                                    context.getSource().sendFeedback(Text.of("{list} shows " + (limit == 0 ? "all players" : "up to " + limit + " players")));
+                                    return 1;
+                                })
+                                .then(ClientCommandManager.argument("limit", IntegerArgumentType.integer(0))
+                                        .executes(context -> {
+                                            int limit = IntegerArgumentType.getInteger(context, "limit");
+                                            PlayerRoster.setListLimit(limit);
+                                            context.getSource().sendFeedback(Text.of("{list} now shows " + (limit == 0 ? "all players" : "up to " + limit + " players")));
+                                            return 1;
+                                        }))))
+                .then(ClientCommandManager.literal("prettysessions")
+                        .executes(context -> {
+                            boolean newState = !SessionManager.isPrettyPrint();
+                            SessionManager.setPrettyPrint(newState);
+                            context.getSource().sendFeedback(Text.of("Indented session files " + (newState ? "enabled" : "disabled")));
+                            return 1;
                         }))
+                .then(ClientCommandManager.literal("sessions")
+                        .then(ClientCommandManager.literal("format")
+                                .executes(context -> {
+                                    context.getSource().sendFeedback(Text.of("Sessions are saved as "
+                                            + SessionManager.getFormat().name().toLowerCase()
+                                            + (SessionManager.isCompress() ? " (compressed)" : "")));
+                                    return 1;
+                                })
+                                .then(ClientCommandManager.literal("binary")
+                                        .executes(context -> setSessionFormat(context, SessionManager.SessionFormat.BINARY)))
+                                .then(ClientCommandManager.literal("json")
+                                        .executes(context -> setSessionFormat(context, SessionManager.SessionFormat.JSON))))
+                        .then(ClientCommandManager.literal("compress")
+                                .executes(context -> {
+                                    boolean newState = !SessionManager.isCompress();
+                                    SessionManager.setCompress(newState);
+                                    context.getSource().sendFeedback(Text.of("Compressed binary sessions " + (newState ? "enabled" : "disabled")));
+                                    return 1;
+                                }))
+                        .then(ClientCommandManager.literal("export")
+                                .then(ClientCommandManager.argument("name", StringArgumentType.string())
+                                        .executes(context -> {
+                                            String name = StringArgumentType.getString(context, "name");
+                                            SessionManager.exportSession(name, message -> sendFeedbackLater(context, message));
+                                            return 1;
+                                        })))
+                        .then(ClientCommandManager.literal("import")
+                                .then(ClientCommandManager.argument("file", StringArgumentType.string())
+                                        .executes(context -> {
+                                            String file = StringArgumentType.getString(context, "file");
+                                            SessionManager.importSession(file, message -> sendFeedbackLater(context, message));
+                                            return 1;
+                                        }))))
                 .then(ClientCommandManager.literal("debug")
                         .executes(context -> {
                             boolean newState = !ErrorHandler.isDebugMode();
@@ -0,0 +1,230 @@
+package com.examples;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import net.minecraft.client.MinecraftClient;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+public class WorkspaceManager {
+    private static final Path WORKSPACE_DIR = WindowsClient.getWindowsClientConfigDir().toPath().resolve("workspace");
+    private static final Path INDEX_FILE = WORKSPACE_DIR.resolve("workspace.json");
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    // Ticks between two restored windows, so the loading screen keeps rendering
+    private static final int STAGGER_TICKS = 2;
+    // How long save waits for the windows' render threads to copy their tabs
+    private static final long SNAPSHOT_TIMEOUT_MS = 2000;
+    private static final int DECODE_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ExecutorService decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "Workspace-Decode");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the client thread
+    private static final Deque<PendingWindow> pendingWindows = new ArrayDeque<>();
+    private static int ticksUntilNextWindow = 0;
+
+    static class WorkspaceIndex {
+        int version = 1;
+        String tileMode;
+        List<WindowEntry> windows = new ArrayList<>();
+    }
+
+    static class WindowEntry {
+        String name;
+        int x, y, width, height;
+        int activeTab;
+        String sessionFile;
+    }
+
+    private record WindowSnapshot(int activeTab, SessionManager.WindowSession session) {
+    }
+
+    private static class PendingWindow {
+        final WindowEntry entry;
+        final CompletableFuture<SessionManager.WindowSession> session;
+
+        PendingWindow(WindowEntry entry, CompletableFuture<SessionManager.WindowSession> session) {
+            this.entry = entry;
+            this.session = session;
+        }
+    }
+
+    // Writes the open windows, their bounds and their tabs; returns the number of windows saved
+    static int save(Map<String, Long> openWindows) {
+        try {
+            Files.createDirectories(WORKSPACE_DIR);
+
+            WorkspaceIndex index = new WorkspaceIndex();
+            index.tileMode = WindowTilingManager.getMode().name();
+            Set<String> writtenFiles = new HashSet<>();
+
+            // Every window copies its own tabs on its render thread, all of them in parallel
+            Map<String, CompletableFuture<WindowSnapshot>> snapshots = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> window : openWindows.entrySet()) {
+                long handle = window.getValue();
+                String name = window.getKey();
+                snapshots.put(name, UI.callOnRenderThread(handle, () -> {
+                    List<UI.TabInfo> tabs = UI.getTabs(handle);
+                    if (tabs == null) return null;
+                    return new WindowSnapshot(UI.getActiveTabIndex(handle),
+                            SessionManager.snapshotSession(tabs, name, UI.getWindowState(handle)));
+                }));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SNAPSHOT_TIMEOUT_MS);
+            for (Map.Entry<String, Long> window : openWindows.entrySet()) {
+                long handle = window.getValue();
+                WindowSnapshot snapshot;
+                try {
+                    snapshot = snapshots.get(window.getKey()).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    ErrorHandler.handleError("Window " + window.getKey() + " did not answer in time; left out of the workspace",
+                            e, "WorkspaceManager.save");
+                    continue;
+                } catch (ExecutionException e) {
+                    ErrorHandler.handleError("Failed to snapshot window " + window.getKey(), e.getCause(), "WorkspaceManager.save");
+                    continue;
+                }
+                if (snapshot == null) continue;
+
+                WindowEntry entry = new WindowEntry();
+                entry.name = window.getKey();
+                entry.activeTab = snapshot.activeTab;
+                // The position keeps names that sanitize alike, like "a b" and "a_b", apart
+                entry.sessionFile = SessionManager.sanitizeFileName(entry.name) + "-" + index.windows.size()
+                        + SessionManager.getFormat().extension;
+
+                Rectangle bounds = WindowPositionManager.getWindowBounds(handle);
+                if (bounds != null) {
+                    entry.x = bounds.x;
+                    entry.y = bounds.y;
+                    entry.width = bounds.width;
+                    entry.height = bounds.height;
+                }
+
+                try {
+                    SessionManager.writeSessionFile(WORKSPACE_DIR.resolve(entry.sessionFile), snapshot.session);
+                } catch (IOException e) {
+                    ErrorHandler.handleError("Failed to write window " + entry.name, e, "WorkspaceManager.save");
+                    continue;
+                }
+
+                writtenFiles.add(entry.sessionFile);
+                index.windows.add(entry);
+            }
+
+            try (Writer writer = Files.newBufferedWriter(INDEX_FILE)) {
+                GSON.toJson(index, writer);
+            }
+
+            // Remove snapshots of windows that are no longer open
+            try (Stream<Path> files = Files.list(WORKSPACE_DIR)) {
+                files.filter(path -> !path.equals(INDEX_FILE))
+                        .filter(path -> !writtenFiles.contains(path.getFileName().toString()))
+                        .forEach(path -> {
+                            try {
+                                Files.deleteIfExists(path);
+                            } catch (IOException e) {
+                                ErrorHandler.debug("Could not delete stale workspace file " + path);
+                            }
+                        });
+            }
+
+            ErrorHandler.debug("Workspace saved with " + index.windows.size() + " windows");
+            return index.windows.size();
+        } catch (Exception e) {
+            ErrorHandler.handleError("Failed to save workspace", e, "WorkspaceManager.save");
+            return 0;
+        }
+    }
+
+    // Starts decoding every window in parallel; windows are created later from tick()
+    static int restore() {
+        if (!Files.exists(INDEX_FILE)) return 0;
+
+        WorkspaceIndex index;
+        try (Reader reader = Files.newBufferedReader(INDEX_FILE)) {
+            index = GSON.fromJson(reader, WorkspaceIndex.class);
+        } catch (Exception e) {
+            ErrorHandler.handleError("Failed to read workspace", e, "WorkspaceManager.restore");
+            return 0;
+        }
+        if (index == null || index.windows == null || index.windows.isEmpty()) return 0;
+
+        if (index.tileMode != null) {
+            try {
+                WindowTilingManager.setMode(WindowTilingManager.TileMode.valueOf(index.tileMode));
+            } catch (IllegalArgumentException e) {
+                ErrorHandler.debug("Unknown tile mode in workspace: " + index.tileMode);
+            }
+        }
+
+        for (WindowEntry entry : index.windows) {
+            if (entry.name == null || entry.sessionFile == null) continue;
+
+            // The index is a plain file anyone can edit; never read outside the workspace folder
+            Path sessionFile = WORKSPACE_DIR.resolve(entry.sessionFile).normalize();
+            if (!sessionFile.startsWith(WORKSPACE_DIR.normalize()) || sessionFile.equals(INDEX_FILE.normalize())) {
+                ErrorHandler.debug("Ignoring workspace window " + entry.name + " with file outside the workspace: " + entry.sessionFile);
+                continue;
+            }
+            CompletableFuture<SessionManager.WindowSession> session = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return SessionManager.readSessionFile(sessionFile);
+                } catch (IOException e) {
+                    ErrorHandler.debug("Workspace window " + entry.name + " has no readable tabs: " + e.getMessage());
+                    return null;
+                }
+            }, decodeExecutor);
+            pendingWindows.add(new PendingWindow(entry, session));
+        }
+
+        ticksUntilNextWindow = 0;
+        return pendingWindows.size();
+    }
+
+    // Called every client tick; opens at most one decoded window per stagger interval
+    static void tick(MinecraftClient client) {
+        if (pendingWindows.isEmpty()) return;
+        if (ticksUntilNextWindow > 0) {
+            ticksUntilNextWindow--;
+            return;
+        }
+
+        PendingWindow next = pendingWindows.peek();
+        if (!next.session.isDone()) return;
+        pendingWindows.poll();
+
+        WindowEntry entry = next.entry;
+        Rectangle bounds = entry.width > 0 && entry.height > 0
+                ? new Rectangle(entry.x, entry.y, entry.width, entry.height)
+                : null;
+
+        try {
+            SessionManager.WindowSession session = next.session.getNow(null);
+            WindowsClient.openRestoredWindow(entry.name, bounds, session, entry.activeTab);
+        } catch (Exception e) {
+            ErrorHandler.handleError("Failed to restore window " + entry.name, e, "WorkspaceManager.tick");
+        }
+
+        ticksUntilNextWindow = STAGGER_TICKS;
+    }
+}